@@ -0,0 +1,140 @@
+package io.elastic.api;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for emitting data through an {@link EventEmitter}, as done by
+ * splitter-like components emitting many messages per execution.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EventEmitterBenchmark {
+
+    @Param({"SMALL", "MEDIUM", "LARGE"})
+    PayloadSize size;
+
+    @Param({"1", "100"})
+    int fanOut;
+
+    private Message message;
+    private List<Message> batch;
+    private EventEmitter emitter;
+    private EventEmitter batchEmitter;
+    private EventEmitter typedEmitter;
+    private EventEmitter meteredEmitter;
+
+    @Setup
+    public void setup(final Blackhole blackhole) {
+        message = Payloads.message(size);
+
+        final EventEmitter.Callback callback = new EventEmitter.Callback() {
+            @Override
+            public void receive(final Object data) {
+                blackhole.consume(data);
+            }
+        };
+
+        emitter = new EventEmitter.Builder()
+                .onError(callback)
+                .onData(callback)
+                .onSnapshot(callback)
+                .onRebound(callback)
+                .onUpdateKeys(callback)
+                .onHttpReplyCallback(callback)
+                .build();
+
+        batch = new ArrayList<Message>(fanOut);
+        for (int i = 0; i < fanOut; i++) {
+            batch.add(message);
+        }
+
+        batchEmitter = new EventEmitter.Builder()
+                .onError(callback)
+                .dataBatchCallback(new EventEmitter.BatchCallback() {
+                    @Override
+                    public void receive(final List<Message> messages) {
+                        blackhole.consume(messages);
+                    }
+                })
+                .onSnapshot(callback)
+                .onRebound(callback)
+                .onUpdateKeys(callback)
+                .onHttpReplyCallback(callback)
+                .build();
+
+        meteredEmitter = new EventEmitter.Builder()
+                .onError(callback)
+                .onData(callback)
+                .onSnapshot(callback)
+                .onRebound(callback)
+                .onUpdateKeys(callback)
+                .onHttpReplyCallback(callback)
+                .metrics(new StandardEmitterMetrics())
+                .build();
+
+        typedEmitter = new EventEmitter.Builder()
+                .onError(callback)
+                .dataCallback(new EventEmitter.DataCallback() {
+                    @Override
+                    public void receive(final Message message) {
+                        blackhole.consume(message);
+                    }
+                })
+                .onSnapshot(callback)
+                .onRebound(callback)
+                .onUpdateKeys(callback)
+                .onHttpReplyCallback(callback)
+                .build();
+    }
+
+    @Benchmark
+    public EventEmitter emitData() {
+        for (int i = 0; i < fanOut; i++) {
+            emitter.emitData(message);
+        }
+
+        return emitter;
+    }
+
+    @Benchmark
+    public EventEmitter emitDataMetered() {
+        for (int i = 0; i < fanOut; i++) {
+            meteredEmitter.emitData(message);
+        }
+
+        return meteredEmitter;
+    }
+
+    @Benchmark
+    public EventEmitter emitDataTyped() {
+        for (int i = 0; i < fanOut; i++) {
+            typedEmitter.emitData(message);
+        }
+
+        return typedEmitter;
+    }
+
+    @Benchmark
+    public EventEmitter emitDataBatch() {
+        return batchEmitter.emitDataBatch(batch);
+    }
+}
@@ -0,0 +1,65 @@
+package io.elastic.api;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Benchmarks for writing compressed {@link HttpReply} content.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HttpReplyBenchmark {
+
+    @Param({"SMALL", "MEDIUM", "LARGE"})
+    PayloadSize size;
+
+    private byte[] content;
+
+    @Setup
+    public void setup() {
+        content = Payloads.message(size).toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public ByteArrayOutputStream writeGzipContent() throws IOException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream(content.length);
+        new HttpReply.Builder()
+                .content(ByteBuffer.wrap(content))
+                .encoding(HttpReply.ContentEncoding.GZIP)
+                .build()
+                .writeContentTo(Channels.newChannel(out));
+
+        return out;
+    }
+
+    @Benchmark
+    public ByteArrayOutputStream gzipOutputStreamBaseline() throws IOException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream(content.length);
+        final GZIPOutputStream gzip = new GZIPOutputStream(out);
+        gzip.write(content);
+        gzip.close();
+
+        return out;
+    }
+}
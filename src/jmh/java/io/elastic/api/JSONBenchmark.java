@@ -0,0 +1,76 @@
+package io.elastic.api;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.json.JsonArray;
+import javax.json.JsonObject;
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for {@link JSON} parsing and serialization.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JSONBenchmark {
+
+    @Param({"SMALL", "MEDIUM", "LARGE"})
+    PayloadSize size;
+
+    private JsonObject object;
+    private String objectString;
+    private String arrayString;
+    private ByteBuffer objectBytes;
+
+    @Setup
+    public void setup() {
+        object = Payloads.body(size);
+        objectString = JSON.stringify(object);
+        arrayString = object.getJsonArray("orders").toString();
+        objectBytes = ByteBuffer.wrap(objectString.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Benchmark
+    public JsonObject parseObject() {
+        return JSON.parseObject(objectString);
+    }
+
+    @Benchmark
+    public JsonArray parseArray() {
+        return JSON.parseArray(arrayString);
+    }
+
+    @Benchmark
+    public String stringify() {
+        return JSON.stringify(object);
+    }
+
+    @Benchmark
+    public JsonObject readObject() {
+        return JSON.readObject(objectBytes);
+    }
+
+    @Benchmark
+    public ByteArrayOutputStream writeObject() {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream(size.getBytes() + 1024);
+        JSON.writeObject(object, out);
+
+        return out;
+    }
+}
@@ -0,0 +1,65 @@
+package io.elastic.api;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.json.JsonObject;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for {@link JsonValues} compared to keys built using {@link JSON#stringify(JsonObject)}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JsonValuesBenchmark {
+
+    @Param({"SMALL", "MEDIUM", "LARGE"})
+    PayloadSize size;
+
+    private JsonObject object;
+    private JsonObject copy;
+
+    @Setup
+    public void setup() {
+        object = Payloads.body(size);
+        copy = JSON.parseObject(JSON.stringify(object));
+    }
+
+    @Benchmark
+    public long hash64() {
+        return JsonValues.hash64(object);
+    }
+
+    @Benchmark
+    public long[] hash128() {
+        return JsonValues.hash128(object);
+    }
+
+    @Benchmark
+    public int stringifyHash() {
+        return JSON.stringify(object).hashCode();
+    }
+
+    @Benchmark
+    public boolean deepEquals() {
+        return JsonValues.deepEquals(object, copy);
+    }
+
+    @Benchmark
+    public boolean stringifyEquals() {
+        return JSON.stringify(object).equals(JSON.stringify(copy));
+    }
+}
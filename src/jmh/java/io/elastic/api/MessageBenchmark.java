@@ -0,0 +1,106 @@
+package io.elastic.api;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.json.JsonObject;
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for building and serializing {@link Message}s.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MessageBenchmark {
+
+    @Param({"SMALL", "MEDIUM", "LARGE"})
+    PayloadSize size;
+
+    private Message message;
+    private byte[] messageBytes;
+
+    @Setup
+    public void setup() {
+        message = Payloads.message(size);
+        messageBytes = message.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public JsonObject toJsonObject() {
+        return message.toJsonObject();
+    }
+
+    @Benchmark
+    public String toJsonString() {
+        return message.toString();
+    }
+
+    @Benchmark
+    public ByteArrayOutputStream writeTo() {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream(messageBytes.length);
+        message.writeTo(out);
+
+        return out;
+    }
+
+    @Benchmark
+    public Message build() {
+        return new Message.Builder()
+                .headers(message.getHeaders())
+                .body(message.getBody())
+                .attachments(message.getAttachments())
+                .passthrough(message.getPassthrough())
+                .build();
+    }
+
+    @Benchmark
+    public Message buildWithBody() {
+        return new Message.Builder()
+                .body(message.getBody())
+                .build();
+    }
+
+    @Benchmark
+    public Message buildWithId() {
+        return new Message.Builder()
+                .id(message.getId())
+                .body(message.getBody())
+                .build();
+    }
+
+    @Benchmark
+    public String parseAndForward() {
+        final JsonObject json = JSON.readObject(ByteBuffer.wrap(messageBytes));
+
+        return new Message.Builder()
+                .id(UUID.fromString(json.getString(Message.PROPERTY_ID)))
+                .headers(json.getJsonObject(Message.PROPERTY_HEADERS))
+                .body(json.getJsonObject(Message.PROPERTY_BODY))
+                .attachments(json.getJsonObject(Message.PROPERTY_ATTACHMENTS))
+                .passthrough(json.getJsonObject(Message.PROPERTY_PASSTHROUGH))
+                .build()
+                .toString();
+    }
+
+    @Benchmark
+    public String wrapAndForward() {
+        return Message.wrap(messageBytes).toString();
+    }
+}
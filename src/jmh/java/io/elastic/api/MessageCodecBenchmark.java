@@ -0,0 +1,111 @@
+package io.elastic.api;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.infra.IterationParams;
+import org.openjdk.jmh.runner.IterationType;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares encoding and decoding speed of the {@link MessageCodec}s. The encoded size of
+ * the benchmarked message is reported as the secondary result <code>encodedBytes</code>
+ * of {@link #encode(EncodedSize)}.
+ *
+ * <p>
+ * The JSON codec decodes lazily with {@link Message#wrap(byte[])}, while the CBOR codec
+ * decodes all sections eagerly. So {@link #decode(Blackhole)} reads every section to
+ * measure the same work for both, and {@link #decodeWithoutSections()} shows what a
+ * message which is only passed through costs.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MessageCodecBenchmark {
+
+    @Param({"SMALL", "MEDIUM", "LARGE"})
+    PayloadSize size;
+
+    @Param({"json", "cbor"})
+    String format;
+
+    private MessageCodec codec;
+    private Message message;
+    private byte[] encoded;
+
+    @Setup
+    public void setup() throws IOException {
+        codec = "cbor".equals(format) ? new CborMessageCodec() : new JsonMessageCodec();
+        message = Payloads.message(size);
+        final ByteArrayOutputStream out = new ByteArrayOutputStream(size.getBytes() + 1024);
+        codec.encode(message, out);
+        encoded = out.toByteArray();
+    }
+
+    @Benchmark
+    public ByteArrayOutputStream encode(final EncodedSize encodedSize) throws IOException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream(size.getBytes() + 1024);
+        codec.encode(message, out);
+        encodedSize.report(out.size());
+
+        return out;
+    }
+
+    @Benchmark
+    public void decode(final Blackhole blackhole) throws IOException {
+        final Message decoded = codec.decode(new ByteArrayInputStream(encoded));
+        blackhole.consume(decoded.getHeaders());
+        blackhole.consume(decoded.getBody());
+        blackhole.consume(decoded.getAttachments());
+        blackhole.consume(decoded.getPassthrough());
+    }
+
+    @Benchmark
+    public Message decodeWithoutSections() throws IOException {
+        return codec.decode(new ByteArrayInputStream(encoded));
+    }
+
+    /**
+     * Reports the encoded size of the benchmarked message.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class EncodedSize {
+
+        public int encodedBytes;
+        private boolean reporting;
+        private boolean reported;
+
+        @Setup(Level.Iteration)
+        public void startIteration(final IterationParams iteration) {
+            // event counters are summed over the measurement iterations, so only the first one reports the size
+            reporting = iteration.getType() == IterationType.MEASUREMENT && !reported;
+        }
+
+        void report(final int bytes) {
+            if (reporting) {
+                encodedBytes = bytes;
+                reported = true;
+            }
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package io.elastic.api;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the throughput of the {@link StandardMessageIdGenerator}s when building
+ * messages on a single thread and on as many threads as there are cores.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MessageIdGeneratorBenchmark {
+
+    @Param({"RANDOM", "TIME_ORDERED"})
+    StandardMessageIdGenerator generator;
+
+    @Benchmark
+    @Threads(1)
+    public Message buildSingleThreaded() {
+        return new Message.Builder().idGenerator(generator).build();
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public Message buildOnAllCores() {
+        return new Message.Builder().idGenerator(generator).build();
+    }
+}
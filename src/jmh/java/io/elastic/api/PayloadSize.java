@@ -0,0 +1,25 @@
+package io.elastic.api;
+
+/**
+ * Message body sizes the benchmarks are parameterized over.
+ */
+public enum PayloadSize {
+    SMALL(1024),
+    MEDIUM(100 * 1024),
+    LARGE(10 * 1024 * 1024);
+
+    private final int bytes;
+
+    PayloadSize(final int bytes) {
+        this.bytes = bytes;
+    }
+
+    /**
+     * Returns the approximate serialized size of a body in bytes.
+     *
+     * @return size in bytes
+     */
+    public int getBytes() {
+        return bytes;
+    }
+}
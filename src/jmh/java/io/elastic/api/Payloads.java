@@ -0,0 +1,74 @@
+package io.elastic.api;
+
+import javax.json.Json;
+import javax.json.JsonArrayBuilder;
+import javax.json.JsonObject;
+
+/**
+ * Generates message bodies of a given serialized size for the benchmarks.
+ */
+final class Payloads {
+
+    private static final String TEXT = "Lorem ipsum dolor sit amet, consectetur adipiscing elit";
+
+    private Payloads() {
+
+    }
+
+    /**
+     * Creates a body containing an array of order records whose serialized
+     * form is roughly the given number of bytes.
+     *
+     * @param size size of the body
+     * @return body
+     */
+    static JsonObject body(final PayloadSize size) {
+        final JsonArrayBuilder orders = Json.createArrayBuilder();
+
+        int length = 0;
+        int index = 0;
+        while (length < size.getBytes()) {
+            final JsonObject order = Json.createObjectBuilder()
+                    .add("id", index)
+                    .add("price", index * 1.25)
+                    .add("paid", index % 2 == 0)
+                    .add("description", TEXT)
+                    .build();
+            orders.add(order);
+            length += JSON.stringify(order).length() + 1;
+            index++;
+        }
+
+        return Json.createObjectBuilder()
+                .add("orders", orders)
+                .build();
+    }
+
+    /**
+     * Creates a message with the given body size and small headers,
+     * attachments and passthrough.
+     *
+     * @param size size of the body
+     * @return message
+     */
+    static Message message(final PayloadSize size) {
+        final JsonObject headers = Json.createObjectBuilder()
+                .add("x-io-rate-limit", 60)
+                .build();
+        final JsonObject attachments = Json.createObjectBuilder()
+                .add("logo.png", Json.createObjectBuilder()
+                        .add("url", "http://acme.org/img/logo.png")
+                        .add("size", 4096))
+                .build();
+        final JsonObject passthrough = Json.createObjectBuilder()
+                .add("step_1", Json.createObjectBuilder().add("msg", TEXT))
+                .build();
+
+        return new Message.Builder()
+                .headers(headers)
+                .body(body(size))
+                .attachments(attachments)
+                .passthrough(passthrough)
+                .build();
+    }
+}
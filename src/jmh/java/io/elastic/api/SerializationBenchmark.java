@@ -0,0 +1,92 @@
+package io.elastic.api;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the Java serialization of {@link Message} with serializing its JSON string,
+ * which was the only way to serialize a message before it had a compact serialized form.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SerializationBenchmark {
+
+    @Param({"SMALL", "MEDIUM", "LARGE"})
+    PayloadSize size;
+
+    private Message message;
+    private byte[] serializedMessage;
+    private byte[] serializedString;
+
+    @Setup
+    public void setup() throws IOException {
+        message = Payloads.message(size);
+        serializedMessage = serialize(message);
+        serializedString = serialize(message.toString());
+    }
+
+    @Benchmark
+    public byte[] writeMessage() throws IOException {
+        return serialize(message);
+    }
+
+    @Benchmark
+    public Message readMessage() throws IOException, ClassNotFoundException {
+        final Message copy = (Message) deserialize(serializedMessage);
+        copy.getBody();
+
+        return copy;
+    }
+
+    @Benchmark
+    public byte[] writeJsonString() throws IOException {
+        return serialize(message.toString());
+    }
+
+    @Benchmark
+    public Message readJsonString() throws IOException, ClassNotFoundException {
+        final String json = (String) deserialize(serializedString);
+        final Message copy = Message.wrap(json.getBytes("UTF-8"));
+        copy.getBody();
+
+        return copy;
+    }
+
+    private byte[] serialize(final Object object) throws IOException {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream(size.getBytes() + 1024);
+        final ObjectOutputStream out = new ObjectOutputStream(bytes);
+        out.writeObject(object);
+        out.close();
+
+        return bytes.toByteArray();
+    }
+
+    private static Object deserialize(final byte[] bytes) throws IOException, ClassNotFoundException {
+        final ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes));
+        try {
+            return in.readObject();
+        } finally {
+            in.close();
+        }
+    }
+}
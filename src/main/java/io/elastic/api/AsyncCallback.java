@@ -0,0 +1,177 @@
+package io.elastic.api;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * {@link EventEmitter.Callback} which enqueues events into a bounded queue and passes them
+ * to the wrapped callback on an {@link Executor}. At most one task per instance drains the
+ * queue at any time, so events are received in the order they have been emitted.
+ */
+final class AsyncCallback implements EventEmitter.Callback {
+    private static final Logger logger = LoggerFactory.getLogger(AsyncCallback.class);
+
+    private final String eventName;
+    private final EventEmitter.Callback delegate;
+    private final Executor executor;
+    private final EventEmitter.OverflowPolicy overflowPolicy;
+    private final BlockingQueue<Object> queue;
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+    private final AtomicLong pending = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final Object drainedLock = new Object();
+    private final Runnable drainTask = new Runnable() {
+        @Override
+        public void run() {
+            drain();
+        }
+    };
+
+    AsyncCallback(final String eventName,
+                  final EventEmitter.Callback delegate,
+                  final Executor executor,
+                  final int queueCapacity,
+                  final EventEmitter.OverflowPolicy overflowPolicy) {
+        this.eventName = eventName;
+        this.delegate = delegate;
+        this.executor = executor;
+        this.overflowPolicy = overflowPolicy;
+        this.queue = new ArrayBlockingQueue<Object>(queueCapacity);
+    }
+
+    @Override
+    public void receive(final Object data) {
+        pending.incrementAndGet();
+
+        final boolean enqueued;
+        try {
+            enqueued = enqueue(data);
+        } catch (RuntimeException e) {
+            decrementPending();
+            throw e;
+        }
+
+        if (!enqueued) {
+            decrementPending();
+            return;
+        }
+
+        schedule();
+    }
+
+    /**
+     * Returns the number of events dropped because the queue was full.
+     *
+     * @return number of dropped events
+     */
+    long getDroppedCount() {
+        return dropped.get();
+    }
+
+    /**
+     * Waits until all events enqueued so far have been passed to the wrapped callback.
+     *
+     * @param deadline deadline as returned by {@link System#nanoTime()}
+     * @return true if all events have been passed, false if the deadline elapsed
+     * @throws InterruptedException if interrupted while waiting
+     */
+    boolean awaitDrained(final long deadline) throws InterruptedException {
+        synchronized (drainedLock) {
+            while (pending.get() > 0) {
+                final long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    return false;
+                }
+                TimeUnit.NANOSECONDS.timedWait(drainedLock, remaining);
+            }
+        }
+
+        return true;
+    }
+
+    private boolean enqueue(final Object data) {
+        switch (overflowPolicy) {
+            case DROP:
+                if (!queue.offer(data)) {
+                    dropped.incrementAndGet();
+                    logger.warn("Event {} dropped as the queue is full", eventName);
+                    return false;
+                }
+                return true;
+            case FAIL:
+                if (!queue.offer(data)) {
+                    throw new RejectedEventException("Event " + eventName + " rejected as the queue is full");
+                }
+                return true;
+            default:
+                try {
+                    queue.put(data);
+                    return true;
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new RejectedEventException("Interrupted while emitting event " + eventName, e);
+                }
+        }
+    }
+
+    private void schedule() {
+        if (scheduled.compareAndSet(false, true)) {
+            try {
+                executor.execute(drainTask);
+            } catch (RuntimeException e) {
+                scheduled.set(false);
+                throw e;
+            }
+        }
+    }
+
+    private void drain() {
+        try {
+            while (true) {
+                Object data;
+                while ((data = queue.poll()) != null) {
+                    try {
+                        delegate.receive(data);
+                    } catch (RuntimeException e) {
+                        logger.error("Callback for event {} failed", eventName, e);
+                    } finally {
+                        decrementPending();
+                    }
+                }
+
+                scheduled.set(false);
+
+                // an event may have been enqueued after the last poll but before the flag was reset
+                if (queue.isEmpty() || !scheduled.compareAndSet(false, true)) {
+                    return;
+                }
+            }
+        } catch (Throwable e) {
+            // the error ends this task, so the remaining events are passed on by a new one
+            scheduled.set(false);
+            if (!queue.isEmpty()) {
+                try {
+                    schedule();
+                } catch (RuntimeException rejected) {
+                    logger.error("Failed to schedule delivery of event {}", eventName, rejected);
+                }
+            }
+            throw e;
+        }
+    }
+
+    private void decrementPending() {
+        if (pending.decrementAndGet() == 0) {
+            synchronized (drainedLock) {
+                drainedLock.notifyAll();
+            }
+        }
+    }
+}
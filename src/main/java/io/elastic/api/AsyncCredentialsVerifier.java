@@ -0,0 +1,26 @@
+package io.elastic.api;
+
+import javax.json.JsonObject;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Asynchronous variant of {@link CredentialsVerifier}. Use
+ * {@link AsyncProviders#asyncCredentialsVerifier(CredentialsVerifier, java.util.concurrent.Executor)}
+ * to adapt a {@link CredentialsVerifier}.
+ *
+ * @since 2.1.1
+ */
+public interface AsyncCredentialsVerifier {
+
+    /**
+     * Verifies the credentials in the given <i>configuration</i> asynchronously,
+     * see {@link CredentialsVerifier#verify(JsonObject)}. Cancelling the returned
+     * future interrupts the verification if supported by the implementation.
+     *
+     * @param configuration contains OAuth access token, API key,
+     *                      username/password to be verified
+     * @return future completed once the credentials are verified, completed exceptionally
+     * with {@link InvalidCredentialsException} if the credentials are invalid
+     */
+    CompletableFuture<Void> verifyAsync(JsonObject configuration);
+}
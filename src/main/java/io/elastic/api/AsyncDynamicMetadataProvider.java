@@ -0,0 +1,24 @@
+package io.elastic.api;
+
+import javax.json.JsonObject;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Asynchronous variant of {@link DynamicMetadataProvider}, allowing a host to retrieve
+ * several meta models in parallel. Use {@link AsyncProviders#asyncMetadataProvider(DynamicMetadataProvider, java.util.concurrent.Executor)}
+ * to adapt a {@link DynamicMetadataProvider}.
+ *
+ * @since 2.1.1
+ */
+public interface AsyncDynamicMetadataProvider {
+
+    /**
+     * Retrieves the meta model for the given <i>configuration</i> asynchronously,
+     * see {@link DynamicMetadataProvider#getMetaModel(JsonObject)}. Cancelling the returned
+     * future interrupts the retrieval if supported by the implementation.
+     *
+     * @param configuration data needed to execute the method
+     * @return future completed with the JSON schema representing the meta model for this component
+     */
+    CompletableFuture<JsonObject> getMetaModelAsync(JsonObject configuration);
+}
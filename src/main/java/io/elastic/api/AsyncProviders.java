@@ -0,0 +1,211 @@
+package io.elastic.api;
+
+import javax.json.JsonObject;
+import java.util.Locale;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.BiConsumer;
+
+/**
+ * Adapters running {@link SelectModelProvider}, {@link DynamicMetadataProvider} and
+ * {@link CredentialsVerifier} asynchronously, and timeouts for their futures.
+ *
+ * <p>
+ * The adapters run each invocation on the given {@link Executor}, so several lookups for one
+ * form can run in parallel. Cancelling a returned future, or letting it time out using
+ * {@link #withTimeout(CompletableFuture, long, TimeUnit)}, interrupts the thread running the
+ * invocation, so a provider blocked in interruptible I/O does not keep the thread forever.
+ * </p>
+ *
+ * <pre>
+ * {@code
+ *    AsyncSelectModelProvider countries = AsyncProviders.asyncSelectModelProvider(new CountriesProvider(), executor);
+ *    AsyncSelectModelProvider currencies = AsyncProviders.asyncSelectModelProvider(new CurrenciesProvider(), executor);
+ *
+ *    CompletableFuture<JsonObject> countriesModel = AsyncProviders.withTimeout(
+ *            countries.getSelectModelAsync(configuration), 10, TimeUnit.SECONDS);
+ *    CompletableFuture<JsonObject> currenciesModel = AsyncProviders.withTimeout(
+ *            currencies.getSelectModelAsync(configuration), 10, TimeUnit.SECONDS);
+ *
+ *    CompletableFuture.allOf(countriesModel, currenciesModel).join();
+ * }
+ * </pre>
+ *
+ * @since 2.1.1
+ */
+public final class AsyncProviders {
+
+    private static final ScheduledThreadPoolExecutor timer = createTimer();
+
+    private AsyncProviders() {
+
+    }
+
+    /**
+     * Adapts the given provider to run on the given executor.
+     *
+     * @param provider provider to adapt
+     * @param executor executor to run the provider on
+     * @return asynchronous provider
+     */
+    public static AsyncSelectModelProvider asyncSelectModelProvider(final SelectModelProvider provider,
+                                                                    final Executor executor) {
+        if (provider == null) {
+            throw new IllegalArgumentException("Select model provider must not be null");
+        }
+        checkExecutor(executor);
+
+        return new AsyncSelectModelProvider() {
+            @Override
+            public CompletableFuture<JsonObject> getSelectModelAsync(final JsonObject configuration) {
+                return submit(executor, new Callable<JsonObject>() {
+                    @Override
+                    public JsonObject call() {
+                        return provider.getSelectModel(configuration);
+                    }
+                });
+            }
+        };
+    }
+
+    /**
+     * Adapts the given provider to run on the given executor.
+     *
+     * @param provider provider to adapt
+     * @param executor executor to run the provider on
+     * @return asynchronous provider
+     */
+    public static AsyncDynamicMetadataProvider asyncMetadataProvider(final DynamicMetadataProvider provider,
+                                                                     final Executor executor) {
+        if (provider == null) {
+            throw new IllegalArgumentException("Dynamic metadata provider must not be null");
+        }
+        checkExecutor(executor);
+
+        return new AsyncDynamicMetadataProvider() {
+            @Override
+            public CompletableFuture<JsonObject> getMetaModelAsync(final JsonObject configuration) {
+                return submit(executor, new Callable<JsonObject>() {
+                    @Override
+                    public JsonObject call() {
+                        return provider.getMetaModel(configuration);
+                    }
+                });
+            }
+        };
+    }
+
+    /**
+     * Adapts the given verifier to run on the given executor.
+     *
+     * @param verifier verifier to adapt
+     * @param executor executor to run the verifier on
+     * @return asynchronous verifier
+     */
+    public static AsyncCredentialsVerifier asyncCredentialsVerifier(final CredentialsVerifier verifier,
+                                                                    final Executor executor) {
+        if (verifier == null) {
+            throw new IllegalArgumentException("Credentials verifier must not be null");
+        }
+        checkExecutor(executor);
+
+        return new AsyncCredentialsVerifier() {
+            @Override
+            public CompletableFuture<Void> verifyAsync(final JsonObject configuration) {
+                return submit(executor, new Callable<Void>() {
+                    @Override
+                    public Void call() throws InvalidCredentialsException {
+                        verifier.verify(configuration);
+
+                        return null;
+                    }
+                });
+            }
+        };
+    }
+
+    /**
+     * Completes the given future exceptionally with a {@link TimeoutException} unless it is
+     * completed within the given timeout. A future returned by the adapters of this class
+     * interrupts the thread running the invocation once timed out.
+     *
+     * @param future  future to time out
+     * @param timeout maximum time to wait for the completion
+     * @param unit    time unit of the timeout
+     * @param <T>     type of the result
+     * @return the given future
+     */
+    public static <T> CompletableFuture<T> withTimeout(final CompletableFuture<T> future,
+                                                       final long timeout,
+                                                       final TimeUnit unit) {
+        if (future == null) {
+            throw new IllegalArgumentException("Future must not be null");
+        }
+        if (timeout < 1) {
+            throw new IllegalArgumentException("Timeout must be positive");
+        }
+        if (unit == null) {
+            throw new IllegalArgumentException("Time unit must not be null");
+        }
+        if (future.isDone()) {
+            return future;
+        }
+
+        final ScheduledFuture<?> expiry = timer.schedule(new Runnable() {
+            @Override
+            public void run() {
+                future.completeExceptionally(new TimeoutException(
+                        "Timed out after " + timeout + " " + unit.name().toLowerCase(Locale.ROOT)));
+            }
+        }, timeout, unit);
+
+        future.whenComplete(new BiConsumer<T, Throwable>() {
+            @Override
+            public void accept(final T result, final Throwable error) {
+                expiry.cancel(false);
+            }
+        });
+
+        return future;
+    }
+
+    private static <T> CompletableFuture<T> submit(final Executor executor, final Callable<T> callable) {
+        final InterruptibleTask<T> task = new InterruptibleTask<T>(callable);
+        try {
+            executor.execute(task);
+        } catch (RejectedExecutionException e) {
+            task.completeExceptionally(e);
+        }
+
+        return task;
+    }
+
+    private static void checkExecutor(final Executor executor) {
+        if (executor == null) {
+            throw new IllegalArgumentException("Executor must not be null");
+        }
+    }
+
+    private static ScheduledThreadPoolExecutor createTimer() {
+        final ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, new ThreadFactory() {
+            @Override
+            public Thread newThread(final Runnable runnable) {
+                final Thread thread = new Thread(runnable, "elasticio-async-timeout");
+                thread.setDaemon(true);
+
+                return thread;
+            }
+        });
+        // futures usually complete before their timeout, do not keep their cancelled timeouts
+        executor.setRemoveOnCancelPolicy(true);
+
+        return executor;
+    }
+}
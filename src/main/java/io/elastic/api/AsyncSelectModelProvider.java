@@ -0,0 +1,24 @@
+package io.elastic.api;
+
+import javax.json.JsonObject;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Asynchronous variant of {@link SelectModelProvider}, allowing a host to retrieve
+ * several select models in parallel. Use {@link AsyncProviders#asyncSelectModelProvider(SelectModelProvider, java.util.concurrent.Executor)}
+ * to adapt a {@link SelectModelProvider}.
+ *
+ * @since 2.1.1
+ */
+public interface AsyncSelectModelProvider {
+
+    /**
+     * Retrieves the select model for the given <i>configuration</i> asynchronously,
+     * see {@link SelectModelProvider#getSelectModel(JsonObject)}. Cancelling the returned
+     * future interrupts the retrieval if supported by the implementation.
+     *
+     * @param configuration Config data needed to execute the method
+     * @return future completed with the select model for a particular select box
+     */
+    CompletableFuture<JsonObject> getSelectModelAsync(JsonObject configuration);
+}
@@ -0,0 +1,75 @@
+package io.elastic.api;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Settings of a {@link LoadingCache} shared by the builders of the caching decorators.
+ */
+final class CacheSettings {
+
+    private int maximumSize = 1000;
+    private long timeToLiveNanos = TimeUnit.MINUTES.toNanos(1);
+    private long stalePeriodNanos;
+    private Executor refreshExecutor;
+    private LoadingCache.Ticker ticker = LoadingCache.Ticker.SYSTEM;
+
+    void maximumSize(final int maximumSize) {
+        if (maximumSize < 1) {
+            throw new IllegalArgumentException("Maximum size must be positive");
+        }
+        this.maximumSize = maximumSize;
+    }
+
+    void timeToLive(final long timeToLive, final TimeUnit unit) {
+        if (timeToLive < 1) {
+            throw new IllegalArgumentException("Time to live must be positive");
+        }
+        this.timeToLiveNanos = toNanos(timeToLive, unit);
+    }
+
+    void staleWhileRevalidate(final long stalePeriod, final TimeUnit unit, final Executor executor) {
+        if (stalePeriod < 0) {
+            throw new IllegalArgumentException("Stale period must not be negative");
+        }
+        if (executor == null) {
+            throw new IllegalArgumentException("Executor must not be null");
+        }
+        this.stalePeriodNanos = toNanos(stalePeriod, unit);
+        this.refreshExecutor = executor;
+    }
+
+    void ticker(final LoadingCache.Ticker ticker) {
+        if (ticker == null) {
+            throw new IllegalArgumentException("Ticker must not be null");
+        }
+        this.ticker = ticker;
+    }
+
+    long timeToLiveNanos() {
+        return timeToLiveNanos;
+    }
+
+    <K, V> LoadingCache<K, V> createCache() {
+        final long timeToLive = timeToLiveNanos;
+
+        return createCache(new LoadingCache.Expiry<V>() {
+            @Override
+            public long timeToLiveNanos(final V value) {
+                return timeToLive;
+            }
+        });
+    }
+
+    <K, V> LoadingCache<K, V> createCache(final LoadingCache.Expiry<V> expiry) {
+        return new LoadingCache<K, V>(maximumSize, expiry, stalePeriodNanos, refreshExecutor, ticker);
+    }
+
+    static long toNanos(final long duration, final TimeUnit unit) {
+        if (unit == null) {
+            throw new IllegalArgumentException("Time unit must not be null");
+        }
+
+        return unit.toNanos(duration);
+    }
+}
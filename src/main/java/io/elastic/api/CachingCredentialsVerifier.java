@@ -0,0 +1,287 @@
+package io.elastic.api;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import javax.json.JsonArray;
+import javax.json.JsonObject;
+import javax.json.JsonString;
+import javax.json.JsonValue;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link CredentialsVerifier} decorator caching the verification results of the decorated verifier.
+ *
+ * <p>
+ * Successful verifications are cached for the configured time to live. Failed verifications,
+ * signalled by {@link InvalidCredentialsException}, are cached for a shorter period, so retrying
+ * with invalid credentials does not call the remote service each time, while corrected credentials
+ * on the remote side are picked up soon. Other exceptions are not cached. Concurrent verifications
+ * of the same credentials call the decorated verifier once.
+ * </p>
+ *
+ * <p>
+ * The configurations are not kept in memory. Results are cached by an HMAC-SHA256 digest of the
+ * configuration, computed with a random key per instance. Configurations with equal properties
+ * have the same digest regardless of the order of their properties.
+ * </p>
+ *
+ * <pre>
+ * {@code
+ *    CredentialsVerifier verifier = new CachingCredentialsVerifier.Builder(new ApiKeyVerifier())
+ *            .timeToLive(10, TimeUnit.MINUTES)
+ *            .failureTimeToLive(30, TimeUnit.SECONDS)
+ *            .build();
+ * }
+ * </pre>
+ *
+ * @since 2.1.1
+ */
+public final class CachingCredentialsVerifier implements CredentialsVerifier {
+
+    private static final String DIGEST_ALGORITHM = "HmacSHA256";
+
+    private static final byte TYPE_NULL = 0;
+    private static final byte TYPE_TRUE = 1;
+    private static final byte TYPE_FALSE = 2;
+    private static final byte TYPE_NUMBER = 3;
+    private static final byte TYPE_STRING = 4;
+    private static final byte TYPE_ARRAY = 5;
+    private static final byte TYPE_OBJECT = 6;
+
+    private final CredentialsVerifier delegate;
+    private final LoadingCache<ByteBuffer, InvalidCredentialsException> cache;
+    private final SecretKeySpec digestKey;
+
+    private CachingCredentialsVerifier(final CredentialsVerifier delegate,
+                                       final LoadingCache<ByteBuffer, InvalidCredentialsException> cache) {
+        this.delegate = delegate;
+        this.cache = cache;
+
+        final byte[] key = new byte[32];
+        new SecureRandom().nextBytes(key);
+        this.digestKey = new SecretKeySpec(key, DIGEST_ALGORITHM);
+    }
+
+    /**
+     * Verifies the given credentials, or returns the cached result of an earlier verification.
+     *
+     * @param configuration contains OAuth access token, API key,
+     *                      username/password to be verified
+     * @throws InvalidCredentialsException if the credentials are invalid, caused by the exception
+     *                                     thrown by the decorated verifier
+     */
+    @Override
+    public void verify(final JsonObject configuration) throws InvalidCredentialsException {
+        if (configuration == null) {
+            throw new IllegalArgumentException("Configuration must not be null");
+        }
+
+        final InvalidCredentialsException failure = cache.get(digestOf(configuration),
+                new LoadingCache.Loader<InvalidCredentialsException>() {
+                    @Override
+                    public InvalidCredentialsException load() {
+                        try {
+                            delegate.verify(configuration);
+
+                            return null;
+                        } catch (InvalidCredentialsException e) {
+                            return e;
+                        }
+                    }
+                });
+
+        if (failure != null) {
+            throw new InvalidCredentialsException(failure.getMessage(), failure);
+        }
+    }
+
+    /**
+     * Removes the cached result of the given configuration.
+     *
+     * @param configuration configuration whose result to remove
+     */
+    public void invalidate(final JsonObject configuration) {
+        if (configuration == null) {
+            throw new IllegalArgumentException("Configuration must not be null");
+        }
+
+        cache.invalidate(digestOf(configuration));
+    }
+
+    /**
+     * Removes all cached results.
+     */
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    private ByteBuffer digestOf(final JsonObject configuration) {
+        final Mac mac;
+        try {
+            mac = Mac.getInstance(DIGEST_ALGORITHM);
+            mac.init(digestKey);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Failed to create " + DIGEST_ALGORITHM + " digest", e);
+        }
+
+        update(mac, configuration);
+
+        return ByteBuffer.wrap(mac.doFinal());
+    }
+
+    /**
+     * Feeds a canonical encoding of the given value to the digest. Every value is prefixed with
+     * its type and variable-length parts with their length, so distinct values are encoded distinctly.
+     * Object properties are encoded ordered by name.
+     */
+    private static void update(final Mac mac, final JsonValue value) {
+        switch (value.getValueType()) {
+            case NULL:
+                mac.update(TYPE_NULL);
+                break;
+            case TRUE:
+                mac.update(TYPE_TRUE);
+                break;
+            case FALSE:
+                mac.update(TYPE_FALSE);
+                break;
+            case NUMBER:
+                mac.update(TYPE_NUMBER);
+                update(mac, value.toString());
+                break;
+            case STRING:
+                mac.update(TYPE_STRING);
+                update(mac, ((JsonString) value).getString());
+                break;
+            case ARRAY:
+                final JsonArray array = (JsonArray) value;
+                mac.update(TYPE_ARRAY);
+                update(mac, array.size());
+                for (JsonValue item : array) {
+                    update(mac, item);
+                }
+                break;
+            case OBJECT:
+                final JsonObject object = (JsonObject) value;
+                final List<String> names = new ArrayList<String>(object.keySet());
+                Collections.sort(names);
+                mac.update(TYPE_OBJECT);
+                update(mac, names.size());
+                for (String name : names) {
+                    update(mac, name);
+                    update(mac, object.get(name));
+                }
+                break;
+            default:
+                throw new IllegalArgumentException("Unsupported JSON value type " + value.getValueType());
+        }
+    }
+
+    private static void update(final Mac mac, final String value) {
+        final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        update(mac, bytes.length);
+        mac.update(bytes);
+    }
+
+    private static void update(final Mac mac, final int value) {
+        mac.update((byte) (value >>> 24));
+        mac.update((byte) (value >>> 16));
+        mac.update((byte) (value >>> 8));
+        mac.update((byte) value);
+    }
+
+    /**
+     * Used to build {@link CachingCredentialsVerifier} instances.
+     */
+    public static final class Builder {
+        private final CredentialsVerifier delegate;
+        private final CacheSettings settings = new CacheSettings();
+        private long failureTimeToLiveNanos = TimeUnit.SECONDS.toNanos(10);
+
+        /**
+         * Creates a {@link Builder} instance.
+         *
+         * @param delegate verifier whose results to cache
+         */
+        public Builder(final CredentialsVerifier delegate) {
+            if (delegate == null) {
+                throw new IllegalArgumentException("Credentials verifier must not be null");
+            }
+            this.delegate = delegate;
+        }
+
+        /**
+         * Sets the maximum number of cached results. Defaults to 1000.
+         *
+         * @param maximumSize maximum number of results
+         * @return this instance
+         */
+        public Builder maximumSize(final int maximumSize) {
+            settings.maximumSize(maximumSize);
+
+            return this;
+        }
+
+        /**
+         * Sets the time a successful verification is cached. Defaults to one minute.
+         *
+         * @param timeToLive time to live
+         * @param unit       time unit of the time to live
+         * @return this instance
+         */
+        public Builder timeToLive(final long timeToLive, final TimeUnit unit) {
+            settings.timeToLive(timeToLive, unit);
+
+            return this;
+        }
+
+        /**
+         * Sets the time a failed verification is cached. Defaults to ten seconds.
+         * Zero disables caching of failed verifications.
+         *
+         * @param failureTimeToLive time to live of failures
+         * @param unit              time unit of the time to live
+         * @return this instance
+         */
+        public Builder failureTimeToLive(final long failureTimeToLive, final TimeUnit unit) {
+            if (failureTimeToLive < 0) {
+                throw new IllegalArgumentException("Failure time to live must not be negative");
+            }
+            this.failureTimeToLiveNanos = CacheSettings.toNanos(failureTimeToLive, unit);
+
+            return this;
+        }
+
+        Builder ticker(final LoadingCache.Ticker ticker) {
+            settings.ticker(ticker);
+
+            return this;
+        }
+
+        /**
+         * Builds a {@link CachingCredentialsVerifier} instance and returns it.
+         *
+         * @return CachingCredentialsVerifier
+         */
+        public CachingCredentialsVerifier build() {
+            final long successTimeToLive = settings.timeToLiveNanos();
+            final long failureTimeToLive = failureTimeToLiveNanos;
+            final LoadingCache.Expiry<InvalidCredentialsException> expiry = new LoadingCache.Expiry<InvalidCredentialsException>() {
+                @Override
+                public long timeToLiveNanos(final InvalidCredentialsException failure) {
+                    return failure == null ? successTimeToLive : failureTimeToLive;
+                }
+            };
+
+            return new CachingCredentialsVerifier(delegate,
+                    settings.<ByteBuffer, InvalidCredentialsException>createCache(expiry));
+        }
+    }
+}
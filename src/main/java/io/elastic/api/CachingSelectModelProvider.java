@@ -0,0 +1,145 @@
+package io.elastic.api;
+
+import javax.json.JsonObject;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link SelectModelProvider} decorator caching the select models of the decorated provider.
+ *
+ * <p>
+ * Select models are cached per configuration. Configurations with equal properties share
+ * a select model regardless of the order of their properties. A cached select model expires
+ * after the configured time to live and the least recently used select model is evicted once the
+ * maximum size is exceeded. Concurrent requests for the same configuration load the select model
+ * once. A failed load is not cached.
+ * </p>
+ *
+ * <p>
+ * Optionally an expired select model is returned for a stale period while it is refreshed in
+ * the background, so users opening a form do not wait for the remote service.
+ * </p>
+ *
+ * <pre>
+ * {@code
+ *    SelectModelProvider provider = new CachingSelectModelProvider.Builder(new CountriesProvider())
+ *            .timeToLive(10, TimeUnit.MINUTES)
+ *            .staleWhileRevalidate(1, TimeUnit.HOURS, executor)
+ *            .build();
+ * }
+ * </pre>
+ *
+ * @since 2.1.1
+ */
+public final class CachingSelectModelProvider implements SelectModelProvider {
+
+    private final SelectModelProvider delegate;
+    private final LoadingCache<ConfigurationKey, JsonObject> cache;
+
+    private CachingSelectModelProvider(final SelectModelProvider delegate,
+                                       final LoadingCache<ConfigurationKey, JsonObject> cache) {
+        this.delegate = delegate;
+        this.cache = cache;
+    }
+
+    @Override
+    public JsonObject getSelectModel(final JsonObject configuration) {
+        return cache.get(new ConfigurationKey(configuration), new LoadingCache.Loader<JsonObject>() {
+            @Override
+            public JsonObject load() {
+                return delegate.getSelectModel(configuration);
+            }
+        });
+    }
+
+    /**
+     * Removes the cached select model of the given configuration.
+     *
+     * @param configuration configuration whose select model to remove
+     */
+    public void invalidate(final JsonObject configuration) {
+        cache.invalidate(new ConfigurationKey(configuration));
+    }
+
+    /**
+     * Removes all cached select models.
+     */
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    /**
+     * Used to build {@link CachingSelectModelProvider} instances.
+     */
+    public static final class Builder {
+        private final SelectModelProvider delegate;
+        private final CacheSettings settings = new CacheSettings();
+
+        /**
+         * Creates a {@link Builder} instance.
+         *
+         * @param delegate provider whose select models to cache
+         */
+        public Builder(final SelectModelProvider delegate) {
+            if (delegate == null) {
+                throw new IllegalArgumentException("Select model provider must not be null");
+            }
+            this.delegate = delegate;
+        }
+
+        /**
+         * Sets the maximum number of cached select models. Defaults to 1000.
+         *
+         * @param maximumSize maximum number of select models
+         * @return this instance
+         */
+        public Builder maximumSize(final int maximumSize) {
+            settings.maximumSize(maximumSize);
+
+            return this;
+        }
+
+        /**
+         * Sets the time after which a loaded select model expires. Defaults to one minute.
+         *
+         * @param timeToLive time to live
+         * @param unit       time unit of the time to live
+         * @return this instance
+         */
+        public Builder timeToLive(final long timeToLive, final TimeUnit unit) {
+            settings.timeToLive(timeToLive, unit);
+
+            return this;
+        }
+
+        /**
+         * Sets the period in which an expired select model is still returned while it is
+         * refreshed on the given executor. Disabled by default.
+         *
+         * @param stalePeriod period after expiry in which the stale select model is returned
+         * @param unit        time unit of the stale period
+         * @param executor    executor to refresh select models on
+         * @return this instance
+         */
+        public Builder staleWhileRevalidate(final long stalePeriod, final TimeUnit unit, final Executor executor) {
+            settings.staleWhileRevalidate(stalePeriod, unit, executor);
+
+            return this;
+        }
+
+        Builder ticker(final LoadingCache.Ticker ticker) {
+            settings.ticker(ticker);
+
+            return this;
+        }
+
+        /**
+         * Builds a {@link CachingSelectModelProvider} instance and returns it.
+         *
+         * @return CachingSelectModelProvider
+         */
+        public CachingSelectModelProvider build() {
+            return new CachingSelectModelProvider(delegate, settings.<ConfigurationKey, JsonObject>createCache());
+        }
+    }
+}
@@ -0,0 +1,330 @@
+package io.elastic.api;
+
+import javax.json.JsonObject;
+import java.util.List;
+
+/**
+ * Adapters between the untyped {@link EventEmitter.Callback} and the typed callbacks
+ * of {@link EventEmitter}, and decorators reporting to {@link EmitterMetrics}.
+ * All methods return null if given a null callback.
+ */
+final class Callbacks {
+
+    private Callbacks() {
+
+    }
+
+    static EventEmitter.ErrorCallback asErrorCallback(final EventEmitter.Callback callback) {
+        if (callback == null) {
+            return null;
+        }
+
+        return new EventEmitter.ErrorCallback() {
+            @Override
+            public void receive(final Exception e) {
+                callback.receive(e);
+            }
+        };
+    }
+
+    static EventEmitter.DataCallback asDataCallback(final EventEmitter.Callback callback) {
+        if (callback == null) {
+            return null;
+        }
+
+        return new EventEmitter.DataCallback() {
+            @Override
+            public void receive(final Message message) {
+                callback.receive(message);
+            }
+        };
+    }
+
+    static EventEmitter.BatchCallback asBatchCallback(final EventEmitter.Callback callback) {
+        if (callback == null) {
+            return null;
+        }
+
+        return new EventEmitter.BatchCallback() {
+            @Override
+            public void receive(final List<Message> messages) {
+                callback.receive(messages);
+            }
+        };
+    }
+
+    static EventEmitter.SnapshotCallback asSnapshotCallback(final EventEmitter.Callback callback) {
+        if (callback == null) {
+            return null;
+        }
+
+        return new EventEmitter.SnapshotCallback() {
+            @Override
+            public void receive(final JsonObject snapshot) {
+                callback.receive(snapshot);
+            }
+        };
+    }
+
+    static EventEmitter.ReboundCallback asReboundCallback(final EventEmitter.Callback callback) {
+        if (callback == null) {
+            return null;
+        }
+
+        return new EventEmitter.ReboundCallback() {
+            @Override
+            public void receive(final Object reason) {
+                callback.receive(reason);
+            }
+        };
+    }
+
+    static EventEmitter.UpdateKeysCallback asUpdateKeysCallback(final EventEmitter.Callback callback) {
+        if (callback == null) {
+            return null;
+        }
+
+        return new EventEmitter.UpdateKeysCallback() {
+            @Override
+            public void receive(final JsonObject keys) {
+                callback.receive(keys);
+            }
+        };
+    }
+
+    static EventEmitter.HttpReplyCallback asHttpReplyCallback(final EventEmitter.Callback callback) {
+        if (callback == null) {
+            return null;
+        }
+
+        return new EventEmitter.HttpReplyCallback() {
+            @Override
+            public void receive(final HttpReply reply) {
+                callback.receive(reply);
+            }
+        };
+    }
+
+    static EventEmitter.Callback fromErrorCallback(final EventEmitter.ErrorCallback callback) {
+        if (callback == null) {
+            return null;
+        }
+
+        return new EventEmitter.Callback() {
+            @Override
+            public void receive(final Object data) {
+                callback.receive((Exception) data);
+            }
+        };
+    }
+
+    static EventEmitter.Callback fromDataCallback(final EventEmitter.DataCallback callback) {
+        if (callback == null) {
+            return null;
+        }
+
+        return new EventEmitter.Callback() {
+            @Override
+            public void receive(final Object data) {
+                callback.receive((Message) data);
+            }
+        };
+    }
+
+    /**
+     * Returns a callback passing a {@link Message} to the given data callback and
+     * a list of messages to the given batch callback.
+     */
+    static EventEmitter.Callback fromDataOrBatchCallback(final EventEmitter.DataCallback dataCallback,
+                                                         final EventEmitter.BatchCallback batchCallback) {
+        return new EventEmitter.Callback() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public void receive(final Object data) {
+                if (data instanceof Message) {
+                    dataCallback.receive((Message) data);
+                } else {
+                    batchCallback.receive((List<Message>) data);
+                }
+            }
+        };
+    }
+
+    static EventEmitter.Callback fromSnapshotCallback(final EventEmitter.SnapshotCallback callback) {
+        if (callback == null) {
+            return null;
+        }
+
+        return new EventEmitter.Callback() {
+            @Override
+            public void receive(final Object data) {
+                callback.receive((JsonObject) data);
+            }
+        };
+    }
+
+    static EventEmitter.Callback fromReboundCallback(final EventEmitter.ReboundCallback callback) {
+        if (callback == null) {
+            return null;
+        }
+
+        return new EventEmitter.Callback() {
+            @Override
+            public void receive(final Object data) {
+                callback.receive(data);
+            }
+        };
+    }
+
+    static EventEmitter.Callback fromUpdateKeysCallback(final EventEmitter.UpdateKeysCallback callback) {
+        if (callback == null) {
+            return null;
+        }
+
+        return new EventEmitter.Callback() {
+            @Override
+            public void receive(final Object data) {
+                callback.receive((JsonObject) data);
+            }
+        };
+    }
+
+    static EventEmitter.Callback fromHttpReplyCallback(final EventEmitter.HttpReplyCallback callback) {
+        if (callback == null) {
+            return null;
+        }
+
+        return new EventEmitter.Callback() {
+            @Override
+            public void receive(final Object data) {
+                callback.receive((HttpReply) data);
+            }
+        };
+    }
+
+    static EventEmitter.ErrorCallback meteredErrorCallback(final EventEmitter.ErrorCallback callback, final EmitterMetrics metrics) {
+        if (callback == null) {
+            return null;
+        }
+
+        return new EventEmitter.ErrorCallback() {
+            @Override
+            public void receive(final Exception e) {
+                final long start = System.nanoTime();
+                try {
+                    callback.receive(e);
+                } finally {
+                    metrics.eventReceived(EmitterMetrics.EventType.ERROR, e, System.nanoTime() - start);
+                }
+            }
+        };
+    }
+
+    static EventEmitter.DataCallback meteredDataCallback(final EventEmitter.DataCallback callback, final EmitterMetrics metrics) {
+        if (callback == null) {
+            return null;
+        }
+
+        return new EventEmitter.DataCallback() {
+            @Override
+            public void receive(final Message message) {
+                final long start = System.nanoTime();
+                try {
+                    callback.receive(message);
+                } finally {
+                    metrics.eventReceived(EmitterMetrics.EventType.DATA, message, System.nanoTime() - start);
+                }
+            }
+        };
+    }
+
+    static EventEmitter.BatchCallback meteredBatchCallback(final EventEmitter.BatchCallback callback, final EmitterMetrics metrics) {
+        if (callback == null) {
+            return null;
+        }
+
+        return new EventEmitter.BatchCallback() {
+            @Override
+            public void receive(final List<Message> messages) {
+                final long start = System.nanoTime();
+                try {
+                    callback.receive(messages);
+                } finally {
+                    metrics.eventReceived(EmitterMetrics.EventType.DATA_BATCH, messages, System.nanoTime() - start);
+                }
+            }
+        };
+    }
+
+    static EventEmitter.SnapshotCallback meteredSnapshotCallback(final EventEmitter.SnapshotCallback callback, final EmitterMetrics metrics) {
+        if (callback == null) {
+            return null;
+        }
+
+        return new EventEmitter.SnapshotCallback() {
+            @Override
+            public void receive(final JsonObject snapshot) {
+                final long start = System.nanoTime();
+                try {
+                    callback.receive(snapshot);
+                } finally {
+                    metrics.eventReceived(EmitterMetrics.EventType.SNAPSHOT, snapshot, System.nanoTime() - start);
+                }
+            }
+        };
+    }
+
+    static EventEmitter.ReboundCallback meteredReboundCallback(final EventEmitter.ReboundCallback callback, final EmitterMetrics metrics) {
+        if (callback == null) {
+            return null;
+        }
+
+        return new EventEmitter.ReboundCallback() {
+            @Override
+            public void receive(final Object reason) {
+                final long start = System.nanoTime();
+                try {
+                    callback.receive(reason);
+                } finally {
+                    metrics.eventReceived(EmitterMetrics.EventType.REBOUND, reason, System.nanoTime() - start);
+                }
+            }
+        };
+    }
+
+    static EventEmitter.UpdateKeysCallback meteredUpdateKeysCallback(final EventEmitter.UpdateKeysCallback callback, final EmitterMetrics metrics) {
+        if (callback == null) {
+            return null;
+        }
+
+        return new EventEmitter.UpdateKeysCallback() {
+            @Override
+            public void receive(final JsonObject keys) {
+                final long start = System.nanoTime();
+                try {
+                    callback.receive(keys);
+                } finally {
+                    metrics.eventReceived(EmitterMetrics.EventType.UPDATE_KEYS, keys, System.nanoTime() - start);
+                }
+            }
+        };
+    }
+
+    static EventEmitter.HttpReplyCallback meteredHttpReplyCallback(final EventEmitter.HttpReplyCallback callback, final EmitterMetrics metrics) {
+        if (callback == null) {
+            return null;
+        }
+
+        return new EventEmitter.HttpReplyCallback() {
+            @Override
+            public void receive(final HttpReply reply) {
+                final long start = System.nanoTime();
+                try {
+                    callback.receive(reply);
+                } finally {
+                    metrics.eventReceived(EmitterMetrics.EventType.HTTP_REPLY, reply, System.nanoTime() - start);
+                }
+            }
+        };
+    }
+}
@@ -0,0 +1,597 @@
+package io.elastic.api;
+
+import javax.json.JsonArray;
+import javax.json.JsonArrayBuilder;
+import javax.json.JsonBuilderFactory;
+import javax.json.JsonNumber;
+import javax.json.JsonObject;
+import javax.json.JsonObjectBuilder;
+import javax.json.JsonString;
+import javax.json.JsonValue;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * {@link MessageCodec} encoding messages as <a href="https://tools.ietf.org/html/rfc7049">CBOR</a>.
+ *
+ * <p>
+ * A message is encoded as a map holding the id as a binary UUID (tag 37) and the
+ * sections as maps. Integral numbers are encoded as integers or bignums and all other
+ * numbers as decimal fractions, so that every {@link JsonValue} including the scale of
+ * its numbers survives a round trip.
+ * </p>
+ *
+ * <p>
+ * Decoding reads exactly one message, so multiple messages may be read from the same
+ * stream. As the stream is read in small chunks, a buffered stream should be passed.
+ * Indefinite-length items, structures nested deeper than {@value #MAX_DEPTH} levels and
+ * floating point values which have no JSON representation, such as NaN, are not supported.
+ * </p>
+ *
+ * @since 2.1.1
+ */
+public final class CborMessageCodec implements MessageCodec {
+
+    public static final String CONTENT_TYPE = "application/cbor";
+
+    private static final int MAJOR_UNSIGNED = 0;
+    private static final int MAJOR_NEGATIVE = 1;
+    private static final int MAJOR_BYTES = 2;
+    private static final int MAJOR_TEXT = 3;
+    private static final int MAJOR_ARRAY = 4;
+    private static final int MAJOR_MAP = 5;
+    private static final int MAJOR_TAG = 6;
+    private static final int MAJOR_SIMPLE = 7;
+
+    private static final int TAG_POSITIVE_BIGNUM = 2;
+    private static final int TAG_NEGATIVE_BIGNUM = 3;
+    private static final int TAG_DECIMAL_FRACTION = 4;
+    private static final int TAG_UUID = 37;
+
+    private static final int SIMPLE_FALSE = 20;
+    private static final int SIMPLE_TRUE = 21;
+    private static final int SIMPLE_NULL = 22;
+    private static final int SIMPLE_FLOAT32 = 26;
+    private static final int SIMPLE_FLOAT64 = 27;
+
+    private static final int BUFFER_SIZE = 8192;
+    private static final int MAX_DEPTH = 256;
+
+    @Override
+    public String getContentType() {
+        return CONTENT_TYPE;
+    }
+
+    @Override
+    public void encode(final Message message, final OutputStream out) throws IOException {
+        if (message == null) {
+            throw new IllegalArgumentException("Message must not be null");
+        }
+        if (out == null) {
+            throw new IllegalArgumentException("Output stream must not be null");
+        }
+
+        final Output data = new Output(out);
+
+        writeHeader(data, MAJOR_MAP, 5);
+        writeText(data, Message.PROPERTY_ID);
+        writeHeader(data, MAJOR_TAG, TAG_UUID);
+        writeHeader(data, MAJOR_BYTES, 16);
+        data.writeLong(message.getId().getMostSignificantBits());
+        data.writeLong(message.getId().getLeastSignificantBits());
+        writeText(data, Message.PROPERTY_HEADERS);
+        writeObject(data, message.getHeaders());
+        writeText(data, Message.PROPERTY_BODY);
+        writeObject(data, message.getBody());
+        writeText(data, Message.PROPERTY_ATTACHMENTS);
+        writeObject(data, message.getAttachments());
+        writeText(data, Message.PROPERTY_PASSTHROUGH);
+        writeObject(data, message.getPassthrough());
+
+        data.flush();
+    }
+
+    @Override
+    public Message decode(final InputStream in) throws IOException {
+        if (in == null) {
+            throw new IllegalArgumentException("Input stream must not be null");
+        }
+
+        final DataInputStream data = new DataInputStream(in);
+        final JsonBuilderFactory factory = JsonFactories.getDefault().getBuilderFactory();
+        final Message.Builder builder = new Message.Builder();
+        boolean hasId = false;
+
+        final int initial = data.readUnsignedByte();
+        expectMajor(initial, MAJOR_MAP);
+        final int size = readLength(data, initial);
+
+        for (int i = 0; i < size; i++) {
+            final String name = readText(data);
+
+            if (Message.PROPERTY_ID.equals(name)) {
+                builder.id(readId(data));
+                hasId = true;
+            } else if (Message.PROPERTY_HEADERS.equals(name)) {
+                builder.headers(readObject(data, factory));
+            } else if (Message.PROPERTY_BODY.equals(name)) {
+                builder.body(readObject(data, factory));
+            } else if (Message.PROPERTY_ATTACHMENTS.equals(name)) {
+                builder.attachments(readObject(data, factory));
+            } else if (Message.PROPERTY_PASSTHROUGH.equals(name)) {
+                builder.passthrough(readObject(data, factory));
+            } else {
+                readValue(data, data.readUnsignedByte(), factory, 1);
+            }
+        }
+
+        if (!hasId) {
+            throw new IOException("Message id is missing");
+        }
+
+        return builder.build();
+    }
+
+    private static void writeValue(final Output out, final JsonValue value) throws IOException {
+        switch (value.getValueType()) {
+            case OBJECT:
+                writeObject(out, (JsonObject) value);
+                break;
+            case ARRAY:
+                writeArray(out, (JsonArray) value);
+                break;
+            case STRING:
+                writeText(out, ((JsonString) value).getString());
+                break;
+            case NUMBER:
+                writeNumber(out, ((JsonNumber) value).bigDecimalValue());
+                break;
+            case TRUE:
+                out.writeByte(MAJOR_SIMPLE << 5 | SIMPLE_TRUE);
+                break;
+            case FALSE:
+                out.writeByte(MAJOR_SIMPLE << 5 | SIMPLE_FALSE);
+                break;
+            default:
+                out.writeByte(MAJOR_SIMPLE << 5 | SIMPLE_NULL);
+        }
+    }
+
+    private static void writeObject(final Output out, final JsonObject object) throws IOException {
+        writeHeader(out, MAJOR_MAP, object.size());
+
+        for (Map.Entry<String, JsonValue> entry : object.entrySet()) {
+            writeText(out, entry.getKey());
+            writeValue(out, entry.getValue());
+        }
+    }
+
+    private static void writeArray(final Output out, final JsonArray array) throws IOException {
+        writeHeader(out, MAJOR_ARRAY, array.size());
+
+        for (JsonValue value : array) {
+            writeValue(out, value);
+        }
+    }
+
+    private static void writeText(final Output out, final String text) throws IOException {
+        final byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        writeHeader(out, MAJOR_TEXT, bytes.length);
+        out.write(bytes);
+    }
+
+    private static void writeNumber(final Output out, final BigDecimal number) throws IOException {
+        if (number.scale() == 0) {
+            if (number.precision() < 19) {
+                writeInteger(out, number.longValue());
+            } else {
+                writeInteger(out, number.unscaledValue());
+            }
+        } else {
+            writeHeader(out, MAJOR_TAG, TAG_DECIMAL_FRACTION);
+            writeHeader(out, MAJOR_ARRAY, 2);
+            writeInteger(out, -(long) number.scale());
+            writeInteger(out, number.unscaledValue());
+        }
+    }
+
+    private static void writeInteger(final Output out, final long value) throws IOException {
+        if (value >= 0) {
+            writeHeader(out, MAJOR_UNSIGNED, value);
+        } else {
+            writeHeader(out, MAJOR_NEGATIVE, -1 - value);
+        }
+    }
+
+    private static void writeInteger(final Output out, final BigInteger value) throws IOException {
+        if (value.bitLength() < 64) {
+            writeInteger(out, value.longValue());
+            return;
+        }
+
+        final boolean negative = value.signum() < 0;
+        final BigInteger magnitude = negative ? BigInteger.ONE.negate().subtract(value) : value;
+        byte[] bytes = magnitude.toByteArray();
+        if (bytes[0] == 0) {
+            final byte[] trimmed = new byte[bytes.length - 1];
+            System.arraycopy(bytes, 1, trimmed, 0, trimmed.length);
+            bytes = trimmed;
+        }
+
+        writeHeader(out, MAJOR_TAG, negative ? TAG_NEGATIVE_BIGNUM : TAG_POSITIVE_BIGNUM);
+        writeHeader(out, MAJOR_BYTES, bytes.length);
+        out.write(bytes);
+    }
+
+    private static void writeHeader(final Output out, final int major, final long value) throws IOException {
+        final int type = major << 5;
+
+        if (value < 24) {
+            out.writeByte(type | (int) value);
+        } else if (value <= 0xFFL) {
+            out.writeByte(type | 24);
+            out.writeByte((int) value);
+        } else if (value <= 0xFFFFL) {
+            out.writeByte(type | 25);
+            out.writeShort((int) value);
+        } else if (value <= 0xFFFFFFFFL) {
+            out.writeByte(type | 26);
+            out.writeInt((int) value);
+        } else {
+            out.writeByte(type | 27);
+            out.writeLong(value);
+        }
+    }
+
+    private static UUID readId(final DataInputStream in) throws IOException {
+        final int initial = in.readUnsignedByte();
+        expectMajor(initial, MAJOR_TAG);
+        if (readArgument(in, initial) != TAG_UUID) {
+            throw new IOException("Message id must be tagged as UUID");
+        }
+
+        final byte[] bytes = readBytes(in);
+        if (bytes.length != 16) {
+            throw new IOException("Message id must have 16 bytes");
+        }
+
+        long mostSigBits = 0;
+        long leastSigBits = 0;
+        for (int i = 0; i < 8; i++) {
+            mostSigBits = (mostSigBits << 8) | (bytes[i] & 0xFF);
+            leastSigBits = (leastSigBits << 8) | (bytes[i + 8] & 0xFF);
+        }
+
+        return new UUID(mostSigBits, leastSigBits);
+    }
+
+    private static JsonObject readObject(final DataInputStream in, final JsonBuilderFactory factory) throws IOException {
+        final int initial = in.readUnsignedByte();
+        expectMajor(initial, MAJOR_MAP);
+
+        return readMap(in, initial, factory, 1);
+    }
+
+    private static JsonObject readMap(final DataInputStream in,
+                                      final int initial,
+                                      final JsonBuilderFactory factory,
+                                      final int depth) throws IOException {
+        checkDepth(depth);
+        final int size = readLength(in, initial);
+        final JsonObjectBuilder builder = factory.createObjectBuilder();
+
+        for (int i = 0; i < size; i++) {
+            final String name = readText(in);
+            final Object value = readValue(in, in.readUnsignedByte(), factory, depth + 1);
+
+            if (value instanceof JsonValue) {
+                builder.add(name, (JsonValue) value);
+            } else if (value instanceof String) {
+                builder.add(name, (String) value);
+            } else if (value instanceof BigInteger) {
+                builder.add(name, (BigInteger) value);
+            } else if (value instanceof BigDecimal) {
+                builder.add(name, (BigDecimal) value);
+            } else {
+                builder.add(name, (Long) value);
+            }
+        }
+
+        return builder.build();
+    }
+
+    private static JsonArray readArray(final DataInputStream in,
+                                       final int initial,
+                                       final JsonBuilderFactory factory,
+                                       final int depth) throws IOException {
+        checkDepth(depth);
+        final int size = readLength(in, initial);
+        final JsonArrayBuilder builder = factory.createArrayBuilder();
+
+        for (int i = 0; i < size; i++) {
+            final Object value = readValue(in, in.readUnsignedByte(), factory, depth + 1);
+
+            if (value instanceof JsonValue) {
+                builder.add((JsonValue) value);
+            } else if (value instanceof String) {
+                builder.add((String) value);
+            } else if (value instanceof BigInteger) {
+                builder.add((BigInteger) value);
+            } else if (value instanceof BigDecimal) {
+                builder.add((BigDecimal) value);
+            } else {
+                builder.add((Long) value);
+            }
+        }
+
+        return builder.build();
+    }
+
+    /**
+     * Reads a value. Structures and literals are returned as {@link JsonValue}, strings as {@link String}
+     * and numbers as {@link Long}, {@link BigInteger} or {@link BigDecimal}, as JSON-P 1.0 offers
+     * no way to create scalar values outside of a builder.
+     */
+    private static Object readValue(final DataInputStream in,
+                                    final int initial,
+                                    final JsonBuilderFactory factory,
+                                    final int depth) throws IOException {
+        switch (initial >>> 5) {
+            case MAJOR_UNSIGNED:
+            case MAJOR_NEGATIVE:
+                return readInteger(in, initial);
+            case MAJOR_TEXT:
+                return readTextValue(in, initial);
+            case MAJOR_ARRAY:
+                return readArray(in, initial, factory, depth);
+            case MAJOR_MAP:
+                return readMap(in, initial, factory, depth);
+            case MAJOR_TAG:
+                return readTagged(in, initial);
+            case MAJOR_SIMPLE:
+                return readSimple(in, initial);
+            default:
+                throw new IOException("Unsupported CBOR item with initial byte " + initial);
+        }
+    }
+
+    private static Object readInteger(final DataInputStream in, final int initial) throws IOException {
+        final long argument = readArgument(in, initial);
+        final boolean negative = initial >>> 5 == MAJOR_NEGATIVE;
+
+        if (argument >= 0) {
+            return negative ? -1 - argument : argument;
+        }
+
+        final BigInteger unsigned = new BigInteger(1, toBytes(argument));
+
+        return negative ? BigInteger.ONE.negate().subtract(unsigned) : unsigned;
+    }
+
+    private static Object readTagged(final DataInputStream in, final int initial) throws IOException {
+        final long tag = readArgument(in, initial);
+
+        if (tag == TAG_POSITIVE_BIGNUM || tag == TAG_NEGATIVE_BIGNUM) {
+            return readBignum(in, tag);
+        }
+
+        if (tag == TAG_DECIMAL_FRACTION) {
+            final int arrayInitial = in.readUnsignedByte();
+            expectMajor(arrayInitial, MAJOR_ARRAY);
+            if (readLength(in, arrayInitial) != 2) {
+                throw new IOException("Decimal fraction must have two elements");
+            }
+
+            final BigInteger exponent = toBigInteger(readInteger(in, in.readUnsignedByte()));
+            final int mantissaInitial = in.readUnsignedByte();
+            final Object mantissa = mantissaInitial >>> 5 == MAJOR_TAG
+                    ? readBignum(in, readArgument(in, mantissaInitial))
+                    : readInteger(in, mantissaInitial);
+
+            final int scale;
+            try {
+                scale = exponent.negate().intValueExact();
+            } catch (ArithmeticException e) {
+                throw new IOException("Decimal fraction exponent " + exponent + " is out of range", e);
+            }
+
+            if (mantissa instanceof Long) {
+                return BigDecimal.valueOf((Long) mantissa, scale);
+            }
+
+            return new BigDecimal(toBigInteger(mantissa), scale);
+        }
+
+        throw new IOException("Unsupported CBOR tag " + tag);
+    }
+
+    private static BigInteger readBignum(final DataInputStream in, final long tag) throws IOException {
+        if (tag == TAG_POSITIVE_BIGNUM) {
+            return new BigInteger(1, readBytes(in));
+        }
+
+        if (tag == TAG_NEGATIVE_BIGNUM) {
+            return BigInteger.ONE.negate().subtract(new BigInteger(1, readBytes(in)));
+        }
+
+        throw new IOException("Decimal fraction mantissa must not be tagged " + tag);
+    }
+
+    private static Object readSimple(final DataInputStream in, final int initial) throws IOException {
+        switch (initial & 0x1F) {
+            case SIMPLE_FALSE:
+                return JsonValue.FALSE;
+            case SIMPLE_TRUE:
+                return JsonValue.TRUE;
+            case SIMPLE_NULL:
+                return JsonValue.NULL;
+            case SIMPLE_FLOAT32:
+                return toBigDecimal(Float.intBitsToFloat(in.readInt()));
+            case SIMPLE_FLOAT64:
+                return toBigDecimal(Double.longBitsToDouble(in.readLong()));
+            default:
+                throw new IOException("Unsupported CBOR simple value " + (initial & 0x1F));
+        }
+    }
+
+    private static String readText(final DataInputStream in) throws IOException {
+        final int initial = in.readUnsignedByte();
+        expectMajor(initial, MAJOR_TEXT);
+
+        return readTextValue(in, initial);
+    }
+
+    private static String readTextValue(final DataInputStream in, final int initial) throws IOException {
+        return new String(Streams.readFully(in, readLength(in, initial)), StandardCharsets.UTF_8);
+    }
+
+    private static byte[] readBytes(final DataInputStream in) throws IOException {
+        final int initial = in.readUnsignedByte();
+        expectMajor(initial, MAJOR_BYTES);
+
+        return Streams.readFully(in, readLength(in, initial));
+    }
+
+    private static int readLength(final DataInputStream in, final int initial) throws IOException {
+        final long length = readArgument(in, initial);
+
+        if (length < 0 || length > Integer.MAX_VALUE) {
+            throw new IOException("CBOR item length " + length + " is too large");
+        }
+
+        return (int) length;
+    }
+
+    /**
+     * Reads the argument of an item. Values above {@link Long#MAX_VALUE} are returned as negative numbers.
+     */
+    private static long readArgument(final DataInputStream in, final int initial) throws IOException {
+        final int info = initial & 0x1F;
+
+        if (info < 24) {
+            return info;
+        }
+
+        switch (info) {
+            case 24:
+                return in.readUnsignedByte();
+            case 25:
+                return in.readUnsignedShort();
+            case 26:
+                return in.readInt() & 0xFFFFFFFFL;
+            case 27:
+                return in.readLong();
+            case 31:
+                throw new IOException("Indefinite-length CBOR items are not supported");
+            default:
+                throw new IOException("Invalid CBOR additional information " + info);
+        }
+    }
+
+    private static void checkDepth(final int depth) throws IOException {
+        if (depth > MAX_DEPTH) {
+            throw new IOException("CBOR items nested deeper than " + MAX_DEPTH + " levels are not supported");
+        }
+    }
+
+    private static BigDecimal toBigDecimal(final double value) throws IOException {
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            throw new IOException("CBOR floating point value " + value + " cannot be represented in JSON");
+        }
+
+        return BigDecimal.valueOf(value);
+    }
+
+    private static void expectMajor(final int initial, final int major) throws IOException {
+        if (initial >>> 5 != major) {
+            throw new IOException("Expected CBOR major type " + major + " but found " + (initial >>> 5));
+        }
+    }
+
+    private static BigInteger toBigInteger(final Object integer) throws IOException {
+        if (integer instanceof Long) {
+            return BigInteger.valueOf((Long) integer);
+        }
+        if (integer instanceof BigInteger) {
+            return (BigInteger) integer;
+        }
+
+        throw new IOException("Decimal fraction must consist of integers");
+    }
+
+    private static byte[] toBytes(final long value) {
+        final byte[] bytes = new byte[8];
+        for (int i = 7; i >= 0; i--) {
+            bytes[7 - i] = (byte) (value >>> (i * 8));
+        }
+
+        return bytes;
+    }
+
+    /**
+     * Unsynchronized buffered output writing big-endian values.
+     */
+    private static final class Output {
+        private final OutputStream out;
+        private final byte[] buffer = new byte[BUFFER_SIZE];
+        private int position;
+
+        private Output(final OutputStream out) {
+            this.out = out;
+        }
+
+        private void writeByte(final int value) throws IOException {
+            if (position == buffer.length) {
+                flushBuffer();
+            }
+            buffer[position++] = (byte) value;
+        }
+
+        private void writeShort(final int value) throws IOException {
+            writeByte(value >>> 8);
+            writeByte(value);
+        }
+
+        private void writeInt(final int value) throws IOException {
+            writeShort(value >>> 16);
+            writeShort(value);
+        }
+
+        private void writeLong(final long value) throws IOException {
+            writeInt((int) (value >>> 32));
+            writeInt((int) value);
+        }
+
+        private void write(final byte[] bytes) throws IOException {
+            if (bytes.length > buffer.length - position) {
+                flushBuffer();
+            }
+
+            if (bytes.length > buffer.length) {
+                out.write(bytes);
+            } else {
+                System.arraycopy(bytes, 0, buffer, position, bytes.length);
+                position += bytes.length;
+            }
+        }
+
+        private void flush() throws IOException {
+            flushBuffer();
+            out.flush();
+        }
+
+        private void flushBuffer() throws IOException {
+            if (position > 0) {
+                out.write(buffer, 0, position);
+                position = 0;
+            }
+        }
+    }
+}
@@ -0,0 +1,272 @@
+package io.elastic.api;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Streaming gzip and deflate compression backed by pooled {@link Deflater}s and buffers.
+ *
+ * <p>
+ * A {@link Deflater} holds native memory which is only released by {@link Deflater#end()},
+ * and {@link java.util.zip.GZIPOutputStream} creates a new one per stream. The streams of this
+ * class take a deflater and a buffer from a bounded pool and return them once finished, so
+ * compressing many replies does not allocate native memory per reply.
+ * </p>
+ */
+final class Compression {
+
+    private static final int POOL_SIZE = 32;
+    private static final int BUFFER_SIZE = 8192;
+    private static final byte[] GZIP_HEADER = {0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, 0};
+
+    private static final BlockingQueue<Deflater> gzipDeflaters = new ArrayBlockingQueue<Deflater>(POOL_SIZE);
+    private static final BlockingQueue<Deflater> zlibDeflaters = new ArrayBlockingQueue<Deflater>(POOL_SIZE);
+    private static final BlockingQueue<byte[]> buffers = new ArrayBlockingQueue<byte[]>(POOL_SIZE);
+
+    private Compression() {
+
+    }
+
+    /**
+     * Returns a stream compressing the bytes written to it into the given stream.
+     * Closing the returned stream finishes the compressed data but does not close the given stream.
+     *
+     * @param out  stream to write the compressed bytes to
+     * @param gzip true for gzip, false for zlib (HTTP deflate) format
+     * @return compressing stream
+     */
+    static OutputStream compressing(final OutputStream out, final boolean gzip) {
+        return new CompressingOutputStream(out, gzip);
+    }
+
+    /**
+     * Returns a stream reading the bytes of the given stream compressed.
+     * Closing the returned stream closes the given stream.
+     *
+     * @param in   stream to compress
+     * @param gzip true for gzip, false for zlib (HTTP deflate) format
+     * @return compressed stream
+     */
+    static InputStream compressed(final InputStream in, final boolean gzip) {
+        return new CompressedInputStream(in, gzip);
+    }
+
+    private static Deflater acquireDeflater(final boolean gzip) {
+        final Deflater deflater = (gzip ? gzipDeflaters : zlibDeflaters).poll();
+        if (deflater != null) {
+            return deflater;
+        }
+
+        // gzip wraps raw deflate data in its own header and trailer
+        return new Deflater(Deflater.DEFAULT_COMPRESSION, gzip);
+    }
+
+    private static void releaseDeflater(final Deflater deflater, final boolean gzip) {
+        deflater.reset();
+        if (!(gzip ? gzipDeflaters : zlibDeflaters).offer(deflater)) {
+            deflater.end();
+        }
+    }
+
+    private static byte[] acquireBuffer() {
+        final byte[] buffer = buffers.poll();
+
+        return buffer == null ? new byte[BUFFER_SIZE] : buffer;
+    }
+
+    private static void releaseBuffer(final byte[] buffer) {
+        buffers.offer(buffer);
+    }
+
+    private static byte[] gzipTrailer(final CRC32 crc, final long size) {
+        final byte[] trailer = new byte[8];
+        writeIntLE(trailer, 0, crc.getValue());
+        writeIntLE(trailer, 4, size);
+
+        return trailer;
+    }
+
+    private static void writeIntLE(final byte[] target, final int offset, final long value) {
+        target[offset] = (byte) value;
+        target[offset + 1] = (byte) (value >>> 8);
+        target[offset + 2] = (byte) (value >>> 16);
+        target[offset + 3] = (byte) (value >>> 24);
+    }
+
+    private static final class CompressingOutputStream extends OutputStream {
+        private final OutputStream out;
+        private final boolean gzip;
+        private final CRC32 crc = new CRC32();
+        private Deflater deflater;
+        private byte[] buffer;
+        private boolean headerWritten;
+
+        private CompressingOutputStream(final OutputStream out, final boolean gzip) {
+            this.out = out;
+            this.gzip = gzip;
+            this.deflater = acquireDeflater(gzip);
+            this.buffer = acquireBuffer();
+        }
+
+        @Override
+        public void write(final int b) throws IOException {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(final byte[] b, final int off, final int len) throws IOException {
+            ensureOpen();
+            writeHeader();
+            if (gzip) {
+                crc.update(b, off, len);
+            }
+
+            deflater.setInput(b, off, len);
+            while (!deflater.needsInput()) {
+                deflate();
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (deflater == null) {
+                return;
+            }
+
+            try {
+                writeHeader();
+                deflater.finish();
+                while (!deflater.finished()) {
+                    deflate();
+                }
+                if (gzip) {
+                    out.write(gzipTrailer(crc, deflater.getBytesRead()));
+                }
+                out.flush();
+            } finally {
+                releaseDeflater(deflater, gzip);
+                releaseBuffer(buffer);
+                deflater = null;
+                buffer = null;
+            }
+        }
+
+        private void deflate() throws IOException {
+            final int count = deflater.deflate(buffer, 0, buffer.length);
+            if (count > 0) {
+                out.write(buffer, 0, count);
+            }
+        }
+
+        private void writeHeader() throws IOException {
+            if (gzip && !headerWritten) {
+                out.write(GZIP_HEADER);
+            }
+            headerWritten = true;
+        }
+
+        private void ensureOpen() throws IOException {
+            if (deflater == null) {
+                throw new IOException("Stream closed");
+            }
+        }
+    }
+
+    private static final class CompressedInputStream extends InputStream {
+        private final InputStream in;
+        private final boolean gzip;
+        private final CRC32 crc = new CRC32();
+        private Deflater deflater;
+        private byte[] buffer;
+        private byte[] pending;
+        private int pendingPosition;
+        private boolean inputDone;
+        private boolean trailerQueued;
+
+        private CompressedInputStream(final InputStream in, final boolean gzip) {
+            this.in = in;
+            this.gzip = gzip;
+            this.deflater = acquireDeflater(gzip);
+            this.buffer = acquireBuffer();
+            this.pending = gzip ? GZIP_HEADER : null;
+        }
+
+        @Override
+        public int read() throws IOException {
+            final byte[] b = new byte[1];
+            final int count = read(b, 0, 1);
+
+            return count < 0 ? -1 : b[0] & 0xFF;
+        }
+
+        @Override
+        public int read(final byte[] b, final int off, final int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+
+            while (true) {
+                if (pending != null) {
+                    final int count = Math.min(len, pending.length - pendingPosition);
+                    System.arraycopy(pending, pendingPosition, b, off, count);
+                    pendingPosition += count;
+                    if (pendingPosition == pending.length) {
+                        pending = null;
+                        pendingPosition = 0;
+                    }
+                    return count;
+                }
+
+                if (deflater == null) {
+                    return -1;
+                }
+
+                if (deflater.needsInput() && !inputDone) {
+                    final int count = in.read(buffer, 0, buffer.length);
+                    if (count < 0) {
+                        inputDone = true;
+                        deflater.finish();
+                    } else {
+                        if (gzip) {
+                            crc.update(buffer, 0, count);
+                        }
+                        deflater.setInput(buffer, 0, count);
+                    }
+                }
+
+                final int count = deflater.deflate(b, off, len);
+                if (count > 0) {
+                    return count;
+                }
+
+                if (deflater.finished()) {
+                    if (gzip && !trailerQueued) {
+                        trailerQueued = true;
+                        pending = gzipTrailer(crc, deflater.getBytesRead());
+                    }
+                    release();
+                }
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            release();
+            in.close();
+        }
+
+        private void release() {
+            if (deflater != null) {
+                releaseDeflater(deflater, gzip);
+                releaseBuffer(buffer);
+                deflater = null;
+                buffer = null;
+            }
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package io.elastic.api;
+
+import javax.json.JsonObject;
+import javax.json.JsonValue;
+
+/**
+ * Cache key of a configuration {@link JsonObject}.
+ *
+ * <p>
+ * Keys are compared using {@link JsonValues#deepEquals(JsonValue, JsonValue)}, so keys of
+ * configurations with equal properties are equal regardless of the order of the properties.
+ * The structural hash is computed once, as computing it walks the whole configuration.
+ * </p>
+ */
+final class ConfigurationKey {
+
+    private final JsonObject configuration;
+    private final int hash;
+
+    ConfigurationKey(final JsonObject configuration) {
+        if (configuration == null) {
+            throw new IllegalArgumentException("Configuration must not be null");
+        }
+        this.configuration = configuration;
+        final long structuralHash = JsonValues.hash64(configuration);
+        this.hash = (int) (structuralHash ^ (structuralHash >>> 32));
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof ConfigurationKey)) {
+            return false;
+        }
+        final ConfigurationKey that = (ConfigurationKey) o;
+
+        return hash == that.hash && JsonValues.deepEquals(configuration, that.configuration);
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+}
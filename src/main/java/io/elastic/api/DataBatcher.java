@@ -0,0 +1,150 @@
+package io.elastic.api;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Buffers emitted data messages and passes them as a batch to a callback once
+ * the batch is full, the oldest message is older than the maximum delay or
+ * {@link #flush()} is invoked. Batches whose delay elapses without further messages
+ * are passed on from a shared timer thread. The callback is invoked without holding
+ * the lock of the batcher, so messages may be added while a batch is passed on.
+ */
+final class DataBatcher {
+
+    private static final Logger logger = LoggerFactory.getLogger(DataBatcher.class);
+
+    private static final ScheduledThreadPoolExecutor timer = createTimer();
+
+    private final int maxBatchSize;
+    private final long maxDelayNanos;
+    private final EventEmitter.BatchCallback sink;
+    private List<Message> buffer;
+    private long firstAddedAt;
+    private ScheduledFuture<?> scheduledFlush;
+
+    DataBatcher(final int maxBatchSize, final long maxDelay, final TimeUnit unit, final EventEmitter.BatchCallback sink) {
+        this.maxBatchSize = maxBatchSize;
+        this.maxDelayNanos = unit.toNanos(maxDelay);
+        this.sink = sink;
+    }
+
+    void add(final Message message) {
+        final List<Message> batch;
+        synchronized (this) {
+            buffer().add(message);
+            batch = isDue() ? take() : null;
+        }
+
+        pass(batch);
+    }
+
+    void addAll(final List<Message> messages) {
+        final List<List<Message>> batches = new ArrayList<List<Message>>();
+        synchronized (this) {
+            for (Message message : messages) {
+                buffer().add(message);
+                if (buffer.size() >= maxBatchSize) {
+                    batches.add(take());
+                }
+            }
+
+            if (buffer != null && isDue()) {
+                batches.add(take());
+            }
+        }
+
+        for (List<Message> batch : batches) {
+            pass(batch);
+        }
+    }
+
+    void flush() {
+        final List<Message> batch;
+        synchronized (this) {
+            batch = take();
+        }
+
+        pass(batch);
+    }
+
+    private void flushExpired(final List<Message> expired) {
+        final List<Message> batch;
+        synchronized (this) {
+            if (buffer != expired) {
+                // already passed on, a newer buffer has its own scheduled flush
+                return;
+            }
+            batch = take();
+        }
+
+        try {
+            pass(batch);
+        } catch (RuntimeException e) {
+            logger.error("Failed to pass on data batch after its delay elapsed", e);
+        }
+    }
+
+    private List<Message> buffer() {
+        if (buffer == null) {
+            final List<Message> created = new ArrayList<Message>(Math.min(maxBatchSize, 1024));
+            buffer = created;
+            firstAddedAt = System.nanoTime();
+            if (maxDelayNanos > 0) {
+                scheduledFlush = timer.schedule(new Runnable() {
+                    @Override
+                    public void run() {
+                        flushExpired(created);
+                    }
+                }, maxDelayNanos, TimeUnit.NANOSECONDS);
+            }
+        }
+
+        return buffer;
+    }
+
+    private boolean isDue() {
+        return buffer.size() >= maxBatchSize || System.nanoTime() - firstAddedAt >= maxDelayNanos;
+    }
+
+    private List<Message> take() {
+        final List<Message> batch = buffer;
+        buffer = null;
+        if (scheduledFlush != null) {
+            scheduledFlush.cancel(false);
+            scheduledFlush = null;
+        }
+
+        return batch;
+    }
+
+    private void pass(final List<Message> batch) {
+        if (batch != null) {
+            sink.receive(Collections.unmodifiableList(batch));
+        }
+    }
+
+    private static ScheduledThreadPoolExecutor createTimer() {
+        final ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, new ThreadFactory() {
+            @Override
+            public Thread newThread(final Runnable runnable) {
+                final Thread thread = new Thread(runnable, "elasticio-data-batcher");
+                thread.setDaemon(true);
+
+                return thread;
+            }
+        });
+        // batches are usually full or flushed before their delay, do not keep their cancelled flushes
+        executor.setRemoveOnCancelPolicy(true);
+
+        return executor;
+    }
+}
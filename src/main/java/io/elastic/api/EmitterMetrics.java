@@ -0,0 +1,43 @@
+package io.elastic.api;
+
+/**
+ * Receives a measurement for each event passed to a callback of an {@link EventEmitter}.
+ * Metrics are registered using {@link EventEmitter.Builder#metrics(EmitterMetrics)}.
+ * If no metrics are registered, the callbacks are invoked without any measurement.
+ *
+ * <p>
+ * Implementations are invoked on the thread invoking the callback, which is the
+ * executor's thread for an asynchronous emitter, and must therefore be thread-safe.
+ * {@link StandardEmitterMetrics} is a lock-free implementation collecting counts,
+ * payload sizes and latency percentiles.
+ * </p>
+ *
+ * @since 2.1.1
+ */
+public interface EmitterMetrics {
+
+    /**
+     * Types of events emitted by an {@link EventEmitter}.
+     */
+    enum EventType {
+        ERROR,
+        DATA,
+        DATA_BATCH,
+        SNAPSHOT,
+        REBOUND,
+        UPDATE_KEYS,
+        HTTP_REPLY
+    }
+
+    /**
+     * Invoked after a callback has received an event, also if the callback failed.
+     *
+     * @param type
+     *            type of the event
+     * @param payload
+     *            object passed to the callback
+     * @param latencyNanos
+     *            time the callback took to receive the event, in nanoseconds
+     */
+    void eventReceived(EventType type, Object payload, long latencyNanos);
+}
@@ -4,6 +4,11 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.json.JsonObject;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Used by a {@link Module} to communicate with the elastic.io runtime.
@@ -12,30 +17,60 @@ import javax.json.JsonObject;
  * href="http://nodejs.org/api/events.html" target="_blank">Node.js
  * EventEmitter</a> class.
  * 
+ * <p>
+ * By default the callbacks are invoked synchronously on the thread emitting an event.
+ * If an {@link Executor} is given to {@link Builder#executor(Executor)}, the emitter
+ * is asynchronous: events are enqueued into a bounded queue per event type and passed to the
+ * callbacks on the executor, preserving their order per event type. A full queue is handled
+ * according to the {@link OverflowPolicy}. The runtime uses {@link #awaitDelivery(long, TimeUnit)}
+ * to wait until all events emitted by an execution have been passed to the callbacks.
+ * </p>
+ * 
+ * <p>
+ * Components emitting many messages may use {@link #emitDataBatch(List)}. If the runtime registers
+ * a {@link BatchCallback}, all data is passed to it in batches, otherwise each message of a batch
+ * is passed to the 'data' {@link Callback}. With {@link Builder#batchData(int, long, TimeUnit)}
+ * messages emitted one by one are buffered and passed on as batches as well. The runtime calls
+ * {@link #flush()} once {@link Module#execute(ExecutionParameters)} returns to pass on an incomplete batch.
+ * {@link ModulePool}, {@link ParallelModuleExecutor}, {@link InstrumentedModule} and {@link ProcessorModule}
+ * flush the emitter as well once the module they run returns.
+ * </p>
+ * 
  * @see Module
  */
 public final class EventEmitter {
     private static final Logger logger = LoggerFactory.getLogger(EventEmitter.class);
 
-    private Callback errorCallback;
-    private Callback dataCallback;
-    private Callback snapshotCallback;
-    private Callback reboundCallback;
-    private Callback updateKeysCallback;
-    private Callback httpReplyCallback;
-
-    private EventEmitter(Callback errorCallback,
-                         Callback dataCallback,
-                         Callback snapshotCallback,
-                         Callback reboundCallback,
-                         Callback updateKeysCallback,
-                         Callback httpReplyCallback) {
+    private ErrorCallback errorCallback;
+    private DataCallback dataCallback;
+    private SnapshotCallback snapshotCallback;
+    private ReboundCallback reboundCallback;
+    private UpdateKeysCallback updateKeysCallback;
+    private HttpReplyCallback httpReplyCallback;
+    private BatchCallback dataBatchCallback;
+    private DataBatcher dataBatcher;
+    private List<AsyncCallback> asyncCallbacks;
+
+    private EventEmitter(ErrorCallback errorCallback,
+                         DataCallback dataCallback,
+                         BatchCallback dataBatchCallback,
+                         SnapshotCallback snapshotCallback,
+                         ReboundCallback reboundCallback,
+                         UpdateKeysCallback updateKeysCallback,
+                         HttpReplyCallback httpReplyCallback,
+                         List<AsyncCallback> asyncCallbacks) {
         this.errorCallback = errorCallback;
         this.dataCallback = dataCallback;
+        this.dataBatchCallback = dataBatchCallback;
         this.snapshotCallback = snapshotCallback;
         this.reboundCallback = reboundCallback;
         this.updateKeysCallback = updateKeysCallback;
         this.httpReplyCallback = httpReplyCallback;
+        this.asyncCallbacks = asyncCallbacks;
+    }
+
+    private void setDataBatcher(DataBatcher dataBatcher) {
+        this.dataBatcher = dataBatcher;
     }
 
     /**
@@ -50,7 +85,9 @@ public final class EventEmitter {
      */
     public EventEmitter emitException(Exception e) {
 
-        return emit(errorCallback, e);
+        errorCallback.receive(e);
+
+        return this;
     }
 
     /**
@@ -62,7 +99,43 @@ public final class EventEmitter {
      */
     public EventEmitter emitData(Message message) {
 
-        return emit(dataCallback, message);
+        if (dataBatcher != null) {
+            dataBatcher.add(message);
+
+            return this;
+        }
+
+        dataCallback.receive(message);
+
+        return this;
+    }
+
+    /**
+     * Emits a batch of {@link Message}s.
+     *
+     * @since 2.1.1
+     *
+     * @param messages
+     *            messages to emit
+     * @return this instance
+     */
+    public EventEmitter emitDataBatch(List<Message> messages) {
+
+        if (messages.isEmpty()) {
+            return this;
+        }
+
+        if (dataBatcher != null) {
+            dataBatcher.addAll(messages);
+
+            return this;
+        }
+
+        if (dataBatchCallback != null) {
+            return emitBatch(Collections.unmodifiableList(new ArrayList<Message>(messages)));
+        }
+
+        return emitBatch(messages);
     }
 
     /**
@@ -74,7 +147,9 @@ public final class EventEmitter {
      */
     public EventEmitter emitSnapshot(JsonObject snapshot) {
 
-        return emit(snapshotCallback, snapshot);
+        snapshotCallback.receive(snapshot);
+
+        return this;
     }
     
     /**
@@ -86,7 +161,9 @@ public final class EventEmitter {
      */
     public EventEmitter emitRebound(Object reason) {
         
-        return emit(reboundCallback, reason);
+        reboundCallback.receive(reason);
+
+        return this;
     }
 
     /**
@@ -100,7 +177,13 @@ public final class EventEmitter {
      */
     public EventEmitter emitUpdateKeys(JsonObject object) {
 
-        return emitOptional(updateKeysCallback, "updateKeys", object);
+        if (updateKeysCallback == null) {
+            logMissingCallback("updateKeys");
+        } else {
+            updateKeysCallback.receive(object);
+        }
+
+        return this;
     }
 
     /**
@@ -112,28 +195,131 @@ public final class EventEmitter {
      */
     public EventEmitter emitHttpReply(final HttpReply reply) {
 
-        return emitOptional(httpReplyCallback, "httpReply", reply);
+        if (httpReplyCallback == null) {
+            logMissingCallback("httpReply");
+        } else {
+            httpReplyCallback.receive(reply);
+        }
+
+        return this;
     }
 
-    private EventEmitter emit(Callback callback, Object value) {
-        callback.receive(value);
+    /**
+     * Passes the messages buffered by {@link Builder#batchData(int, long, TimeUnit)} on as a batch.
+     * Does nothing if data is not batched or no message is buffered.
+     *
+     * @since 2.1.1
+     *
+     * @return this instance
+     */
+    public EventEmitter flush() {
+
+        if (dataBatcher != null) {
+            dataBatcher.flush();
+        }
 
         return this;
     }
 
-    private EventEmitter emitOptional(Callback callback, String eventName, Object value) {
+    /**
+     * Flushes buffered data and waits until all events emitted so far have been passed to
+     * their callbacks. Returns immediately after flushing if this emitter is synchronous.
+     *
+     * @since 2.1.1
+     *
+     * @param timeout
+     *            maximum time to wait
+     * @param unit
+     *            unit of the timeout
+     * @return true if all events have been passed, false if the timeout elapsed
+     * @throws InterruptedException
+     *             if interrupted while waiting
+     */
+    public boolean awaitDelivery(long timeout, TimeUnit unit) throws InterruptedException {
+        flush();
 
-        if (callback == null) {
-            logger.info("Event {} emitted but no callback is registered", eventName);
-        } else {
-            callback.receive(value);
+        final long deadline = System.nanoTime() + unit.toNanos(timeout);
+
+        for (AsyncCallback callback : asyncCallbacks) {
+            if (!callback.awaitDrained(deadline)) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private EventEmitter emitBatch(List<Message> messages) {
+
+        if (dataBatchCallback != null) {
+            dataBatchCallback.receive(messages);
+
+            return this;
+        }
+
+        for (Message message : messages) {
+            dataCallback.receive(message);
         }
 
         return this;
     }
 
+    /**
+     * Returns a {@link Builder} whose callbacks pass all events on to the given emitter,
+     * data as batches. Used by decorators which replace the callbacks of the events
+     * they intercept.
+     *
+     * @param target emitter to pass the events to
+     * @return builder
+     */
+    static Builder forwardingTo(final EventEmitter target) {
+        return new Builder()
+                .errorCallback(new ErrorCallback() {
+                    @Override
+                    public void receive(Exception e) {
+                        target.emitException(e);
+                    }
+                })
+                .dataBatchCallback(new BatchCallback() {
+                    @Override
+                    public void receive(List<Message> messages) {
+                        target.emitDataBatch(messages);
+                    }
+                })
+                .snapshotCallback(new SnapshotCallback() {
+                    @Override
+                    public void receive(JsonObject snapshot) {
+                        target.emitSnapshot(snapshot);
+                    }
+                })
+                .reboundCallback(new ReboundCallback() {
+                    @Override
+                    public void receive(Object reason) {
+                        target.emitRebound(reason);
+                    }
+                })
+                .updateKeysCallback(new UpdateKeysCallback() {
+                    @Override
+                    public void receive(JsonObject keys) {
+                        target.emitUpdateKeys(keys);
+                    }
+                })
+                .httpReplyCallback(new HttpReplyCallback() {
+                    @Override
+                    public void receive(HttpReply reply) {
+                        target.emitHttpReply(reply);
+                    }
+                });
+    }
+
+    private static void logMissingCallback(String eventName) {
+        logger.info("Event {} emitted but no callback is registered", eventName);
+    }
+
     /**
      * This interface defines a callback to pass errors, data and snapshots to its callee.
+     * The typed callbacks, such as {@link DataCallback}, spare the callee the type check
+     * and cast of the passed object.
      */
     public interface Callback {
 
@@ -146,16 +332,163 @@ public final class EventEmitter {
         void receive(Object data);
     }
 
+    /**
+     * Callback receiving {@link Exception}s emitted by {@link EventEmitter#emitException(Exception)}.
+     *
+     * @since 2.1.1
+     */
+    public interface ErrorCallback {
+
+        /**
+         * Invoked to pass an error.
+         *
+         * @param e
+         *            emitted exception
+         */
+        void receive(Exception e);
+    }
+
+    /**
+     * Callback receiving {@link Message}s emitted by {@link EventEmitter#emitData(Message)}.
+     *
+     * @since 2.1.1
+     */
+    public interface DataCallback {
+
+        /**
+         * Invoked to pass data.
+         *
+         * @param message
+         *            emitted message
+         */
+        void receive(Message message);
+    }
+
+    /**
+     * Callback receiving snapshots emitted by {@link EventEmitter#emitSnapshot(JsonObject)}.
+     *
+     * @since 2.1.1
+     */
+    public interface SnapshotCallback {
+
+        /**
+         * Invoked to pass a snapshot.
+         *
+         * @param snapshot
+         *            emitted snapshot
+         */
+        void receive(JsonObject snapshot);
+    }
+
+    /**
+     * Callback receiving reasons emitted by {@link EventEmitter#emitRebound(Object)}.
+     *
+     * @since 2.1.1
+     */
+    public interface ReboundCallback {
+
+        /**
+         * Invoked to pass a rebound reason.
+         *
+         * @param reason
+         *            emitted reason
+         */
+        void receive(Object reason);
+    }
+
+    /**
+     * Callback receiving keys emitted by {@link EventEmitter#emitUpdateKeys(JsonObject)}.
+     *
+     * @since 2.1.1
+     */
+    public interface UpdateKeysCallback {
+
+        /**
+         * Invoked to pass updated keys.
+         *
+         * @param keys
+         *            emitted keys
+         */
+        void receive(JsonObject keys);
+    }
+
+    /**
+     * Callback receiving replies emitted by {@link EventEmitter#emitHttpReply(HttpReply)}.
+     *
+     * @since 2.1.1
+     */
+    public interface HttpReplyCallback {
+
+        /**
+         * Invoked to pass a HTTP reply.
+         *
+         * @param reply
+         *            emitted reply
+         */
+        void receive(HttpReply reply);
+    }
+
+    /**
+     * This interface defines a callback to pass batches of data to its callee.
+     *
+     * @since 2.1.1
+     */
+    public interface BatchCallback {
+
+        /**
+         * Invoked to pass a batch of data.
+         *
+         * @param messages
+         *            unmodifiable non-empty list of messages
+         */
+        void receive(List<Message> messages);
+    }
+
+    /**
+     * Defines how an asynchronous {@link EventEmitter} handles an event
+     * emitted while the queue of its type is full.
+     *
+     * @since 2.1.1
+     */
+    public enum OverflowPolicy {
+
+        /**
+         * Blocks the emitting thread until the queue has space. A callback must not emit
+         * an event of its own type with this policy, as it may wait for itself.
+         */
+        BLOCK,
+
+        /**
+         * Drops the event and logs a warning.
+         */
+        DROP,
+
+        /**
+         * Throws a {@link RejectedEventException}.
+         */
+        FAIL
+    }
+
     /**
      * Used to build {@link EventEmitter} instances.
      */
     public static final class Builder {
-        private Callback errorCallback;
-        private Callback dataCallback;
-        private Callback snapshotCallback;
-        private Callback reboundCallback;
-        private Callback updateKeysCallback;
-        private Callback httpReplyCallback;
+        private static final int DEFAULT_QUEUE_CAPACITY = 1024;
+
+        private ErrorCallback errorCallback;
+        private DataCallback dataCallback;
+        private BatchCallback dataBatchCallback;
+        private SnapshotCallback snapshotCallback;
+        private ReboundCallback reboundCallback;
+        private UpdateKeysCallback updateKeysCallback;
+        private HttpReplyCallback httpReplyCallback;
+        private int maxBatchSize;
+        private long maxBatchDelay;
+        private TimeUnit maxBatchDelayUnit;
+        private EmitterMetrics metrics;
+        private Executor executor;
+        private int queueCapacity = DEFAULT_QUEUE_CAPACITY;
+        private OverflowPolicy overflowPolicy = OverflowPolicy.BLOCK;
 
         public Builder() {
 
@@ -171,6 +504,21 @@ public final class EventEmitter {
          * @return this instance
          */
         public Builder onError(Callback callback) {
+            this.errorCallback = Callbacks.asErrorCallback(callback);
+
+            return this;
+        }
+
+        /**
+         * Adds 'error' {@link ErrorCallback}. Replaces a callback added by {@link #onError(Callback)}.
+         *
+         * @since 2.1.1
+         *
+         * @param callback
+         *            callback invoked on error event
+         * @return this instance
+         */
+        public Builder errorCallback(ErrorCallback callback) {
             this.errorCallback = callback;
 
             return this;
@@ -184,11 +532,72 @@ public final class EventEmitter {
          * @return this instance
          */
         public Builder onData(Callback callback) {
+            this.dataCallback = Callbacks.asDataCallback(callback);
+
+            return this;
+        }
+
+        /**
+         * Adds 'data' {@link DataCallback}. Replaces a callback added by {@link #onData(Callback)}.
+         *
+         * @since 2.1.1
+         *
+         * @param callback
+         *            callback invoked on data event
+         * @return this instance
+         */
+        public Builder dataCallback(DataCallback callback) {
             this.dataCallback = callback;
 
             return this;
         }
 
+        /**
+         * Adds 'data' {@link BatchCallback}. If registered, all data is passed to this callback,
+         * single messages as a batch of one. The 'data' {@link Callback} is not required then.
+         *
+         * @since 2.1.1
+         *
+         * @param callback
+         *            callback invoked on data event
+         * @return this instance
+         */
+        public Builder dataBatchCallback(BatchCallback callback) {
+            this.dataBatchCallback = callback;
+
+            return this;
+        }
+
+        /**
+         * Buffers data messages and passes them on in batches. A batch is passed on once it
+         * contains the given number of messages, once the oldest buffered message is older than
+         * the given delay, or on {@link EventEmitter#flush()}. Batches passed on after their delay
+         * elapsed are passed to the callbacks from a timer thread.
+         *
+         * @since 2.1.1
+         *
+         * @param maxBatchSize
+         *            maximum number of messages in a batch
+         * @param maxDelay
+         *            maximum time a message is buffered
+         * @param unit
+         *            unit of the delay
+         * @return this instance
+         */
+        public Builder batchData(int maxBatchSize, long maxDelay, TimeUnit unit) {
+            if (maxBatchSize < 1) {
+                throw new IllegalArgumentException("Batch size must be positive");
+            }
+            if (unit == null) {
+                throw new IllegalArgumentException("Time unit must not be null");
+            }
+            this.maxBatchSize = maxBatchSize;
+            this.maxBatchDelay = maxDelay;
+            this.maxBatchDelayUnit = unit;
+
+            return this;
+        }
+
         /**
          * Adds 'snapshot' {@link Callback}.
          * 
@@ -197,6 +606,21 @@ public final class EventEmitter {
          * @return this instance
          */
         public Builder onSnapshot(Callback callback) {
+            this.snapshotCallback = Callbacks.asSnapshotCallback(callback);
+
+            return this;
+        }
+
+        /**
+         * Adds 'snapshot' {@link SnapshotCallback}. Replaces a callback added by {@link #onSnapshot(Callback)}.
+         *
+         * @since 2.1.1
+         *
+         * @param callback
+         *            callback invoked on snapshot event
+         * @return this instance
+         */
+        public Builder snapshotCallback(SnapshotCallback callback) {
             this.snapshotCallback = callback;
 
             return this;
@@ -210,11 +634,26 @@ public final class EventEmitter {
          * @return this instance
          */
         public Builder onRebound(Callback callback) {
-            this.reboundCallback = callback;
+            this.reboundCallback = Callbacks.asReboundCallback(callback);
             
             return this;
         }
 
+        /**
+         * Adds 'rebound' {@link ReboundCallback}. Replaces a callback added by {@link #onRebound(Callback)}.
+         *
+         * @since 2.1.1
+         *
+         * @param callback
+         *            callback invoked on rebound event
+         * @return this instance
+         */
+        public Builder reboundCallback(ReboundCallback callback) {
+            this.reboundCallback = callback;
+
+            return this;
+        }
+
         /**
          * Adds 'updateAccessToken' {@link Callback}.
          *
@@ -223,6 +662,21 @@ public final class EventEmitter {
          * @return this instance
          */
         public Builder onUpdateKeys(Callback callback) {
+            this.updateKeysCallback = Callbacks.asUpdateKeysCallback(callback);
+
+            return this;
+        }
+
+        /**
+         * Adds 'updateKeys' {@link UpdateKeysCallback}. Replaces a callback added by {@link #onUpdateKeys(Callback)}.
+         *
+         * @since 2.1.1
+         *
+         * @param callback
+         *            callback invoked on updateKeys event
+         * @return this instance
+         */
+        public Builder updateKeysCallback(UpdateKeysCallback callback) {
             this.updateKeysCallback = callback;
 
             return this;
@@ -238,11 +692,95 @@ public final class EventEmitter {
          * @return this instance
          */
         public Builder onHttpReplyCallback(Callback callback) {
+            this.httpReplyCallback = Callbacks.asHttpReplyCallback(callback);
+
+            return this;
+        }
+
+        /**
+         * Adds 'httpReply' {@link HttpReplyCallback}. Replaces a callback added by {@link #onHttpReplyCallback(Callback)}.
+         *
+         * @since 2.1.1
+         *
+         * @param callback
+         *            callback invoked on httpReply event
+         * @return this instance
+         */
+        public Builder httpReplyCallback(HttpReplyCallback callback) {
             this.httpReplyCallback = callback;
 
             return this;
         }
         
+        /**
+         * Registers {@link EmitterMetrics} receiving a measurement for each event passed to
+         * a callback. Callbacks are invoked without measurement if no metrics are registered.
+         *
+         * @since 2.1.1
+         *
+         * @param metrics
+         *            metrics to report to
+         * @return this instance
+         */
+        public Builder metrics(EmitterMetrics metrics) {
+            this.metrics = metrics;
+
+            return this;
+        }
+
+        /**
+         * Makes the emitter asynchronous. Callbacks are invoked on the given {@link Executor},
+         * which may for example be a fixed thread pool or, on Java 21 and later, an executor
+         * starting a virtual thread per task.
+         *
+         * @since 2.1.1
+         *
+         * @param executor
+         *            executor invoking the callbacks
+         * @return this instance
+         */
+        public Builder executor(Executor executor) {
+            this.executor = executor;
+
+            return this;
+        }
+
+        /**
+         * Sets the capacity of the queue per event type of an asynchronous emitter. Defaults to 1024.
+         *
+         * @since 2.1.1
+         *
+         * @param queueCapacity
+         *            maximum number of events waiting to be passed to a callback
+         * @return this instance
+         */
+        public Builder queueCapacity(int queueCapacity) {
+            if (queueCapacity < 1) {
+                throw new IllegalArgumentException("Queue capacity must be positive");
+            }
+            this.queueCapacity = queueCapacity;
+
+            return this;
+        }
+
+        /**
+         * Sets the {@link OverflowPolicy} of an asynchronous emitter. Defaults to {@link OverflowPolicy#BLOCK}.
+         *
+         * @since 2.1.1
+         *
+         * @param overflowPolicy
+         *            policy applied if a queue is full
+         * @return this instance
+         */
+        public Builder overflowPolicy(OverflowPolicy overflowPolicy) {
+            if (overflowPolicy == null) {
+                throw new IllegalArgumentException("Overflow policy must not be null");
+            }
+            this.overflowPolicy = overflowPolicy;
+
+            return this;
+        }
+
         /**
          * Builds an {@link EventEmitter} instance and returns it.
          * 
@@ -254,7 +792,7 @@ public final class EventEmitter {
                 throw new IllegalStateException("'onError' callback is required");
             }
 
-            if (this.dataCallback == null) {
+            if (this.dataCallback == null && this.dataBatchCallback == null) {
                 throw new IllegalStateException("'onData' callback is required");
             }
 
@@ -270,13 +808,91 @@ public final class EventEmitter {
                 throw new IllegalStateException("'onHttpReplyCallback' callback is required");
             }
             
-            return new EventEmitter(
-                    errorCallback,
-                    dataCallback,
-                    snapshotCallback,
-                    reboundCallback,
-                    updateKeysCallback,
-                    httpReplyCallback);
+            ErrorCallback error = this.errorCallback;
+            DataCallback data = this.dataCallback;
+            BatchCallback dataBatch = this.dataBatchCallback;
+            SnapshotCallback snapshot = this.snapshotCallback;
+            ReboundCallback rebound = this.reboundCallback;
+            UpdateKeysCallback updateKeys = this.updateKeysCallback;
+            HttpReplyCallback httpReply = this.httpReplyCallback;
+
+            if (dataBatch != null) {
+                final BatchCallback batchCallback = dataBatch;
+                data = new DataCallback() {
+                    @Override
+                    public void receive(Message message) {
+                        batchCallback.receive(Collections.singletonList(message));
+                    }
+                };
+            }
+
+            if (this.metrics != null) {
+                error = Callbacks.meteredErrorCallback(error, metrics);
+                data = Callbacks.meteredDataCallback(data, metrics);
+                dataBatch = Callbacks.meteredBatchCallback(dataBatch, metrics);
+                snapshot = Callbacks.meteredSnapshotCallback(snapshot, metrics);
+                rebound = Callbacks.meteredReboundCallback(rebound, metrics);
+                updateKeys = Callbacks.meteredUpdateKeysCallback(updateKeys, metrics);
+                httpReply = Callbacks.meteredHttpReplyCallback(httpReply, metrics);
+            }
+
+            List<AsyncCallback> asyncCallbacks = Collections.emptyList();
+
+            if (this.executor != null) {
+                asyncCallbacks = new ArrayList<AsyncCallback>();
+
+                error = Callbacks.asErrorCallback(async("error", Callbacks.fromErrorCallback(error), asyncCallbacks));
+                if (dataBatch != null) {
+                    // messages and batches share one queue, so they are received in the order they have been emitted
+                    final Callback dataOrBatch = async("data",
+                            Callbacks.fromDataOrBatchCallback(data, dataBatch), asyncCallbacks);
+                    data = Callbacks.asDataCallback(dataOrBatch);
+                    dataBatch = Callbacks.asBatchCallback(dataOrBatch);
+                } else {
+                    data = Callbacks.asDataCallback(async("data", Callbacks.fromDataCallback(data), asyncCallbacks));
+                }
+                snapshot = Callbacks.asSnapshotCallback(async("snapshot", Callbacks.fromSnapshotCallback(snapshot), asyncCallbacks));
+                rebound = Callbacks.asReboundCallback(async("rebound", Callbacks.fromReboundCallback(rebound), asyncCallbacks));
+                updateKeys = Callbacks.asUpdateKeysCallback(
+                        async("updateKeys", Callbacks.fromUpdateKeysCallback(updateKeys), asyncCallbacks));
+                httpReply = Callbacks.asHttpReplyCallback(
+                        async("httpReply", Callbacks.fromHttpReplyCallback(httpReply), asyncCallbacks));
+                asyncCallbacks = Collections.unmodifiableList(asyncCallbacks);
+            }
+
+            final EventEmitter emitter = new EventEmitter(
+                    error,
+                    data,
+                    dataBatch,
+                    snapshot,
+                    rebound,
+                    updateKeys,
+                    httpReply,
+                    asyncCallbacks);
+
+            if (this.maxBatchSize > 0) {
+                emitter.setDataBatcher(new DataBatcher(maxBatchSize, maxBatchDelay, maxBatchDelayUnit,
+                        new BatchCallback() {
+                            @Override
+                            public void receive(List<Message> messages) {
+                                emitter.emitBatch(messages);
+                            }
+                        }));
+            }
+
+            return emitter;
+        }
+
+        private Callback async(String eventName, Callback callback, List<AsyncCallback> asyncCallbacks) {
+            if (callback == null) {
+                return null;
+            }
+
+            final AsyncCallback asyncCallback = new AsyncCallback(
+                    eventName, callback, executor, queueCapacity, overflowPolicy);
+            asyncCallbacks.add(asyncCallback);
+
+            return asyncCallback;
         }
     }
 
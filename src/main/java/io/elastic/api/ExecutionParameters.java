@@ -1,13 +1,25 @@
 package io.elastic.api;
 
 
-import javax.json.Json;
 import javax.json.JsonObject;
+import java.io.Externalizable;
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.io.ObjectInput;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutput;
 import java.io.Serializable;
+import java.nio.ByteBuffer;
 
 /**
  * Represents parameters for a {@link Module} execution passed
  * to {@link Module#execute(ExecutionParameters)}.
+ *
+ * <p>
+ * The {@link EventEmitter} is bound to the runtime executing the component and is therefore
+ * not serialized. A deserialized instance returns null from {@link #getEventEmitter()}
+ * and needs to be rebuilt with a new {@link EventEmitter} before execution.
+ * </p>
  */
 public final class ExecutionParameters implements Serializable {
 
@@ -16,7 +28,7 @@ public final class ExecutionParameters implements Serializable {
     private final Message message;
     private final JsonObject configuration;
     private final JsonObject snapshot;
-    private final EventEmitter eventEmitter;
+    private final transient EventEmitter eventEmitter;
 
     private ExecutionParameters(final Message message,
                                 final EventEmitter eventEmitter,
@@ -55,6 +67,11 @@ public final class ExecutionParameters implements Serializable {
         return snapshot;
     }
 
+    /**
+     * Returns the {@link EventEmitter} used to communicate with the runtime.
+     *
+     * @return event emitter or null if this instance has been deserialized
+     */
     public EventEmitter getEventEmitter() {
         return eventEmitter;
     }
@@ -85,8 +102,8 @@ public final class ExecutionParameters implements Serializable {
 
             this.message = message;
             this.eventEmitter = eventEmitter;
-            this.configuration = Json.createObjectBuilder().build();
-            this.snapshot = Json.createObjectBuilder().build();
+            this.configuration = JSON.EMPTY_OBJECT;
+            this.snapshot = JSON.EMPTY_OBJECT;
         }
 
         /**
@@ -131,6 +148,90 @@ public final class ExecutionParameters implements Serializable {
         }
     }
 
+    private Object writeReplace() {
+        return new SerializationProxy(this);
+    }
+
+    private void readObject(final ObjectInputStream in) throws InvalidObjectException {
+        throw new InvalidObjectException("ExecutionParameters must be deserialized through its serialization proxy");
+    }
+
+    /**
+     * Serialized form of {@link ExecutionParameters}. The message is serialized in its own
+     * compact form, configuration and snapshot as UTF-8 encoded JSON of at most
+     * {@link Message#MAX_SERIALIZED_LENGTH} bytes each.
+     */
+    private static final class SerializationProxy implements Externalizable {
+
+        private static final long serialVersionUID = 1L;
+
+        private static final int VERSION = 1;
+
+        private ExecutionParameters parameters;
+
+        /**
+         * Used by deserialization.
+         */
+        public SerializationProxy() {
+
+        }
+
+        private SerializationProxy(final ExecutionParameters parameters) {
+            this.parameters = parameters;
+        }
+
+        @Override
+        public void writeExternal(final ObjectOutput out) throws IOException {
+            out.writeByte(VERSION);
+            out.writeObject(parameters.message);
+            writeJson(out, parameters.configuration);
+            writeJson(out, parameters.snapshot);
+        }
+
+        @Override
+        public void readExternal(final ObjectInput in) throws IOException, ClassNotFoundException {
+            final int version = in.readUnsignedByte();
+            if (version != VERSION) {
+                throw new InvalidObjectException("Unsupported execution parameters serialization version " + version);
+            }
+
+            final Object message = in.readObject();
+            if (!(message instanceof Message)) {
+                throw new InvalidObjectException("Message expected");
+            }
+
+            this.parameters = new ExecutionParameters((Message) message, null, readJson(in), readJson(in));
+        }
+
+        private Object readResolve() {
+            return parameters;
+        }
+
+        private static void writeJson(final ObjectOutput out, final JsonObject object) throws IOException {
+            final byte[] bytes = JSON.toBytes(object);
+            checkLength(bytes.length);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+
+        private static JsonObject readJson(final ObjectInput in) throws IOException {
+            final int length = in.readInt();
+            if (length < 0) {
+                throw new InvalidObjectException("Invalid JSON length " + length);
+            }
+            checkLength(length);
+
+            return JSON.readObject(ByteBuffer.wrap(Streams.readFully(in, length)));
+        }
+
+        private static void checkLength(final int length) throws InvalidObjectException {
+            if (length > Message.MAX_SERIALIZED_LENGTH) {
+                throw new InvalidObjectException("JSON of " + length + " bytes exceeds the maximum of "
+                        + Message.MAX_SERIALIZED_LENGTH + " bytes");
+            }
+        }
+    }
+
     @Override
     public String toString() {
         return "ExecutionParameters{" +
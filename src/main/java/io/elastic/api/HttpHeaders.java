@@ -0,0 +1,330 @@
+package io.elastic.api;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Case-insensitive, multi-value HTTP headers kept in insertion order.
+ *
+ * <p>
+ * Names and values are stored in parallel arrays and looked up by a linear scan, which is
+ * faster and smaller than hashing for the few headers a reply usually has. Once there are
+ * more than {@value #INDEX_THRESHOLD} headers, an index of the lower-cased names is built
+ * on the first lookup or when the headers are shared.
+ * </p>
+ *
+ * <p>
+ * Headers are shared between {@link HttpReply.Builder} and the replies it builds. Once
+ * {@link #share()} has been invoked the instance must not be modified anymore, so the
+ * builder copies it before the next modification. Lookups then do not write any state,
+ * so shared headers may be read by several threads.
+ * </p>
+ */
+final class HttpHeaders {
+
+    private static final int INITIAL_CAPACITY = 8;
+    private static final int INDEX_THRESHOLD = 16;
+    private static final String SET_COOKIE = "Set-Cookie";
+
+    private String[] names;
+    private String[] values;
+    private int size;
+    private boolean shared;
+    private Map<String, Integer> index;
+    private Map<String, String> view;
+
+    HttpHeaders() {
+        this(INITIAL_CAPACITY);
+    }
+
+    private HttpHeaders(final int capacity) {
+        this.names = new String[capacity];
+        this.values = new String[capacity];
+    }
+
+    /**
+     * Adds a value to the values of the given header. A null value is ignored.
+     *
+     * @param name  header name
+     * @param value header value
+     */
+    void add(final String name, final String value) {
+        if (name == null) {
+            throw new IllegalArgumentException("Header name must not be null");
+        }
+        if (value == null) {
+            return;
+        }
+        if (size == names.length) {
+            names = Arrays.copyOf(names, size * 2);
+            values = Arrays.copyOf(values, size * 2);
+        }
+        names[size] = name;
+        values[size] = value;
+        size++;
+        index = null;
+    }
+
+    /**
+     * Replaces all values of the given header with the given value. A null value removes the header.
+     *
+     * @param name  header name
+     * @param value header value
+     */
+    void set(final String name, final String value) {
+        if (name == null) {
+            throw new IllegalArgumentException("Header name must not be null");
+        }
+        remove(name);
+        add(name, value);
+    }
+
+    /**
+     * Removes all values of the given header.
+     *
+     * @param name header name
+     */
+    void remove(final String name) {
+        int position = indexOf(name);
+        if (position < 0) {
+            return;
+        }
+
+        for (int i = position + 1; i < size; i++) {
+            if (!matches(i, name)) {
+                names[position] = names[i];
+                values[position] = values[i];
+                position++;
+            }
+        }
+        Arrays.fill(names, position, size, null);
+        Arrays.fill(values, position, size, null);
+        size = position;
+        index = null;
+    }
+
+    /**
+     * Returns the first value of the given header.
+     *
+     * @param name header name
+     * @return value or null if the header is not present
+     */
+    String get(final String name) {
+        final int position = indexOf(name);
+
+        return position < 0 ? null : values[position];
+    }
+
+    /**
+     * Returns all values of the given header in the order they have been added.
+     *
+     * @param name header name
+     * @return values, empty if the header is not present
+     */
+    List<String> getAll(final String name) {
+        final int position = indexOf(name);
+        if (position < 0) {
+            return Collections.emptyList();
+        }
+
+        final List<String> result = new ArrayList<String>(2);
+        for (int i = position; i < size; i++) {
+            if (matches(i, name)) {
+                result.add(values[i]);
+            }
+        }
+
+        return Collections.unmodifiableList(result);
+    }
+
+    /**
+     * Marks these headers as shared with a reply. The map view and the index are built now,
+     * as they must not be built lazily once the headers may be read by several threads.
+     * Invoked from the reply's constructor, so they are published safely with the reply.
+     *
+     * @return this instance
+     */
+    HttpHeaders share() {
+        if (!shared) {
+            asMap();
+            if (size > INDEX_THRESHOLD) {
+                index();
+            }
+            shared = true;
+        }
+
+        return this;
+    }
+
+    boolean isShared() {
+        return shared;
+    }
+
+    /**
+     * Returns a modifiable copy of these headers.
+     *
+     * @return copy
+     */
+    HttpHeaders copy() {
+        final HttpHeaders copy = new HttpHeaders(Math.max(INITIAL_CAPACITY, size + 1));
+        System.arraycopy(names, 0, copy.names, 0, size);
+        System.arraycopy(values, 0, copy.values, 0, size);
+        copy.size = size;
+
+        return copy;
+    }
+
+    /**
+     * Returns an unmodifiable view of these headers mapping each header name to its values,
+     * joined by a comma as defined by RFC 7230, section 3.2.2. Lookups are case-insensitive.
+     *
+     * @return view
+     */
+    Map<String, String> asMap() {
+        if (view == null) {
+            view = new MapView();
+        }
+
+        return view;
+    }
+
+    private int indexOf(final String name) {
+        if (name == null) {
+            return -1;
+        }
+
+        if (size > INDEX_THRESHOLD) {
+            final Integer position = index().get(name.toLowerCase(Locale.ROOT));
+
+            return position == null ? -1 : position;
+        }
+
+        for (int i = 0; i < size; i++) {
+            if (matches(i, name)) {
+                return i;
+            }
+        }
+
+        return -1;
+    }
+
+    private Map<String, Integer> index() {
+        if (index == null) {
+            final Map<String, Integer> created = new HashMap<String, Integer>(size * 2);
+            for (int i = size - 1; i >= 0; i--) {
+                created.put(names[i].toLowerCase(Locale.ROOT), i);
+            }
+            index = created;
+        }
+
+        return index;
+    }
+
+    private boolean matches(final int position, final String name) {
+        final String candidate = names[position];
+
+        return candidate.length() == name.length() && candidate.equalsIgnoreCase(name);
+    }
+
+    private String joinedValues(final int position) {
+        final String name = names[position];
+        if (name.equalsIgnoreCase(SET_COOKIE)) {
+            // cookies may contain commas, so their values cannot be joined, see RFC 6265
+            return values[position];
+        }
+
+        StringBuilder joined = null;
+        for (int i = position + 1; i < size; i++) {
+            if (matches(i, name)) {
+                if (joined == null) {
+                    joined = new StringBuilder(values[position]);
+                }
+                joined.append(", ").append(values[i]);
+            }
+        }
+
+        return joined == null ? values[position] : joined.toString();
+    }
+
+    private final class MapView extends AbstractMap<String, String> {
+
+        @Override
+        public String get(final Object key) {
+            if (!(key instanceof String)) {
+                return null;
+            }
+            final int position = indexOf((String) key);
+
+            return position < 0 ? null : joinedValues(position);
+        }
+
+        @Override
+        public boolean containsKey(final Object key) {
+            return key instanceof String && indexOf((String) key) >= 0;
+        }
+
+        @Override
+        public Set<Entry<String, String>> entrySet() {
+            return new AbstractSet<Entry<String, String>>() {
+                @Override
+                public Iterator<Entry<String, String>> iterator() {
+                    return new EntryIterator();
+                }
+
+                @Override
+                public int size() {
+                    int count = 0;
+                    for (int i = 0; i < HttpHeaders.this.size; i++) {
+                        if (indexOf(names[i]) == i) {
+                            count++;
+                        }
+                    }
+
+                    return count;
+                }
+            };
+        }
+    }
+
+    /**
+     * Iterates the first occurrence of each header name.
+     */
+    private final class EntryIterator implements Iterator<Map.Entry<String, String>> {
+        private int next = advance(0);
+
+        @Override
+        public boolean hasNext() {
+            return next < size;
+        }
+
+        @Override
+        public Map.Entry<String, String> next() {
+            if (next >= size) {
+                throw new NoSuchElementException();
+            }
+            final int position = next;
+            next = advance(position + 1);
+
+            return new AbstractMap.SimpleImmutableEntry<String, String>(names[position], joinedValues(position));
+        }
+
+        private int advance(final int from) {
+            int position = from;
+            while (position < size && indexOf(names[position]) != position) {
+                position++;
+            }
+
+            return position;
+        }
+    }
+}
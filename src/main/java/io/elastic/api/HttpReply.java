@@ -1,18 +1,55 @@
 package io.elastic.api;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.io.InputStream;
-import java.util.HashMap;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.List;
 import java.util.Map;
 
+/**
+ * HTTP reply emitted using {@link EventEmitter#emitHttpReply(HttpReply)}.
+ *
+ * <p>
+ * The content is given as {@link InputStream}, {@link FileChannel}, {@link ByteBuffer} or
+ * {@link ContentProducer}. A runtime streams it using {@link #writeContentTo(WritableByteChannel)},
+ * which transfers a file channel's content using {@link FileChannel#transferTo(long, long, WritableByteChannel)}
+ * and therefore without copying it into the JVM if the target is a socket. The content length
+ * is known for file channels and buffers and may be given for other content.
+ * </p>
+ *
+ * <p>
+ * The content may be compressed on the fly by setting a {@link ContentEncoding}, which
+ * also sets the <i>Content-Encoding</i> header. The encoding accepted by the client is
+ * negotiated using {@link ContentEncoding#negotiate(String)}.
+ * </p>
+ */
 public final class HttpReply {
 
-    private int status;
-    private Map<String, String> headers = new HashMap();
-    private InputStream content;
+    /**
+     * Content length of a reply whose length is not known in advance.
+     *
+     * @since 2.1.1
+     */
+    public static final long UNKNOWN_CONTENT_LENGTH = -1;
+
+    private static final String CONTENT_ENCODING = "Content-Encoding";
+
+    private final int status;
+    private final HttpHeaders headers;
+    private final Body content;
+    private final long contentLength;
 
     private HttpReply(final int status,
-                      final InputStream content,
-                      final Map<String, String> headers) {
+                      final Body content,
+                      final long contentLength,
+                      final HttpHeaders headers) {
         if (content == null) {
             throw new IllegalArgumentException("HttpReply content must not be null");
         }
@@ -21,34 +58,224 @@ public final class HttpReply {
         }
         this.status = status;
         this.content = content;
-        this.headers.putAll(headers);
+        this.contentLength = contentLength;
+        this.headers = headers.share();
     }
 
     public int getStatus() {
         return status;
     }
 
+    /**
+     * Returns an unmodifiable view of the headers. Header names are case-insensitive and
+     * the values of a header added multiple times are joined by a comma, except for
+     * {@code Set-Cookie} whose first value is returned. Use {@link #getHeaderValues(String)}
+     * to get all values of a header.
+     *
+     * @return headers
+     */
     public Map<String, String> getHeaders() {
-        return headers;
+        return headers.asMap();
     }
 
+    /**
+     * Returns the first value of the given header. The name is case-insensitive.
+     *
+     * @since 2.1.1
+     *
+     * @param name header name
+     * @return value or null if the header is not present
+     */
+    public String getHeader(final String name) {
+        return headers.get(name);
+    }
+
+    /**
+     * Returns all values of the given header in the order they have been added.
+     * The name is case-insensitive.
+     *
+     * @since 2.1.1
+     *
+     * @param name header name
+     * @return unmodifiable list of values, empty if the header is not present
+     */
+    public List<String> getHeaderValues(final String name) {
+        return headers.getAll(name);
+    }
+
+    /**
+     * Returns the content as {@link InputStream}. The content of a {@link ContentProducer}
+     * is produced into memory first, use {@link #writeContentTo(WritableByteChannel)} to stream it.
+     *
+     * @return content
+     */
     public InputStream getContent() {
-        return content;
+        return content.asInputStream();
+    }
+
+    /**
+     * Returns the length of the content in bytes.
+     *
+     * @since 2.1.1
+     *
+     * @return content length or {@link #UNKNOWN_CONTENT_LENGTH}
+     */
+    public long getContentLength() {
+        return contentLength;
+    }
+
+    /**
+     * Writes the content to the given channel without closing it. The content can be written once.
+     *
+     * @since 2.1.1
+     *
+     * @param target channel to write to
+     * @throws IOException if reading or writing the content fails
+     */
+    public void writeContentTo(final WritableByteChannel target) throws IOException {
+        if (target == null) {
+            throw new IllegalArgumentException("Target channel must not be null");
+        }
+
+        content.writeTo(target);
     }
 
     @Override
     public String toString() {
         return "HttpReply{" +
                 "status=" + status +
-                ", headers=" + headers +
+                ", headers=" + headers.asMap() +
                 ", content=" + content +
+                ", contentLength=" + contentLength +
                 '}';
     }
 
+    /**
+     * Produces the content of a reply by writing it to a channel, for example chunk by chunk
+     * as it is read from a remote service.
+     *
+     * @since 2.1.1
+     */
+    public interface ContentProducer {
+
+        /**
+         * Writes the content to the given channel. The channel must not be closed.
+         *
+         * @param channel channel to write to
+         * @throws IOException if producing or writing the content fails
+         */
+        void writeTo(WritableByteChannel channel) throws IOException;
+    }
+
+    /**
+     * Encodings the content of a reply may be compressed with.
+     *
+     * @since 2.1.1
+     */
+    public enum ContentEncoding {
+
+        /**
+         * Content is not compressed.
+         */
+        IDENTITY("identity"),
+
+        /**
+         * Content is compressed in gzip format.
+         */
+        GZIP("gzip"),
+
+        /**
+         * Content is compressed in zlib format, as defined for HTTP's deflate encoding.
+         */
+        DEFLATE("deflate");
+
+        private final String token;
+
+        ContentEncoding(final String token) {
+            this.token = token;
+        }
+
+        /**
+         * Returns the token used in the <i>Content-Encoding</i> header.
+         *
+         * @return token
+         */
+        public String getToken() {
+            return token;
+        }
+
+        /**
+         * Selects the encoding to reply with from the value of a request's <i>Accept-Encoding</i> header.
+         * Among the encodings the client accepts with the highest quality, gzip is preferred over deflate.
+         *
+         * @param acceptEncoding header value, may be null
+         * @return negotiated encoding, {@link #IDENTITY} if the client accepts neither gzip nor deflate
+         */
+        public static ContentEncoding negotiate(final String acceptEncoding) {
+            if (acceptEncoding == null) {
+                return IDENTITY;
+            }
+
+            ContentEncoding selected = IDENTITY;
+            double selectedQuality = 0;
+            double wildcardQuality = -1;
+            double gzipQuality = -1;
+            double deflateQuality = -1;
+
+            for (String element : acceptEncoding.split(",")) {
+                final String[] parts = element.split(";");
+                final String coding = parts[0].trim().toLowerCase();
+                final double quality = quality(parts);
+
+                if (coding.equals(GZIP.token) || coding.equals("x-gzip")) {
+                    gzipQuality = quality;
+                } else if (coding.equals(DEFLATE.token)) {
+                    deflateQuality = quality;
+                } else if (coding.equals("*")) {
+                    wildcardQuality = quality;
+                }
+            }
+
+            if (gzipQuality < 0) {
+                gzipQuality = wildcardQuality;
+            }
+            if (deflateQuality < 0) {
+                deflateQuality = wildcardQuality;
+            }
+
+            if (gzipQuality > selectedQuality) {
+                selected = GZIP;
+                selectedQuality = gzipQuality;
+            }
+            if (deflateQuality > selectedQuality) {
+                selected = DEFLATE;
+            }
+
+            return selected;
+        }
+
+        private static double quality(final String[] parts) {
+            for (int i = 1; i < parts.length; i++) {
+                final String parameter = parts[i].trim();
+                if (parameter.startsWith("q=")) {
+                    try {
+                        return Double.parseDouble(parameter.substring(2));
+                    } catch (NumberFormatException e) {
+                        return 0;
+                    }
+                }
+            }
+
+            return 1;
+        }
+    }
+
     public static final class Builder {
         private int status;
-        private InputStream content;
-        private Map<String, String> headers = new HashMap();
+        private Body content;
+        private long contentLength = UNKNOWN_CONTENT_LENGTH;
+        private ContentEncoding encoding = ContentEncoding.IDENTITY;
+        private HttpHeaders headers = new HttpHeaders();
 
         public Builder() {
         }
@@ -58,8 +285,32 @@ public final class HttpReply {
             return this;
         }
 
+        /**
+         * Sets the given header, replacing all of its values. The name is case-insensitive.
+         * A null value removes the header.
+         *
+         * @param name  header name
+         * @param value header value
+         * @return this instance
+         */
         public Builder header(final String name, final String value) {
-            this.headers.put(name, value);
+            modifiableHeaders().set(name, value);
+
+            return this;
+        }
+
+        /**
+         * Adds a value to the given header, keeping its existing values. The name is case-insensitive.
+         * A null value is ignored.
+         *
+         * @since 2.1.1
+         *
+         * @param name  header name
+         * @param value header value
+         * @return this instance
+         */
+        public Builder addHeader(final String name, final String value) {
+            modifiableHeaders().add(name, value);
 
             return this;
         }
@@ -68,7 +319,101 @@ public final class HttpReply {
             if (content == null) {
                 throw new IllegalArgumentException("Content must not be null");
             }
-            this.content = content;
+            this.content = new StreamBody(content);
+
+            return this;
+        }
+
+        /**
+         * Sets the content to the bytes of the given channel from its current position to its end.
+         * The content length is set accordingly.
+         *
+         * @since 2.1.1
+         *
+         * @param content channel to read the content from
+         * @return this instance
+         * @throws IOException if the channel's position or size cannot be read
+         */
+        public Builder content(final FileChannel content) throws IOException {
+            if (content == null) {
+                throw new IllegalArgumentException("Content must not be null");
+            }
+            final long position = content.position();
+            final long count = content.size() - position;
+            this.content = new FileChannelBody(content, position, count);
+            this.contentLength = count;
+
+            return this;
+        }
+
+        /**
+         * Sets the content to the remaining bytes of the given buffer. The buffer's position is
+         * not changed. The content length is set accordingly.
+         *
+         * @since 2.1.1
+         *
+         * @param content buffer containing the content
+         * @return this instance
+         */
+        public Builder content(final ByteBuffer content) {
+            if (content == null) {
+                throw new IllegalArgumentException("Content must not be null");
+            }
+            this.content = new BufferBody(content.duplicate());
+            this.contentLength = content.remaining();
+
+            return this;
+        }
+
+        /**
+         * Sets the content to be produced by the given {@link ContentProducer} once the reply is written.
+         *
+         * @since 2.1.1
+         *
+         * @param content producer of the content
+         * @return this instance
+         */
+        public Builder content(final ContentProducer content) {
+            if (content == null) {
+                throw new IllegalArgumentException("Content must not be null");
+            }
+            this.content = new ProducerBody(content);
+
+            return this;
+        }
+
+        /**
+         * Sets the length of the content. Must be invoked after the content is set,
+         * as setting file channel or buffer content sets the length.
+         *
+         * @since 2.1.1
+         *
+         * @param contentLength length in bytes or {@link HttpReply#UNKNOWN_CONTENT_LENGTH}
+         * @return this instance
+         */
+        public Builder contentLength(final long contentLength) {
+            if (contentLength < UNKNOWN_CONTENT_LENGTH) {
+                throw new IllegalArgumentException("Content length must not be negative");
+            }
+            this.contentLength = contentLength;
+
+            return this;
+        }
+
+        /**
+         * Compresses the content with the given encoding and sets the <i>Content-Encoding</i> header.
+         * The content length of a compressed reply is unknown. Defaults to {@link ContentEncoding#IDENTITY}.
+         *
+         * @since 2.1.1
+         *
+         * @param encoding encoding to compress the content with
+         * @return this instance
+         */
+        public Builder encoding(final ContentEncoding encoding) {
+            if (encoding == null) {
+                throw new IllegalArgumentException("Content encoding must not be null");
+            }
+            this.encoding = encoding;
 
             return this;
         }
@@ -81,12 +426,211 @@ public final class HttpReply {
         }
 
         public HttpReply build() {
-            return new HttpReply(this.status, this.content, this.headers);
+            if (this.encoding == ContentEncoding.IDENTITY || this.content == null) {
+                return new HttpReply(this.status, this.content, this.contentLength, this.headers);
+            }
+
+            final HttpHeaders encodedHeaders = this.headers.copy();
+            encodedHeaders.set(CONTENT_ENCODING, this.encoding.getToken());
+
+            return new HttpReply(this.status, new EncodedBody(this.content, this.encoding),
+                    UNKNOWN_CONTENT_LENGTH, encodedHeaders);
+        }
+
+        private HttpHeaders modifiableHeaders() {
+            // the headers are shared with the replies built so far
+            if (this.headers.isShared()) {
+                this.headers = this.headers.copy();
+            }
+
+            return this.headers;
+        }
+    }
+
+    /**
+     * Content of a reply.
+     */
+    private abstract static class Body {
+
+        abstract InputStream asInputStream();
+
+        abstract void writeTo(WritableByteChannel target) throws IOException;
+    }
+
+    private static final class StreamBody extends Body {
+        private final InputStream stream;
+
+        private StreamBody(final InputStream stream) {
+            this.stream = stream;
+        }
+
+        @Override
+        InputStream asInputStream() {
+            return stream;
+        }
+
+        @Override
+        void writeTo(final WritableByteChannel target) throws IOException {
+            final ReadableByteChannel source = Channels.newChannel(stream);
+            final ByteBuffer buffer = ByteBuffer.allocate(8192);
+
+            while (source.read(buffer) >= 0) {
+                buffer.flip();
+                while (buffer.hasRemaining()) {
+                    target.write(buffer);
+                }
+                buffer.clear();
+            }
+        }
+
+        @Override
+        public String toString() {
+            return stream.toString();
+        }
+    }
+
+    private static final class FileChannelBody extends Body {
+        private final FileChannel channel;
+        private final long position;
+        private final long count;
+
+        private FileChannelBody(final FileChannel channel, final long position, final long count) {
+            this.channel = channel;
+            this.position = position;
+            this.count = count;
+        }
+
+        @Override
+        InputStream asInputStream() {
+            return Streams.asInputStream(channel, position, count);
+        }
+
+        @Override
+        void writeTo(final WritableByteChannel target) throws IOException {
+            long transferred = 0;
+            while (transferred < count) {
+                final long written = channel.transferTo(position + transferred, count - transferred, target);
+                if (written <= 0) {
+                    if (channel.size() <= position + transferred) {
+                        throw new IOException("File channel content ended after " + transferred + " of " + count + " bytes");
+                    }
+                    // a blocking target always accepts bytes, so this is a non-blocking one which is full
+                    throw new IOException("Target channel did not accept more bytes after " + transferred
+                            + " of " + count + " bytes");
+                }
+                transferred += written;
+            }
+        }
+
+        @Override
+        public String toString() {
+            return "FileChannel{position=" + position + ", count=" + count + '}';
+        }
+    }
+
+    private static final class BufferBody extends Body {
+        private final ByteBuffer buffer;
+
+        private BufferBody(final ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        InputStream asInputStream() {
+            return Streams.asInputStream(buffer);
+        }
+
+        @Override
+        void writeTo(final WritableByteChannel target) throws IOException {
+            final ByteBuffer source = buffer.duplicate();
+            while (source.hasRemaining()) {
+                target.write(source);
+            }
+        }
+
+        @Override
+        public String toString() {
+            return buffer.toString();
+        }
+    }
+
+    private static final class ProducerBody extends Body {
+        private final ContentProducer producer;
+
+        private ProducerBody(final ContentProducer producer) {
+            this.producer = producer;
+        }
+
+        @Override
+        InputStream asInputStream() {
+            final ByteArrayOutputStream out = new ByteArrayOutputStream();
+            try {
+                producer.writeTo(Channels.newChannel(out));
+            } catch (IOException e) {
+                throw new IllegalStateException("Failed to produce HttpReply content", e);
+            }
+
+            return new ByteArrayInputStream(out.toByteArray());
+        }
+
+        @Override
+        void writeTo(final WritableByteChannel target) throws IOException {
+            producer.writeTo(Streams.nonClosing(target));
+        }
+
+        @Override
+        public String toString() {
+            return producer.toString();
+        }
+    }
+
+    private static final class EncodedBody extends Body {
+        private final Body body;
+        private final ContentEncoding encoding;
+
+        private EncodedBody(final Body body, final ContentEncoding encoding) {
+            this.body = body;
+            this.encoding = encoding;
+        }
+
+        @Override
+        InputStream asInputStream() {
+            return Compression.compressed(body.asInputStream(), encoding == ContentEncoding.GZIP);
+        }
+
+        @Override
+        void writeTo(final WritableByteChannel target) throws IOException {
+            // closing returns the pooled deflater and buffer even if the body fails
+            try (OutputStream out = Compression.compressing(
+                    Channels.newOutputStream(Streams.nonClosing(target)), encoding == ContentEncoding.GZIP)) {
+                body.writeTo(Channels.newChannel(out));
+            }
+        }
+
+        @Override
+        public String toString() {
+            return encoding.getToken() + "(" + body + ")";
         }
     }
 
     public enum Status {
 
+        /**
+         * 100 Continue, see <a href="https://www.rfc-editor.org/rfc/rfc9110.html#section-15.2.1">RFC 9110</a>.
+         */
+        CONTINUE(100, "Continue"),
+        /**
+         * 101 Switching Protocols, see <a href="https://www.rfc-editor.org/rfc/rfc9110.html#section-15.2.2">RFC 9110</a>.
+         */
+        SWITCHING_PROTOCOLS(101, "Switching Protocols"),
+        /**
+         * 102 Processing, see <a href="https://www.rfc-editor.org/rfc/rfc2518.html#section-10.1">RFC 2518</a>.
+         */
+        PROCESSING(102, "Processing"),
+        /**
+         * 103 Early Hints, see <a href="https://www.rfc-editor.org/rfc/rfc8297.html#section-2">RFC 8297</a>.
+         */
+        EARLY_HINTS(103, "Early Hints"),
         /**
          * 200 OK, see <a href="http://www.w3.org/Protocols/rfc2616/rfc2616-sec10.html#sec10.2.1">HTTP/1.1 documentation</a>.
          */
@@ -99,6 +643,10 @@ public final class HttpReply {
          * 202 Accepted, see <a href="http://www.w3.org/Protocols/rfc2616/rfc2616-sec10.html#sec10.2.3">HTTP/1.1 documentation</a>.
          */
         ACCEPTED(202, "Accepted"),
+        /**
+         * 203 Non-Authoritative Information, see <a href="https://www.rfc-editor.org/rfc/rfc9110.html#section-15.3.4">RFC 9110</a>.
+         */
+        NON_AUTHORITATIVE_INFORMATION(203, "Non-Authoritative Information"),
         /**
          * 204 No Content, see <a href="http://www.w3.org/Protocols/rfc2616/rfc2616-sec10.html#sec10.2.5">HTTP/1.1 documentation</a>.
          */
@@ -111,6 +659,22 @@ public final class HttpReply {
          * 206 Reset Content, see <a href="http://www.w3.org/Protocols/rfc2616/rfc2616-sec10.html#sec10.2.7">HTTP/1.1 documentation</a>.
          */
         PARTIAL_CONTENT(206, "Partial Content"),
+        /**
+         * 207 Multi-Status, see <a href="https://www.rfc-editor.org/rfc/rfc4918.html#section-11.1">RFC 4918</a>.
+         */
+        MULTI_STATUS(207, "Multi-Status"),
+        /**
+         * 208 Already Reported, see <a href="https://www.rfc-editor.org/rfc/rfc5842.html#section-7.1">RFC 5842</a>.
+         */
+        ALREADY_REPORTED(208, "Already Reported"),
+        /**
+         * 226 IM Used, see <a href="https://www.rfc-editor.org/rfc/rfc3229.html#section-10.4.1">RFC 3229</a>.
+         */
+        IM_USED(226, "IM Used"),
+        /**
+         * 300 Multiple Choices, see <a href="https://www.rfc-editor.org/rfc/rfc9110.html#section-15.4.1">RFC 9110</a>.
+         */
+        MULTIPLE_CHOICES(300, "Multiple Choices"),
         /**
          * 301 Moved Permanently, see <a href="http://www.w3.org/Protocols/rfc2616/rfc2616-sec10.html#sec10.3.2">HTTP/1.1 documentation</a>.
          */
@@ -135,6 +699,10 @@ public final class HttpReply {
          * 307 Temporary Redirect, see <a href="http://www.w3.org/Protocols/rfc2616/rfc2616-sec10.html#sec10.3.8">HTTP/1.1 documentation</a>.
          */
         TEMPORARY_REDIRECT(307, "Temporary Redirect"),
+        /**
+         * 308 Permanent Redirect, see <a href="https://www.rfc-editor.org/rfc/rfc9110.html#section-15.4.9">RFC 9110</a>.
+         */
+        PERMANENT_REDIRECT(308, "Permanent Redirect"),
         /**
          * 400 Bad Request, see <a href="http://www.w3.org/Protocols/rfc2616/rfc2616-sec10.html#sec10.4.1">HTTP/1.1 documentation</a>.
          */
@@ -207,6 +775,46 @@ public final class HttpReply {
          * 417 Expectation Failed, see <a href="http://www.w3.org/Protocols/rfc2616/rfc2616-sec10.html#sec10.4.18">HTTP/1.1 documentation</a>.0
          */
         EXPECTATION_FAILED(417, "Expectation Failed"),
+        /**
+         * 421 Misdirected Request, see <a href="https://www.rfc-editor.org/rfc/rfc9110.html#section-15.5.20">RFC 9110</a>.
+         */
+        MISDIRECTED_REQUEST(421, "Misdirected Request"),
+        /**
+         * 422 Unprocessable Content, see <a href="https://www.rfc-editor.org/rfc/rfc9110.html#section-15.5.21">RFC 9110</a>.
+         */
+        UNPROCESSABLE_CONTENT(422, "Unprocessable Content"),
+        /**
+         * 423 Locked, see <a href="https://www.rfc-editor.org/rfc/rfc4918.html#section-11.3">RFC 4918</a>.
+         */
+        LOCKED(423, "Locked"),
+        /**
+         * 424 Failed Dependency, see <a href="https://www.rfc-editor.org/rfc/rfc4918.html#section-11.4">RFC 4918</a>.
+         */
+        FAILED_DEPENDENCY(424, "Failed Dependency"),
+        /**
+         * 425 Too Early, see <a href="https://www.rfc-editor.org/rfc/rfc8470.html#section-5.2">RFC 8470</a>.
+         */
+        TOO_EARLY(425, "Too Early"),
+        /**
+         * 426 Upgrade Required, see <a href="https://www.rfc-editor.org/rfc/rfc9110.html#section-15.5.22">RFC 9110</a>.
+         */
+        UPGRADE_REQUIRED(426, "Upgrade Required"),
+        /**
+         * 428 Precondition Required, see <a href="https://www.rfc-editor.org/rfc/rfc6585.html#section-3">RFC 6585</a>.
+         */
+        PRECONDITION_REQUIRED(428, "Precondition Required"),
+        /**
+         * 429 Too Many Requests, see <a href="https://www.rfc-editor.org/rfc/rfc6585.html#section-4">RFC 6585</a>.
+         */
+        TOO_MANY_REQUESTS(429, "Too Many Requests"),
+        /**
+         * 431 Request Header Fields Too Large, see <a href="https://www.rfc-editor.org/rfc/rfc6585.html#section-5">RFC 6585</a>.
+         */
+        REQUEST_HEADER_FIELDS_TOO_LARGE(431, "Request Header Fields Too Large"),
+        /**
+         * 451 Unavailable For Legal Reasons, see <a href="https://www.rfc-editor.org/rfc/rfc7725.html#section-3">RFC 7725</a>.
+         */
+        UNAVAILABLE_FOR_LEGAL_REASONS(451, "Unavailable For Legal Reasons"),
         /**
          * 500 Internal Server Error, see <a href="http://www.w3.org/Protocols/rfc2616/rfc2616-sec10.html#sec10.5.1">HTTP/1.1 documentation</a>.
          */
@@ -230,7 +838,37 @@ public final class HttpReply {
         /**
          * 505 HTTP Version Not Supported, see <a href="http://www.w3.org/Protocols/rfc2616/rfc2616-sec10.html#sec10.5.6">HTTP/1.1 documentation</a>.
          */
-        HTTP_VERSION_NOT_SUPPORTED(505, "HTTP Version Not Supported");
+        HTTP_VERSION_NOT_SUPPORTED(505, "HTTP Version Not Supported"),
+        /**
+         * 506 Variant Also Negotiates, see <a href="https://www.rfc-editor.org/rfc/rfc2295.html#section-8.1">RFC 2295</a>.
+         */
+        VARIANT_ALSO_NEGOTIATES(506, "Variant Also Negotiates"),
+        /**
+         * 507 Insufficient Storage, see <a href="https://www.rfc-editor.org/rfc/rfc4918.html#section-11.5">RFC 4918</a>.
+         */
+        INSUFFICIENT_STORAGE(507, "Insufficient Storage"),
+        /**
+         * 508 Loop Detected, see <a href="https://www.rfc-editor.org/rfc/rfc5842.html#section-7.2">RFC 5842</a>.
+         */
+        LOOP_DETECTED(508, "Loop Detected"),
+        /**
+         * 510 Not Extended, see <a href="https://www.rfc-editor.org/rfc/rfc2774.html#section-7">RFC 2774</a>.
+         */
+        NOT_EXTENDED(510, "Not Extended"),
+        /**
+         * 511 Network Authentication Required, see <a href="https://www.rfc-editor.org/rfc/rfc6585.html#section-6">RFC 6585</a>.
+         */
+        NETWORK_AUTHENTICATION_REQUIRED(511, "Network Authentication Required");
+
+        // indexed by status code
+        private static final Status[] BY_CODE = new Status[600];
+
+        static {
+            for (Status status : values()) {
+                BY_CODE[status.code] = status;
+            }
+        }
+
         private final int code;
         private final String reason;
 
@@ -272,12 +910,10 @@ public final class HttpReply {
          * @return the matching Status or null is no matching Status is defined.
          */
         public static Status fromStatusCode(final int statusCode) {
-            for (Status s : Status.values()) {
-                if (s.code == statusCode) {
-                    return s;
-                }
+            if (statusCode < 0 || statusCode >= BY_CODE.length) {
+                return null;
             }
-            return null;
+            return BY_CODE[statusCode];
         }
     }
 }
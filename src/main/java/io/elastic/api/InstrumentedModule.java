@@ -0,0 +1,328 @@
+package io.elastic.api;
+
+import javax.json.JsonObject;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * {@link Module} decorator measuring the lifecycle phases of the decorated module.
+ *
+ * <p>
+ * For each of {@link Module#init(JsonObject)}, {@link Module#startup(JsonObject)} and
+ * {@link Module#execute(ExecutionParameters)} the number of invocations and failures,
+ * the wall time, the CPU time and the allocated bytes are recorded. CPU time and allocations
+ * are measured using the JVM's {@link ThreadMXBean} for the invoking thread, so work the module
+ * hands off to other threads is not included. Allocations are only measured on JVMs providing
+ * <code>com.sun.management.ThreadMXBean</code>, such as HotSpot, and reported as zero otherwise,
+ * like the CPU time on JVMs not supporting its measurement. In addition the number of messages the module
+ * has been executed with and the number of messages it emitted are counted.
+ * </p>
+ *
+ * <p>
+ * The statistics are available from the {@link InstrumentedModuleMXBean} methods and
+ * can be published to JMX using {@link #registerMBean()}, as shown in the following example.
+ * </p>
+ *
+ * <pre>
+ * {@code
+ *    InstrumentedModule module = new InstrumentedModule("my-component", new MyComponent());
+ *    module.registerMBean();
+ *    ...
+ *    module.execute(parameters);
+ *    ...
+ *    module.unregisterMBean();
+ * }
+ * </pre>
+ *
+ * @since 2.1.1
+ */
+public final class InstrumentedModule implements Module, InstrumentedModuleMXBean {
+
+    /**
+     * JMX domain of the registered MBeans.
+     */
+    public static final String JMX_DOMAIN = "io.elastic.api";
+
+    private static final ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+    private static final boolean allocatedBytesSupported = isAllocatedBytesSupported();
+
+    private final String name;
+    private final Module delegate;
+    private final Phase init = new Phase();
+    private final Phase startup = new Phase();
+    private final Phase execute = new Phase();
+    private final LongAdder messagesIn = new LongAdder();
+    private final LongAdder messagesOut = new LongAdder();
+    private ObjectName objectName;
+
+    /**
+     * Creates an instrumented module.
+     *
+     * @param name     name identifying the module, used in the JMX object name
+     * @param delegate module to instrument
+     */
+    public InstrumentedModule(final String name, final Module delegate) {
+        if (name == null) {
+            throw new IllegalArgumentException("Module name must not be null");
+        }
+        if (delegate == null) {
+            throw new IllegalArgumentException("Module must not be null");
+        }
+        this.name = name;
+        this.delegate = delegate;
+    }
+
+    @Override
+    public void execute(final ExecutionParameters parameters) {
+        final ExecutionParameters counted = countingMessagesOut(parameters);
+        messagesIn.increment();
+
+        final Measurement measurement = execute.start();
+        try {
+            delegate.execute(counted);
+            parameters.getEventEmitter().flush();
+            measurement.succeeded();
+        } finally {
+            measurement.stop();
+        }
+    }
+
+    @Override
+    public JsonObject startup(final JsonObject configuration) {
+        final Measurement measurement = startup.start();
+        try {
+            final JsonObject result = delegate.startup(configuration);
+            measurement.succeeded();
+
+            return result;
+        } finally {
+            measurement.stop();
+        }
+    }
+
+    @Override
+    public void init(final JsonObject configuration) {
+        final Measurement measurement = init.start();
+        try {
+            delegate.init(configuration);
+            measurement.succeeded();
+        } finally {
+            measurement.stop();
+        }
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public PhaseStatistics getInit() {
+        return init.getStatistics();
+    }
+
+    @Override
+    public PhaseStatistics getStartup() {
+        return startup.getStatistics();
+    }
+
+    @Override
+    public PhaseStatistics getExecute() {
+        return execute.getStatistics();
+    }
+
+    @Override
+    public long getMessagesIn() {
+        return messagesIn.sum();
+    }
+
+    @Override
+    public long getMessagesOut() {
+        return messagesOut.sum();
+    }
+
+    /**
+     * Returns the decorated module.
+     *
+     * @return module
+     */
+    public Module getDelegate() {
+        return delegate;
+    }
+
+    /**
+     * Registers this module as MBean named <code>io.elastic.api:type=Module,name=&lt;name&gt;</code>
+     * at the platform {@link MBeanServer}.
+     *
+     * @return object name of the registered MBean
+     */
+    public synchronized ObjectName registerMBean() {
+        if (objectName != null) {
+            throw new IllegalStateException("MBean is already registered");
+        }
+
+        try {
+            final ObjectName candidate = new ObjectName(JMX_DOMAIN + ":type=Module,name=" + ObjectName.quote(name));
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, candidate);
+            objectName = candidate;
+
+            return objectName;
+        } catch (JMException e) {
+            throw new IllegalStateException("Failed to register MBean for module " + name, e);
+        }
+    }
+
+    /**
+     * Unregisters the MBean registered by {@link #registerMBean()}. Does nothing if not registered.
+     */
+    public synchronized void unregisterMBean() {
+        if (objectName == null) {
+            return;
+        }
+
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+        } catch (JMException e) {
+            throw new IllegalStateException("Failed to unregister MBean for module " + name, e);
+        } finally {
+            objectName = null;
+        }
+    }
+
+    private ExecutionParameters countingMessagesOut(final ExecutionParameters parameters) {
+        final EventEmitter emitter = parameters.getEventEmitter();
+        if (emitter == null) {
+            return parameters;
+        }
+
+        final EventEmitter counting = EventEmitter.forwardingTo(emitter)
+                .dataBatchCallback(new EventEmitter.BatchCallback() {
+                    @Override
+                    public void receive(final List<Message> messages) {
+                        messagesOut.add(messages.size());
+                        emitter.emitDataBatch(messages);
+                    }
+                })
+                .build();
+
+        return new ExecutionParameters.Builder(parameters.getMessage(), counting)
+                .configuration(parameters.getConfiguration())
+                .snapshot(parameters.getSnapshot())
+                .build();
+    }
+
+    private static long currentThreadCpuTime() {
+        try {
+            if (!threadMXBean.isCurrentThreadCpuTimeSupported() || !threadMXBean.isThreadCpuTimeEnabled()) {
+                return 0;
+            }
+
+            return threadMXBean.getCurrentThreadCpuTime();
+        } catch (UnsupportedOperationException e) {
+            return 0;
+        }
+    }
+
+    private static long currentThreadAllocatedBytes() {
+        if (!allocatedBytesSupported) {
+            return 0;
+        }
+
+        try {
+            return AllocationCounter.currentThreadAllocatedBytes();
+        } catch (UnsupportedOperationException e) {
+            return 0;
+        }
+    }
+
+    private static boolean isAllocatedBytesSupported() {
+        try {
+            return AllocationCounter.isSupported();
+        } catch (LinkageError e) {
+            // com.sun.management is not available on this JVM
+            return false;
+        } catch (UnsupportedOperationException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Reads the allocated bytes from the HotSpot specific <code>com.sun.management.ThreadMXBean</code>.
+     * The interface is only referenced by this class, so a JVM without it fails to load this class
+     * instead of {@link InstrumentedModule}.
+     */
+    private static final class AllocationCounter {
+
+        private static boolean isSupported() {
+            return threadMXBean instanceof com.sun.management.ThreadMXBean
+                    && ((com.sun.management.ThreadMXBean) threadMXBean).isThreadAllocatedMemorySupported();
+        }
+
+        private static long currentThreadAllocatedBytes() {
+            final com.sun.management.ThreadMXBean bean = (com.sun.management.ThreadMXBean) threadMXBean;
+            if (!bean.isThreadAllocatedMemoryEnabled()) {
+                return 0;
+            }
+
+            return bean.getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+    }
+
+    /**
+     * Accumulates the measurements of one phase.
+     */
+    private static final class Phase {
+        private final LongAdder invocations = new LongAdder();
+        private final LongAdder failures = new LongAdder();
+        private final LongAdder wallTimeNanos = new LongAdder();
+        private final LongAdder cpuTimeNanos = new LongAdder();
+        private final LongAdder allocatedBytes = new LongAdder();
+
+        private Measurement start() {
+            return new Measurement(this);
+        }
+
+        private PhaseStatistics getStatistics() {
+            return new PhaseStatistics(
+                    invocations.sum(),
+                    failures.sum(),
+                    wallTimeNanos.sum(),
+                    cpuTimeNanos.sum(),
+                    allocatedBytes.sum());
+        }
+    }
+
+    /**
+     * Measurement of a single invocation of a phase.
+     */
+    private static final class Measurement {
+        private final Phase phase;
+        private final long wallTimeStart = System.nanoTime();
+        private final long cpuTimeStart = currentThreadCpuTime();
+        private final long allocatedBytesStart = currentThreadAllocatedBytes();
+        private boolean succeeded;
+
+        private Measurement(final Phase phase) {
+            this.phase = phase;
+        }
+
+        private void succeeded() {
+            this.succeeded = true;
+        }
+
+        private void stop() {
+            phase.wallTimeNanos.add(System.nanoTime() - wallTimeStart);
+            phase.cpuTimeNanos.add(currentThreadCpuTime() - cpuTimeStart);
+            phase.allocatedBytes.add(currentThreadAllocatedBytes() - allocatedBytesStart);
+            phase.invocations.increment();
+            if (!succeeded) {
+                phase.failures.increment();
+            }
+        }
+    }
+}
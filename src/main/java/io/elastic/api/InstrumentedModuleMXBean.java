@@ -0,0 +1,52 @@
+package io.elastic.api;
+
+/**
+ * Management interface of an {@link InstrumentedModule}, registered by
+ * {@link InstrumentedModule#registerMBean()}.
+ *
+ * @since 2.1.1
+ */
+public interface InstrumentedModuleMXBean {
+
+    /**
+     * Returns the name the module has been instrumented with.
+     *
+     * @return name
+     */
+    String getName();
+
+    /**
+     * Returns the statistics of {@link Module#init(javax.json.JsonObject)}.
+     *
+     * @return init statistics
+     */
+    PhaseStatistics getInit();
+
+    /**
+     * Returns the statistics of {@link Module#startup(javax.json.JsonObject)}.
+     *
+     * @return startup statistics
+     */
+    PhaseStatistics getStartup();
+
+    /**
+     * Returns the statistics of {@link Module#execute(ExecutionParameters)}.
+     *
+     * @return execute statistics
+     */
+    PhaseStatistics getExecute();
+
+    /**
+     * Returns the number of messages the module has been executed with.
+     *
+     * @return number of incoming messages
+     */
+    long getMessagesIn();
+
+    /**
+     * Returns the number of messages the module has emitted during execution.
+     *
+     * @return number of outgoing messages
+     */
+    long getMessagesOut();
+}
@@ -0,0 +1,62 @@
+package io.elastic.api;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.BiConsumer;
+
+/**
+ * {@link CompletableFuture} completed by running a {@link Callable}. If the future is completed
+ * by anyone else while the callable runs, for example because it has been cancelled or timed out,
+ * the thread running the callable is interrupted.
+ *
+ * @param <T> type of the result
+ */
+final class InterruptibleTask<T> extends CompletableFuture<T> implements Runnable {
+
+    private final Callable<T> callable;
+    private final Object runnerLock = new Object();
+    private Thread runner;
+
+    InterruptibleTask(final Callable<T> callable) {
+        this.callable = callable;
+        whenComplete(new BiConsumer<T, Throwable>() {
+            @Override
+            public void accept(final T result, final Throwable error) {
+                interruptRunner();
+            }
+        });
+    }
+
+    @Override
+    public void run() {
+        synchronized (runnerLock) {
+            if (isDone()) {
+                return;
+            }
+            runner = Thread.currentThread();
+        }
+
+        try {
+            complete(callable.call());
+        } catch (Exception e) {
+            completeExceptionally(e);
+        } catch (Error e) {
+            completeExceptionally(e);
+            throw e;
+        } finally {
+            synchronized (runnerLock) {
+                runner = null;
+            }
+            // do not leak an interrupt of the completed callable to the next task of the thread
+            Thread.interrupted();
+        }
+    }
+
+    private void interruptRunner() {
+        synchronized (runnerLock) {
+            if (runner != null && runner != Thread.currentThread()) {
+                runner.interrupt();
+            }
+        }
+    }
+}
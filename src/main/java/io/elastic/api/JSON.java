@@ -2,15 +2,37 @@ package io.elastic.api;
 
 
 import javax.json.*;
-import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.StringReader;
 import java.io.StringWriter;
-import java.util.concurrent.Callable;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
 
 /**
  * JSON utilities.
+ *
+ * <p>
+ * Besides the {@link String} based methods this class provides <i>read</i> and <i>write</i>
+ * methods working on {@link InputStream}, {@link Reader}, {@link ByteBuffer}, {@link OutputStream}
+ * and {@link WritableByteChannel}. These allow large payloads to be processed without
+ * materializing them as a {@link String}. Streams are always read and written as UTF-8
+ * and are never closed by this class.
+ * </p>
  */
 public final class JSON {
 
+    /**
+     * Canonical empty {@link JsonObject} used as default value for messages and execution parameters.
+     * JSON objects are immutable, so this instance can be shared safely.
+     */
+    static final JsonObject EMPTY_OBJECT = JsonFactories.getDefault().getBuilderFactory().createObjectBuilder().build();
+
     private JSON() {
 
     }
@@ -22,17 +44,60 @@ public final class JSON {
      * @return JsonObject
      */
     public static JsonObject parseObject(String input) {
-        final JsonReader reader = createReader(input);
+        if (input == null) {
+            return null;
+        }
+
+        return toJsonObject(new StringReader(input));
+    }
 
-        if (reader == null) {
+    /**
+     * Parses UTF-8 encoded JSON from an {@link InputStream} into a {@link JsonObject}.
+     *
+     * @since 2.1.1
+     *
+     * @param input stream to parse
+     * @return JsonObject
+     */
+    public static JsonObject readObject(InputStream input) {
+        if (input == null) {
             return null;
         }
 
-        try {
-            return reader.readObject();
-        } finally {
-            reader.close();
+        return toJsonObject(utf8(input));
+    }
+
+    /**
+     * Parses JSON from a {@link Reader} into a {@link JsonObject}.
+     *
+     * @since 2.1.1
+     *
+     * @param input reader to parse
+     * @return JsonObject
+     */
+    public static JsonObject readObject(Reader input) {
+        if (input == null) {
+            return null;
         }
+
+        return toJsonObject(Streams.nonClosing(input));
+    }
+
+    /**
+     * Parses the remaining UTF-8 encoded bytes of a {@link ByteBuffer} into a {@link JsonObject}.
+     * The buffer's position is not changed.
+     *
+     * @since 2.1.1
+     *
+     * @param input buffer to parse
+     * @return JsonObject
+     */
+    public static JsonObject readObject(ByteBuffer input) {
+        if (input == null) {
+            return null;
+        }
+
+        return toJsonObject(utf8(Streams.asInputStream(input)));
     }
 
     /**
@@ -42,28 +107,84 @@ public final class JSON {
      * @return JsonArray
      */
     public static JsonArray parseArray(String input) {
-        final JsonReader reader = createReader(input);
+        if (input == null) {
+            return null;
+        }
 
-        if (reader == null) {
+        return toJsonArray(new StringReader(input));
+    }
+
+    /**
+     * Parses UTF-8 encoded JSON from an {@link InputStream} into a {@link JsonArray}.
+     *
+     * @since 2.1.1
+     *
+     * @param input stream to parse
+     * @return JsonArray
+     */
+    public static JsonArray readArray(InputStream input) {
+        if (input == null) {
             return null;
         }
 
-        try {
-            return reader.readArray();
-        } finally {
-            reader.close();
+        return toJsonArray(utf8(input));
+    }
+
+    /**
+     * Parses JSON from a {@link Reader} into a {@link JsonArray}.
+     *
+     * @since 2.1.1
+     *
+     * @param input reader to parse
+     * @return JsonArray
+     */
+    public static JsonArray readArray(Reader input) {
+        if (input == null) {
+            return null;
         }
+
+        return toJsonArray(Streams.nonClosing(input));
     }
 
-    private static <T> JsonReader createReader(final String input) {
+    /**
+     * Parses the remaining UTF-8 encoded bytes of a {@link ByteBuffer} into a {@link JsonArray}.
+     * The buffer's position is not changed.
+     *
+     * @since 2.1.1
+     *
+     * @param input buffer to parse
+     * @return JsonArray
+     */
+    public static JsonArray readArray(ByteBuffer input) {
         if (input == null) {
             return null;
         }
 
-        final JsonReader reader = Json.createReader(
-                new ByteArrayInputStream(input.getBytes()));
+        return toJsonArray(utf8(Streams.asInputStream(input)));
+    }
+
+    private static JsonObject toJsonObject(final Reader input) {
+        final JsonReader reader = JsonFactories.getDefault().getReaderFactory().createReader(input);
 
-        return reader;
+        try {
+            return reader.readObject();
+        } finally {
+            reader.close();
+        }
+    }
+
+    private static JsonArray toJsonArray(final Reader input) {
+        final JsonReader reader = JsonFactories.getDefault().getReaderFactory().createReader(input);
+
+        try {
+            return reader.readArray();
+        } finally {
+            reader.close();
+        }
+    }
+
+    private static Reader utf8(final InputStream input) {
+        return new InputStreamReader(Streams.nonClosing(input), StandardCharsets.UTF_8);
     }
 
     /**
@@ -75,10 +196,60 @@ public final class JSON {
     public static String stringify(final JsonObject object) {
         final StringWriter writer = new StringWriter();
 
-        final JsonWriter jsonWriter = Json.createWriter(writer);
+        final JsonWriter jsonWriter = JsonFactories.getDefault().getWriterFactory().createWriter(writer);
         jsonWriter.writeObject(object);
         jsonWriter.close();
 
         return writer.toString();
     }
+
+    /**
+     * Writes a {@link JsonObject} as UTF-8 encoded JSON into an {@link OutputStream}.
+     * The stream is flushed but not closed.
+     *
+     * @since 2.1.1
+     *
+     * @param object object to write
+     * @param output stream to write to
+     */
+    public static void writeObject(final JsonObject object, final OutputStream output) {
+        if (output == null) {
+            throw new IllegalArgumentException("Output stream must not be null");
+        }
+
+        final JsonWriter jsonWriter = JsonFactories.getDefault().getWriterFactory()
+                .createWriter(Streams.nonClosing(output), StandardCharsets.UTF_8);
+        jsonWriter.writeObject(object);
+        jsonWriter.close();
+    }
+
+    /**
+     * Writes a {@link JsonObject} as UTF-8 encoded JSON into a byte array.
+     *
+     * @param object object to write
+     * @return UTF-8 encoded JSON
+     */
+    static byte[] toBytes(final JsonObject object) {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        writeObject(object, out);
+
+        return out.toByteArray();
+    }
+
+    /**
+     * Writes a {@link JsonObject} as UTF-8 encoded JSON into a {@link WritableByteChannel}.
+     * The channel is not closed.
+     *
+     * @since 2.1.1
+     *
+     * @param object object to write
+     * @param output channel to write to
+     */
+    public static void writeObject(final JsonObject object, final WritableByteChannel output) {
+        if (output == null) {
+            throw new IllegalArgumentException("Output channel must not be null");
+        }
+
+        writeObject(object, Channels.newOutputStream(output));
+    }
 }
@@ -0,0 +1,187 @@
+package io.elastic.api;
+
+
+import javax.json.JsonBuilderFactory;
+import javax.json.JsonReaderFactory;
+import javax.json.JsonWriterFactory;
+import javax.json.spi.JsonProvider;
+import javax.json.stream.JsonGeneratorFactory;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Holds the JSON factories used throughout this library.
+ *
+ * <p>
+ * The static methods of {@link javax.json.Json} look up a {@link JsonProvider}
+ * each time they are invoked. This class resolves a provider once and creates
+ * thread-safe factories from it, so that they can be shared by all messages
+ * processed by a component.
+ * </p>
+ *
+ * <p>
+ * The library uses the factories returned by {@link #getDefault()}. A component
+ * or runtime may replace them on startup, as shown in the following example.
+ * </p>
+ *
+ * <pre>
+ * {@code
+ *    JsonFactories.setDefault(new JsonFactories.Builder()
+ *            .config(JsonGenerator.PRETTY_PRINTING, true)
+ *            .build());
+ * }
+ * </pre>
+ *
+ * @since 2.1.1
+ */
+public final class JsonFactories {
+
+    private static volatile JsonFactories defaultFactories = new Builder().build();
+
+    private final JsonProvider provider;
+    private final Map<String, ?> config;
+    private final JsonReaderFactory readerFactory;
+    private final JsonWriterFactory writerFactory;
+    private final JsonBuilderFactory builderFactory;
+    private final JsonGeneratorFactory generatorFactory;
+
+    private JsonFactories(final JsonProvider provider, final Map<String, ?> config) {
+        this.provider = provider;
+        this.config = config;
+        this.readerFactory = provider.createReaderFactory(config);
+        this.writerFactory = provider.createWriterFactory(config);
+        this.builderFactory = provider.createBuilderFactory(config);
+        this.generatorFactory = provider.createGeneratorFactory(config);
+    }
+
+    /**
+     * Returns the factories used by this library.
+     *
+     * @return default factories
+     */
+    public static JsonFactories getDefault() {
+        return defaultFactories;
+    }
+
+    /**
+     * Replaces the factories used by this library.
+     *
+     * @param factories factories to use
+     */
+    public static void setDefault(final JsonFactories factories) {
+        if (factories == null) {
+            throw new IllegalArgumentException("JsonFactories must not be null");
+        }
+
+        defaultFactories = factories;
+    }
+
+    /**
+     * Returns the provider the factories were created from.
+     *
+     * @return provider
+     */
+    public JsonProvider getProvider() {
+        return provider;
+    }
+
+    /**
+     * Returns the configuration the factories were created with.
+     *
+     * @return unmodifiable configuration
+     */
+    public Map<String, ?> getConfig() {
+        return config;
+    }
+
+    /**
+     * Returns the shared {@link JsonReaderFactory}.
+     *
+     * @return reader factory
+     */
+    public JsonReaderFactory getReaderFactory() {
+        return readerFactory;
+    }
+
+    /**
+     * Returns the shared {@link JsonWriterFactory}.
+     *
+     * @return writer factory
+     */
+    public JsonWriterFactory getWriterFactory() {
+        return writerFactory;
+    }
+
+    /**
+     * Returns the shared {@link JsonBuilderFactory}.
+     *
+     * @return builder factory
+     */
+    public JsonBuilderFactory getBuilderFactory() {
+        return builderFactory;
+    }
+
+    /**
+     * Returns the shared {@link JsonGeneratorFactory}.
+     *
+     * @return generator factory
+     */
+    public JsonGeneratorFactory getGeneratorFactory() {
+        return generatorFactory;
+    }
+
+    /**
+     * Used to build {@link JsonFactories} instances.
+     */
+    public static final class Builder {
+        private JsonProvider provider;
+        private final Map<String, Object> config = new HashMap<String, Object>();
+
+        public Builder() {
+
+        }
+
+        /**
+         * Sets the provider to create the factories from. If not set,
+         * the provider is looked up using {@link JsonProvider#provider()}.
+         *
+         * @param provider provider to use
+         * @return this instance
+         */
+        public Builder provider(final JsonProvider provider) {
+            this.provider = provider;
+
+            return this;
+        }
+
+        /**
+         * Adds a configuration property passed to the factories,
+         * such as {@link javax.json.stream.JsonGenerator#PRETTY_PRINTING}.
+         *
+         * @param name  name of the property
+         * @param value value of the property
+         * @return this instance
+         */
+        public Builder config(final String name, final Object value) {
+            if (name == null) {
+                throw new IllegalArgumentException("Config property name must not be null");
+            }
+            this.config.put(name, value);
+
+            return this;
+        }
+
+        /**
+         * Builds a {@link JsonFactories} instance and returns it.
+         *
+         * @return JsonFactories
+         */
+        public JsonFactories build() {
+            final JsonProvider jsonProvider = this.provider == null ? JsonProvider.provider() : this.provider;
+
+            return new JsonFactories(jsonProvider,
+                    Collections.unmodifiableMap(new HashMap<String, Object>(this.config)));
+        }
+    }
+}
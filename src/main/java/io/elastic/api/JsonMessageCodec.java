@@ -0,0 +1,58 @@
+package io.elastic.api;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * {@link MessageCodec} using the JSON representation of a {@link Message}.
+ * Decoded messages are created with {@link Message#wrap(byte[])}, so their
+ * sections are parsed on first access.
+ *
+ * @since 2.1.1
+ */
+public final class JsonMessageCodec implements MessageCodec {
+
+    public static final String CONTENT_TYPE = "application/json";
+
+    private static final int BUFFER_SIZE = 8192;
+
+    @Override
+    public String getContentType() {
+        return CONTENT_TYPE;
+    }
+
+    @Override
+    public void encode(final Message message, final OutputStream out) throws IOException {
+        if (message == null) {
+            throw new IllegalArgumentException("Message must not be null");
+        }
+
+        message.writeTo(out);
+    }
+
+    /**
+     * Decodes a message from an {@link InputStream}. The stream is read until its end.
+     *
+     * @param in stream to read from
+     * @return decoded message
+     * @throws IOException if an I/O error occurs
+     * @throws javax.json.JsonException if the stream does not contain a valid message
+     */
+    @Override
+    public Message decode(final InputStream in) throws IOException {
+        if (in == null) {
+            throw new IllegalArgumentException("Input stream must not be null");
+        }
+
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream(Math.max(BUFFER_SIZE, in.available()));
+        final byte[] buffer = new byte[BUFFER_SIZE];
+        int count;
+        while ((count = in.read(buffer)) != -1) {
+            bytes.write(buffer, 0, count);
+        }
+
+        return Message.wrap(bytes.toByteArray());
+    }
+}
@@ -0,0 +1,229 @@
+package io.elastic.api;
+
+import javax.json.JsonArray;
+import javax.json.JsonNumber;
+import javax.json.JsonObject;
+import javax.json.JsonString;
+import javax.json.JsonValue;
+import java.math.BigDecimal;
+import java.util.Map;
+
+/**
+ * Structural hashing and equality of {@link JsonValue}s, for example to use configurations as cache keys.
+ *
+ * <p>
+ * Both walk the value tree directly instead of serializing it, so no intermediate
+ * {@link String} is created. Values are compared structurally: the order of object properties
+ * is ignored, the order of array items is not, and numbers are compared by their numeric value,
+ * so that <code>1</code>, <code>1.0</code> and <code>1E0</code> are equal. Values which are equal
+ * according to {@link #deepEquals(JsonValue, JsonValue)} have equal hashes.
+ * </p>
+ *
+ * <p>
+ * The hashes are not cryptographic. Use a keyed digest if hashes must not be predictable,
+ * for example when they are derived from credentials.
+ * </p>
+ *
+ * @since 2.1.1
+ */
+public final class JsonValues {
+
+    private static final long SEED = 0x9E3779B97F4A7C15L;
+    private static final long SECOND_SEED = 0xC2B2AE3D27D4EB4FL;
+
+    private static final long TAG_NULL = 0x1L;
+    private static final long TAG_TRUE = 0x2L;
+    private static final long TAG_FALSE = 0x3L;
+    private static final long TAG_NUMBER = 0x4L;
+    private static final long TAG_STRING = 0x5L;
+    private static final long TAG_ARRAY = 0x6L;
+    private static final long TAG_OBJECT = 0x7L;
+
+    private static final long FNV_PRIME = 0x100000001B3L;
+
+    private JsonValues() {
+
+    }
+
+    /**
+     * Returns a 64-bit structural hash of the given value.
+     *
+     * @param value value to hash
+     * @return hash
+     */
+    public static long hash64(final JsonValue value) {
+        if (value == null) {
+            throw new IllegalArgumentException("JSON value must not be null");
+        }
+
+        return hash(value, SEED);
+    }
+
+    /**
+     * Returns a 128-bit structural hash of the given value, computed as two independently
+     * seeded 64-bit hashes. The first element equals {@link #hash64(JsonValue)}.
+     *
+     * @param value value to hash
+     * @return array of two longs
+     */
+    public static long[] hash128(final JsonValue value) {
+        if (value == null) {
+            throw new IllegalArgumentException("JSON value must not be null");
+        }
+
+        return new long[]{hash(value, SEED), hash(value, SECOND_SEED)};
+    }
+
+    /**
+     * Compares the given values structurally.
+     *
+     * @param first  first value, may be null
+     * @param second second value, may be null
+     * @return true if both values are null or structurally equal
+     */
+    public static boolean deepEquals(final JsonValue first, final JsonValue second) {
+        if (first == second) {
+            return true;
+        }
+        if (first == null || second == null || first.getValueType() != second.getValueType()) {
+            return false;
+        }
+
+        switch (first.getValueType()) {
+            case NULL:
+            case TRUE:
+            case FALSE:
+                return true;
+            case NUMBER:
+                return numberEquals((JsonNumber) first, (JsonNumber) second);
+            case STRING:
+                return ((JsonString) first).getString().equals(((JsonString) second).getString());
+            case ARRAY:
+                return arrayEquals((JsonArray) first, (JsonArray) second);
+            case OBJECT:
+                return objectEquals((JsonObject) first, (JsonObject) second);
+            default:
+                throw new IllegalArgumentException("Unsupported JSON value type " + first.getValueType());
+        }
+    }
+
+    private static long hash(final JsonValue value, final long seed) {
+        switch (value.getValueType()) {
+            case NULL:
+                return mix(seed ^ TAG_NULL);
+            case TRUE:
+                return mix(seed ^ TAG_TRUE);
+            case FALSE:
+                return mix(seed ^ TAG_FALSE);
+            case NUMBER:
+                return mix(seed ^ TAG_NUMBER ^ numberHash((JsonNumber) value));
+            case STRING:
+                return mix(stringHash(((JsonString) value).getString(), seed ^ TAG_STRING));
+            case ARRAY:
+                return arrayHash((JsonArray) value, seed);
+            case OBJECT:
+                return objectHash((JsonObject) value, seed);
+            default:
+                throw new IllegalArgumentException("Unsupported JSON value type " + value.getValueType());
+        }
+    }
+
+    private static long arrayHash(final JsonArray array, final long seed) {
+        long hash = seed ^ TAG_ARRAY;
+        for (JsonValue item : array) {
+            hash = mix(hash + hash(item, seed));
+        }
+
+        return mix(hash ^ array.size());
+    }
+
+    private static long objectHash(final JsonObject object, final long seed) {
+        // properties are combined by addition, so their order does not matter
+        long sum = 0;
+        for (Map.Entry<String, JsonValue> entry : object.entrySet()) {
+            final long name = stringHash(entry.getKey(), seed);
+            sum += mix(name ^ Long.rotateLeft(hash(entry.getValue(), seed), 29));
+        }
+
+        return mix(seed ^ TAG_OBJECT ^ sum ^ ((long) object.size() << 32));
+    }
+
+    private static long stringHash(final String value, final long seed) {
+        long hash = seed;
+        final int length = value.length();
+        for (int i = 0; i < length; i++) {
+            hash = (hash ^ value.charAt(i)) * FNV_PRIME;
+        }
+
+        return hash ^ length;
+    }
+
+    private static long numberHash(final JsonNumber number) {
+        // integers within the range of long hash to their value, however they are written
+        if (number.isIntegral()) {
+            try {
+                return number.longValueExact();
+            } catch (ArithmeticException e) {
+                // hashed as big decimal below
+            }
+        }
+
+        // equal numbers of different scale, such as 1.0 and 1, share their stripped representation
+        final BigDecimal stripped = number.bigDecimalValue().stripTrailingZeros();
+        if (stripped.scale() <= 0) {
+            try {
+                return stripped.longValueExact();
+            } catch (ArithmeticException e) {
+                // hashed as big decimal below
+            }
+        }
+
+        return stripped.unscaledValue().hashCode() * 31L + stripped.scale();
+    }
+
+    private static boolean numberEquals(final JsonNumber first, final JsonNumber second) {
+        if (first.isIntegral() && second.isIntegral()) {
+            return first.bigIntegerValue().equals(second.bigIntegerValue());
+        }
+
+        return first.bigDecimalValue().compareTo(second.bigDecimalValue()) == 0;
+    }
+
+    private static boolean arrayEquals(final JsonArray first, final JsonArray second) {
+        final int size = first.size();
+        if (size != second.size()) {
+            return false;
+        }
+
+        for (int i = 0; i < size; i++) {
+            if (!deepEquals(first.get(i), second.get(i))) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private static boolean objectEquals(final JsonObject first, final JsonObject second) {
+        if (first.size() != second.size()) {
+            return false;
+        }
+
+        for (Map.Entry<String, JsonValue> entry : first.entrySet()) {
+            final JsonValue other = second.get(entry.getKey());
+            if (other == null || !deepEquals(entry.getValue(), other)) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private static long mix(final long value) {
+        long z = value;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,103 @@
+package io.elastic.api;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free histogram of non-negative values with logarithmic buckets.
+ *
+ * <p>
+ * Values below 16 are counted exactly. Larger values are counted in one of 8 linear
+ * sub-buckets per power of two, so a percentile is reported with a relative error
+ * of at most 12.5%. Recording a value is a single atomic increment.
+ * </p>
+ */
+final class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int LINEAR_LIMIT = 2 * SUB_BUCKETS;
+    private static final int MIN_EXPONENT = SUB_BUCKET_BITS + 1;
+    private static final int BUCKETS = LINEAR_LIMIT + (63 - MIN_EXPONENT) * SUB_BUCKETS;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+    private final LongAdder count = new LongAdder();
+
+    /**
+     * Records a value. Negative values are recorded as 0.
+     *
+     * @param value value to record
+     */
+    void record(final long value) {
+        buckets.incrementAndGet(indexOf(Math.max(0, value)));
+        count.increment();
+    }
+
+    /**
+     * Returns the number of recorded values.
+     *
+     * @return number of values
+     */
+    long getCount() {
+        return count.sum();
+    }
+
+    /**
+     * Returns the value below or at which the given percentage of the recorded values fall.
+     * Values recorded concurrently may or may not be taken into account.
+     *
+     * @param percentile percentile between 0 and 100
+     * @return upper bound of the bucket containing the percentile or 0 if no value is recorded
+     */
+    long getPercentile(final double percentile) {
+        if (percentile < 0 || percentile > 100) {
+            throw new IllegalArgumentException("Percentile must be between 0 and 100");
+        }
+
+        final long[] counts = new long[BUCKETS];
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] = buckets.get(i);
+            total += counts[i];
+        }
+
+        if (total == 0) {
+            return 0;
+        }
+
+        final long rank = Math.max(1, (long) Math.ceil(percentile / 100 * total));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return upperBoundOf(i);
+            }
+        }
+
+        return upperBoundOf(BUCKETS - 1);
+    }
+
+    static int indexOf(final long value) {
+        if (value < LINEAR_LIMIT) {
+            return (int) value;
+        }
+
+        final int exponent = 63 - Long.numberOfLeadingZeros(value);
+        final int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+
+        return LINEAR_LIMIT + (exponent - MIN_EXPONENT) * SUB_BUCKETS + subBucket;
+    }
+
+    static long upperBoundOf(final int index) {
+        if (index < LINEAR_LIMIT) {
+            return index;
+        }
+
+        final int exponent = (index - LINEAR_LIMIT) / SUB_BUCKETS + MIN_EXPONENT;
+        final int subBucket = (index - LINEAR_LIMIT) % SUB_BUCKETS;
+        final int shift = exponent - SUB_BUCKET_BITS;
+        final long lowerBound = (long) (SUB_BUCKETS + subBucket) << shift;
+
+        return lowerBound + (1L << shift) - 1;
+    }
+}
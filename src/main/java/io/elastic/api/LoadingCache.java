@@ -0,0 +1,285 @@
+package io.elastic.api;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Size-bounded cache whose entries expire a time after they have been loaded, which is
+ * given by an {@link Expiry} and may depend on the loaded value.
+ *
+ * <p>
+ * Entries are evicted in least recently used order once the maximum size is exceeded.
+ * A value is loaded by the first thread requesting it, while other threads requesting the
+ * same key wait for that load instead of loading it again. A failed load is not cached.
+ * </p>
+ *
+ * <p>
+ * If a stale period is given, an expired value is still returned during that period while
+ * a single refresh is run on the refresh executor. The refreshed value replaces the stale
+ * one once loaded. If the refresh fails, the stale value is returned until the next access
+ * triggers another refresh or the stale period ends.
+ * </p>
+ *
+ * @param <K> type of the keys
+ * @param <V> type of the values
+ */
+final class LoadingCache<K, V> {
+
+    private static final Logger logger = LoggerFactory.getLogger(LoadingCache.class);
+
+    private final Expiry<V> expiry;
+    private final long stalePeriodNanos;
+    private final Executor refreshExecutor;
+    private final Ticker ticker;
+    private final Map<K, CachedValue<V>> entries;
+
+    LoadingCache(final int maximumSize,
+                 final Expiry<V> expiry,
+                 final long stalePeriodNanos,
+                 final Executor refreshExecutor,
+                 final Ticker ticker) {
+        this.expiry = expiry;
+        this.stalePeriodNanos = stalePeriodNanos;
+        this.refreshExecutor = refreshExecutor;
+        this.ticker = ticker;
+        this.entries = new LinkedHashMap<K, CachedValue<V>>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<K, CachedValue<V>> eldest) {
+                return size() > maximumSize;
+            }
+        };
+    }
+
+    /**
+     * Returns the cached value of the given key, loading it with the given loader if absent or expired.
+     *
+     * @param key    key of the value
+     * @param loader loader of the value, invoked in the calling thread or on the refresh executor
+     * @return value
+     */
+    V get(final K key, final Loader<V> loader) {
+        final CachedValue<V> entry;
+        boolean load = false;
+        boolean refresh = false;
+
+        synchronized (entries) {
+            final long now = ticker.read();
+            final CachedValue<V> cached = entries.get(key);
+
+            if (cached == null || cached.isExpired(now, stalePeriodNanos)) {
+                entry = new CachedValue<V>();
+                entries.put(key, entry);
+                load = true;
+            } else {
+                entry = cached;
+                if (stalePeriodNanos > 0 && !entry.refreshing && entry.isExpired(now, 0)) {
+                    entry.refreshing = true;
+                    refresh = true;
+                }
+            }
+        }
+
+        if (load) {
+            return load(key, entry, loader);
+        }
+
+        if (refresh) {
+            refresh(key, entry, loader);
+        }
+
+        return await(entry);
+    }
+
+    /**
+     * Removes the value of the given key.
+     *
+     * @param key key of the value
+     */
+    void invalidate(final K key) {
+        synchronized (entries) {
+            entries.remove(key);
+        }
+    }
+
+    /**
+     * Removes all values.
+     */
+    void invalidateAll() {
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+
+    /**
+     * Returns the number of entries, including those being loaded and expired ones not yet removed.
+     *
+     * @return number of entries
+     */
+    int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    private V load(final K key, final CachedValue<V> entry, final Loader<V> loader) {
+        final V value;
+        try {
+            value = loader.load();
+        } catch (RuntimeException e) {
+            fail(key, entry, e);
+            throw e;
+        } catch (Error e) {
+            fail(key, entry, e);
+            throw e;
+        }
+
+        entry.loaded(value, ticker.read(), expiry.timeToLiveNanos(value));
+
+        return value;
+    }
+
+    private void fail(final K key, final CachedValue<V> entry, final Throwable cause) {
+        synchronized (entries) {
+            if (entries.get(key) == entry) {
+                entries.remove(key);
+            }
+        }
+        entry.future.completeExceptionally(cause);
+    }
+
+    private void refresh(final K key, final CachedValue<V> stale, final Loader<V> loader) {
+        final Runnable task = new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    final V value = loader.load();
+                    final CachedValue<V> refreshed = new CachedValue<V>();
+                    refreshed.loaded(value, ticker.read(), expiry.timeToLiveNanos(value));
+
+                    synchronized (entries) {
+                        if (entries.get(key) == stale) {
+                            entries.put(key, refreshed);
+                        }
+                    }
+                } catch (RuntimeException e) {
+                    logger.warn("Failed to refresh cached value, keeping stale value", e);
+                } finally {
+                    // allows the next access to refresh again if the stale value is still cached
+                    refreshed(stale);
+                }
+            }
+        };
+
+        try {
+            refreshExecutor.execute(task);
+        } catch (RejectedExecutionException e) {
+            logger.warn("Failed to schedule refresh of cached value, keeping stale value", e);
+            refreshed(stale);
+        }
+    }
+
+    private void refreshed(final CachedValue<V> stale) {
+        synchronized (entries) {
+            stale.refreshing = false;
+        }
+    }
+
+    private static <V> V await(final CachedValue<V> entry) {
+        boolean interrupted = false;
+        try {
+            while (true) {
+                try {
+                    return entry.future.get();
+                } catch (InterruptedException e) {
+                    // the loading thread completes the future in any case
+                    interrupted = true;
+                } catch (ExecutionException e) {
+                    final Throwable cause = e.getCause();
+                    if (cause instanceof RuntimeException) {
+                        throw (RuntimeException) cause;
+                    }
+                    if (cause instanceof Error) {
+                        throw (Error) cause;
+                    }
+                    throw new IllegalStateException("Failed to load cached value", cause);
+                }
+            }
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Loads a value missing in the cache.
+     *
+     * @param <V> type of the value
+     */
+    interface Loader<V> {
+
+        V load();
+    }
+
+    /**
+     * Determines how long a loaded value is cached.
+     *
+     * @param <V> type of the value
+     */
+    interface Expiry<V> {
+
+        /**
+         * Returns the time to live of the given value.
+         *
+         * @param value loaded value
+         * @return time to live in nanoseconds, zero if the value must not be cached
+         */
+        long timeToLiveNanos(V value);
+    }
+
+    /**
+     * Source of the current time in nanoseconds.
+     */
+    interface Ticker {
+
+        Ticker SYSTEM = new Ticker() {
+            @Override
+            public long read() {
+                return System.nanoTime();
+            }
+        };
+
+        long read();
+    }
+
+    private static final class CachedValue<V> {
+        private final CompletableFuture<V> future = new CompletableFuture<V>();
+        private volatile long loadedAt;
+        private volatile long timeToLiveNanos;
+        // guarded by the entries of the cache
+        private boolean refreshing;
+
+        private void loaded(final V value, final long loadedAt, final long timeToLiveNanos) {
+            this.loadedAt = loadedAt;
+            this.timeToLiveNanos = timeToLiveNanos;
+            future.complete(value);
+        }
+
+        private boolean isExpired(final long now, final long gracePeriodNanos) {
+            if (!future.isDone()) {
+                return false;
+            }
+
+            final long lifetime = timeToLiveNanos + gracePeriodNanos;
+
+            return now - loadedAt >= (lifetime < 0 ? Long.MAX_VALUE : lifetime);
+        }
+    }
+}
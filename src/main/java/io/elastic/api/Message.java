@@ -1,11 +1,20 @@
 package io.elastic.api;
 
 
-import javax.json.Json;
+import javax.json.JsonException;
 import javax.json.JsonObject;
-import javax.json.JsonWriter;
+import javax.json.stream.JsonGenerator;
+import java.io.Externalizable;
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.io.ObjectInput;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutput;
+import java.io.OutputStream;
 import java.io.Serializable;
 import java.io.StringWriter;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.util.UUID;
 
 /**
@@ -39,6 +48,14 @@ import java.util.UUID;
  *    Message message = new Message.Builder().body(body).build();
  * }
  * </pre>
+ *
+ * <p>
+ *
+ * A message is serialized in a compact form consisting of its id as two longs and
+ * its sections as UTF-8 encoded JSON. Sections of a deserialized message are parsed
+ * on first access, like those of a message created by {@link #wrap(byte[])}.
+ * Messages may be shared between threads. If threads access a section which has
+ * not been parsed yet concurrently, it may be parsed more than once.
  */
 public class Message implements Serializable {
 
@@ -50,11 +67,21 @@ public class Message implements Serializable {
     public static final String PROPERTY_ATTACHMENTS = "attachments";
     public static final String PROPERTY_PASSTHROUGH = "passthrough";
 
+    /**
+     * Maximum number of bytes of JSON in the serialized form of a message or of other serialized
+     * objects of this library, so that a corrupt stream does not cause a large allocation.
+     */
+    static final int MAX_SERIALIZED_LENGTH = 256 * 1024 * 1024;
+
+    private static volatile MessageIdGenerator defaultIdGenerator = StandardMessageIdGenerator.RANDOM;
+
     private UUID id;
-    private JsonObject headers;
-    private JsonObject body;
-    private JsonObject attachments;
-    private JsonObject passthrough;
+    // sections of a wrapped or deserialized message are parsed by the first thread reading them
+    private volatile JsonObject headers;
+    private volatile JsonObject body;
+    private volatile JsonObject attachments;
+    private volatile JsonObject passthrough;
+    private RawMessage raw;
 
     /**
      * Creates a message with headers, body and attachments.
@@ -98,6 +125,131 @@ public class Message implements Serializable {
         this.passthrough = passthrough;
     }
 
+    /**
+     * Creates a message whose sections are parsed from the given raw message on first access.
+     *
+     * @param id  id of the message
+     * @param raw raw message
+     */
+    private Message(final UUID id, final RawMessage raw) {
+
+        if (id == null) {
+            throw new IllegalArgumentException("Message id must not be null");
+        }
+
+        this.id = id;
+        this.raw = raw;
+    }
+
+    /**
+     * Creates a message from UTF-8 encoded JSON without parsing its sections.
+     * Only the id is read immediately. Headers, body, attachments and passthrough
+     * are parsed when their getter is called for the first time. Missing sections
+     * are represented as empty JSON objects.
+     *
+     * <p>
+     * {@link #toString()} copies the original JSON of the sections, so a message
+     * which is only passed through never has its sections parsed. The given array
+     * is not copied and must not be modified afterwards.
+     * </p>
+     *
+     * @since 2.1.1
+     *
+     * @param json UTF-8 encoded JSON representation of a message
+     * @return message
+     * @throws javax.json.JsonException if the given bytes are not a JSON object,
+     *                                  any section is not a JSON object or the id
+     *                                  is missing or not a UUID
+     */
+    public static Message wrap(final byte[] json) {
+        if (json == null) {
+            throw new IllegalArgumentException("Message JSON must not be null");
+        }
+
+        return wrap(json, 0, json.length);
+    }
+
+    /**
+     * Creates a message from a region of an array containing UTF-8 encoded JSON
+     * without parsing its sections.
+     *
+     * @since 2.1.1
+     *
+     * @param json   array containing the UTF-8 encoded JSON representation of a message
+     * @param offset offset of the JSON in the array
+     * @param length length of the JSON
+     * @return message
+     * @throws javax.json.JsonException if the given bytes are not a JSON object,
+     *                                  any section is not a JSON object or the id
+     *                                  is missing or not a UUID
+     * @see #wrap(byte[])
+     */
+    public static Message wrap(final byte[] json, final int offset, final int length) {
+        if (json == null) {
+            throw new IllegalArgumentException("Message JSON must not be null");
+        }
+
+        final RawMessage raw = RawMessage.scan(json, offset, length);
+
+        return new Message(raw.getId(), raw);
+    }
+
+    /**
+     * Creates a message from the remaining bytes of a {@link ByteBuffer} containing
+     * UTF-8 encoded JSON without parsing its sections. Array-backed buffers are not copied.
+     * The buffer's position is not changed.
+     *
+     * @since 2.1.1
+     *
+     * @param json buffer containing the UTF-8 encoded JSON representation of a message
+     * @return message
+     * @throws javax.json.JsonException if the given bytes are not a JSON object,
+     *                                  any section is not a JSON object or the id
+     *                                  is missing or not a UUID
+     * @see #wrap(byte[])
+     */
+    public static Message wrap(final ByteBuffer json) {
+        if (json == null) {
+            throw new IllegalArgumentException("Message JSON must not be null");
+        }
+
+        if (json.hasArray()) {
+            return wrap(json.array(), json.arrayOffset() + json.position(), json.remaining());
+        }
+
+        final byte[] bytes = new byte[json.remaining()];
+        json.duplicate().get(bytes);
+
+        return wrap(bytes);
+    }
+
+    /**
+     * Returns the {@link MessageIdGenerator} used by {@link Builder}s for which no generator is set.
+     *
+     * @since 2.1.1
+     *
+     * @return default id generator
+     */
+    public static MessageIdGenerator getDefaultIdGenerator() {
+        return defaultIdGenerator;
+    }
+
+    /**
+     * Sets the {@link MessageIdGenerator} used by {@link Builder}s for which no generator is set.
+     * Defaults to {@link StandardMessageIdGenerator#RANDOM}.
+     *
+     * @since 2.1.1
+     *
+     * @param generator id generator to use
+     */
+    public static void setDefaultIdGenerator(final MessageIdGenerator generator) {
+        if (generator == null) {
+            throw new IllegalArgumentException("Message id generator must not be null");
+        }
+
+        defaultIdGenerator = generator;
+    }
+
     /**
      * Returns message id.
      *
@@ -113,7 +265,13 @@ public class Message implements Serializable {
      * @return headers
      */
     public JsonObject getHeaders() {
-        return headers;
+        JsonObject result = headers;
+        if (result == null) {
+            result = raw.parse(RawMessage.HEADERS);
+            headers = result;
+        }
+
+        return result;
     }
 
     /**
@@ -122,7 +280,13 @@ public class Message implements Serializable {
      * @return body
      */
     public JsonObject getBody() {
-        return body;
+        JsonObject result = body;
+        if (result == null) {
+            result = raw.parse(RawMessage.BODY);
+            body = result;
+        }
+
+        return result;
     }
 
     /**
@@ -131,7 +295,13 @@ public class Message implements Serializable {
      * @return attachments
      */
     public JsonObject getAttachments() {
-        return attachments;
+        JsonObject result = attachments;
+        if (result == null) {
+            result = raw.parse(RawMessage.ATTACHMENTS);
+            attachments = result;
+        }
+
+        return result;
     }
 
     /**
@@ -140,7 +310,13 @@ public class Message implements Serializable {
      * @return passthrough
      */
     public JsonObject getPassthrough() {
-        return passthrough;
+        JsonObject result = passthrough;
+        if (result == null) {
+            result = raw.parse(RawMessage.PASSTHROUGH);
+            passthrough = result;
+        }
+
+        return result;
     }
 
     /**
@@ -149,24 +325,218 @@ public class Message implements Serializable {
      * @return message as JSON object
      */
     public JsonObject toJsonObject() {
-        return Json.createObjectBuilder()
+        return JsonFactories.getDefault().getBuilderFactory().createObjectBuilder()
                 .add(PROPERTY_ID, id.toString())
-                .add(PROPERTY_HEADERS, headers)
-                .add(PROPERTY_BODY, body)
-                .add(PROPERTY_ATTACHMENTS, attachments)
-                .add(PROPERTY_PASSTHROUGH, passthrough)
+                .add(PROPERTY_HEADERS, getHeaders())
+                .add(PROPERTY_BODY, getBody())
+                .add(PROPERTY_ATTACHMENTS, getAttachments())
+                .add(PROPERTY_PASSTHROUGH, getPassthrough())
                 .build();
     }
 
+    /**
+     * Writes this message as UTF-8 encoded JSON into an {@link OutputStream}. The id and
+     * the sections are streamed directly without building an intermediate {@link JsonObject}.
+     * Sections of a message created by {@link #wrap(byte[])} are copied from the original bytes.
+     * The stream is flushed but not closed.
+     *
+     * @since 2.1.1
+     *
+     * @param out stream to write to
+     * @throws javax.json.JsonException if an I/O error occurs
+     */
+    public void writeTo(final OutputStream out) {
+        if (out == null) {
+            throw new IllegalArgumentException("Output stream must not be null");
+        }
+
+        if (raw == null) {
+            final JsonGenerator generator = JsonFactories.getDefault().getGeneratorFactory()
+                    .createGenerator(Streams.nonClosing(out), StandardCharsets.UTF_8);
+            write(generator);
+            generator.close();
+            return;
+        }
+
+        try {
+            writeRaw(out);
+            out.flush();
+        } catch (IOException e) {
+            throw new JsonException("I/O error while writing message", e);
+        }
+    }
+
+    /**
+     * Writes this message as UTF-8 encoded JSON into a {@link ByteBuffer}, starting at
+     * the buffer's position. On return the position is advanced past the written bytes.
+     *
+     * @since 2.1.1
+     *
+     * @param buffer buffer to write to
+     * @throws java.nio.BufferOverflowException if the message does not fit into the buffer
+     * @see #writeTo(OutputStream)
+     */
+    public void writeTo(final ByteBuffer buffer) {
+        if (buffer == null) {
+            throw new IllegalArgumentException("Buffer must not be null");
+        }
+
+        writeTo(Streams.asOutputStream(buffer));
+    }
+
     @Override
     public String toString() {
-        final JsonObject json = toJsonObject();
-        final StringWriter writer = new StringWriter();
-        final JsonWriter jsonWriter = Json.createWriter(writer);
-        jsonWriter.writeObject(json);
-        jsonWriter.close();
+        if (raw == null) {
+            final StringWriter writer = new StringWriter();
+            final JsonGenerator generator = JsonFactories.getDefault().getGeneratorFactory().createGenerator(writer);
+            write(generator);
+            generator.close();
+
+            return writer.toString();
+        }
+
+        final StringBuilder builder = new StringBuilder("{\"")
+                .append(PROPERTY_ID).append("\":\"").append(id).append('"');
+        appendSection(builder, PROPERTY_HEADERS, RawMessage.HEADERS);
+        appendSection(builder, PROPERTY_BODY, RawMessage.BODY);
+        appendSection(builder, PROPERTY_ATTACHMENTS, RawMessage.ATTACHMENTS);
+        appendSection(builder, PROPERTY_PASSTHROUGH, RawMessage.PASSTHROUGH);
+
+        return builder.append('}').toString();
+    }
+
+    private void write(final JsonGenerator generator) {
+        generator.writeStartObject()
+                .write(PROPERTY_ID, id.toString())
+                .write(PROPERTY_HEADERS, getHeaders())
+                .write(PROPERTY_BODY, getBody())
+                .write(PROPERTY_ATTACHMENTS, getAttachments())
+                .write(PROPERTY_PASSTHROUGH, getPassthrough())
+                .writeEnd();
+    }
+
+    private void appendSection(final StringBuilder builder, final String name, final int section) {
+        builder.append(",\"").append(name).append("\":");
+        raw.appendTo(section, builder);
+    }
+
+    private void writeRaw(final OutputStream out) throws IOException {
+        out.write(ascii("{\"" + PROPERTY_ID + "\":\"" + id + "\""));
+        writeRawSection(out, PROPERTY_HEADERS, RawMessage.HEADERS);
+        writeRawSection(out, PROPERTY_BODY, RawMessage.BODY);
+        writeRawSection(out, PROPERTY_ATTACHMENTS, RawMessage.ATTACHMENTS);
+        writeRawSection(out, PROPERTY_PASSTHROUGH, RawMessage.PASSTHROUGH);
+        out.write('}');
+    }
+
+    private void writeRawSection(final OutputStream out, final String name, final int section) throws IOException {
+        out.write(ascii(",\"" + name + "\":"));
+        raw.writeTo(section, out);
+    }
+
+    private static byte[] ascii(final String value) {
+        return value.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    private Object writeReplace() {
+        return new SerializationProxy(this);
+    }
+
+    private void readObject(final ObjectInputStream in) throws InvalidObjectException {
+        throw new InvalidObjectException("Message must be deserialized through its serialization proxy");
+    }
+
+    /**
+     * Serialized form of a {@link Message}. Messages whose sections exceed {@link #MAX_SERIALIZED_LENGTH}
+     * bytes in total are rejected, both when serialized and when deserialized.
+     */
+    private static final class SerializationProxy implements Externalizable {
+
+        private static final long serialVersionUID = 1L;
+
+        private static final int VERSION = 1;
+        private static final int SECTIONS = 4;
+
+        private Message message;
+
+        /**
+         * Used by deserialization.
+         */
+        public SerializationProxy() {
+
+        }
+
+        private SerializationProxy(final Message message) {
+            this.message = message;
+        }
+
+        @Override
+        public void writeExternal(final ObjectOutput out) throws IOException {
+            final byte[][] sections = message.raw == null ? new byte[][]{
+                    JSON.toBytes(message.headers),
+                    JSON.toBytes(message.body),
+                    JSON.toBytes(message.attachments),
+                    JSON.toBytes(message.passthrough)
+            } : null;
+
+            final int[] lengths = new int[SECTIONS];
+            long total = 0;
+            for (int section = 0; section < SECTIONS; section++) {
+                lengths[section] = sections == null ? message.raw.length(section) : sections[section].length;
+                total += lengths[section];
+            }
+            checkLength(total);
+
+            out.writeByte(VERSION);
+            out.writeLong(message.id.getMostSignificantBits());
+            out.writeLong(message.id.getLeastSignificantBits());
+            for (int length : lengths) {
+                out.writeInt(length);
+            }
+            for (int section = 0; section < SECTIONS; section++) {
+                if (sections == null) {
+                    message.raw.writeTo(section, out);
+                } else {
+                    out.write(sections[section]);
+                }
+            }
+        }
+
+        @Override
+        public void readExternal(final ObjectInput in) throws IOException {
+            final int version = in.readUnsignedByte();
+            if (version != VERSION) {
+                throw new InvalidObjectException("Unsupported message serialization version " + version);
+            }
+
+            final UUID id = new UUID(in.readLong(), in.readLong());
+
+            final int[] lengths = new int[SECTIONS];
+            long total = 0;
+            for (int section = 0; section < SECTIONS; section++) {
+                lengths[section] = in.readInt();
+                if (lengths[section] < 0) {
+                    throw new InvalidObjectException("Invalid message section length " + lengths[section]);
+                }
+                total += lengths[section];
+            }
+            checkLength(total);
+
+            final byte[] buffer = Streams.readFully(in, (int) total);
+
+            this.message = new Message(id, RawMessage.ofSections(buffer, lengths));
+        }
 
-        return writer.toString();
+        private static void checkLength(final long total) throws InvalidObjectException {
+            if (total > MAX_SERIALIZED_LENGTH) {
+                throw new InvalidObjectException("Message of " + total + " bytes exceeds the maximum of "
+                        + MAX_SERIALIZED_LENGTH + " bytes");
+            }
+        }
+
+        private Object readResolve() {
+            return message;
+        }
     }
 
     /**
@@ -174,20 +544,22 @@ public class Message implements Serializable {
      */
     public static final class Builder {
         private UUID id;
+        private boolean idAssigned;
+        private MessageIdGenerator idGenerator;
         private JsonObject headers;
         private JsonObject body;
         private JsonObject attachments;
         private JsonObject passthrough;
 
         /**
-         * Default constructor.
+         * Default constructor. Headers, body, attachments and passthrough default to
+         * an empty JSON object. If no id is set, one is generated on {@link #build()}.
          */
         public Builder() {
-            this.id = UUID.randomUUID();
-            this.headers = Json.createObjectBuilder().build();
-            this.body = Json.createObjectBuilder().build();
-            this.attachments = Json.createObjectBuilder().build();
-            this.passthrough = Json.createObjectBuilder().build();
+            this.headers = JSON.EMPTY_OBJECT;
+            this.body = JSON.EMPTY_OBJECT;
+            this.attachments = JSON.EMPTY_OBJECT;
+            this.passthrough = JSON.EMPTY_OBJECT;
         }
 
         /**
@@ -199,6 +571,26 @@ public class Message implements Serializable {
         public Builder id(final UUID id) {
 
             this.id = id;
+            this.idAssigned = true;
+
+            return this;
+        }
+
+        /**
+         * Sets the generator used to create the message id if no id is set.
+         * Defaults to {@link Message#getDefaultIdGenerator()}.
+         *
+         * @since 2.1.1
+         *
+         * @param idGenerator generator for the message id
+         * @return same builder instance
+         */
+        public Builder idGenerator(final MessageIdGenerator idGenerator) {
+            if (idGenerator == null) {
+                throw new IllegalArgumentException("Message id generator must not be null");
+            }
+
+            this.idGenerator = idGenerator;
 
             return this;
         }
@@ -259,7 +651,15 @@ public class Message implements Serializable {
          * @return Message
          */
         public Message build() {
-            return new Message(this.id, this.headers, this.body, this.attachments, this.passthrough);
+            final UUID messageId = this.idAssigned ? this.id : nextId();
+
+            return new Message(messageId, this.headers, this.body, this.attachments, this.passthrough);
+        }
+
+        private UUID nextId() {
+            final MessageIdGenerator generator = this.idGenerator == null ? defaultIdGenerator : this.idGenerator;
+
+            return generator.nextId();
         }
     }
 }
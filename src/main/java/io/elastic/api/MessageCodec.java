@@ -0,0 +1,44 @@
+package io.elastic.api;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Encodes {@link Message}s to and decodes them from a wire format.
+ *
+ * <p>
+ * Implementations must be thread-safe. The library provides {@link JsonMessageCodec}
+ * producing the JSON representation used by the elastic.io platform and
+ * {@link CborMessageCodec} producing a compact binary representation.
+ * </p>
+ *
+ * @since 2.1.1
+ */
+public interface MessageCodec {
+
+    /**
+     * Returns the media type of the encoded messages.
+     *
+     * @return media type, such as <i>application/json</i>
+     */
+    String getContentType();
+
+    /**
+     * Encodes a message into an {@link OutputStream}. The stream is flushed but not closed.
+     *
+     * @param message message to encode
+     * @param out     stream to write to
+     * @throws IOException if an I/O error occurs
+     */
+    void encode(Message message, OutputStream out) throws IOException;
+
+    /**
+     * Decodes a message from an {@link InputStream}. The stream is not closed.
+     *
+     * @param in stream to read from
+     * @return decoded message
+     * @throws IOException if an I/O error occurs or the stream does not contain a valid message
+     */
+    Message decode(InputStream in) throws IOException;
+}
@@ -0,0 +1,21 @@
+package io.elastic.api;
+
+import java.util.UUID;
+
+/**
+ * Strategy used by {@link Message.Builder} to generate ids for messages
+ * built without an explicit id.
+ *
+ * @since 2.1.1
+ *
+ * @see StandardMessageIdGenerator
+ */
+public interface MessageIdGenerator {
+
+    /**
+     * Generates a new message id. Implementations must be thread-safe.
+     *
+     * @return new id, never null
+     */
+    UUID nextId();
+}
@@ -0,0 +1,265 @@
+package io.elastic.api;
+
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * {@link Publisher} of the data emitted by a {@link Module}.
+ *
+ * <p>
+ * The publisher is registered as {@link EventEmitter.DataCallback} of an {@link EventEmitter}
+ * and passes the emitted messages to a single {@link Subscriber} as requested by it. Up to the
+ * given capacity of messages are buffered while the subscriber has no demand. Once the buffer is
+ * full, emitting blocks until the subscriber requests more messages, so a fast component is slowed
+ * down to the pace of its subscriber instead of buffering all of its output in memory. Messages
+ * emitted after the subscriber cancelled its subscription are discarded.
+ * </p>
+ *
+ * <p>
+ * The runtime calls {@link #complete()} once {@link Module#execute(ExecutionParameters)} returned,
+ * or {@link #fail(Throwable)} if it failed, which is signalled to the subscriber once all
+ * buffered messages have been passed to it.
+ * </p>
+ *
+ * <pre>
+ * {@code
+ *    MessagePublisher publisher = new MessagePublisher(16);
+ *    publisher.subscribe(subscriber);
+ *
+ *    EventEmitter emitter = new EventEmitter.Builder()
+ *            .dataCallback(publisher)
+ *            ...
+ *            .build();
+ *
+ *    module.execute(new ExecutionParameters.Builder(message, emitter).build());
+ *    publisher.complete();
+ * }
+ * </pre>
+ *
+ * @since 2.1.1
+ */
+public final class MessagePublisher implements Publisher<Message>, EventEmitter.DataCallback {
+
+    private final int capacity;
+    private final Queue<Message> queue = new ArrayDeque<Message>();
+    private final Object lock = new Object();
+    private final AtomicBoolean subscribed = new AtomicBoolean();
+    private final AtomicInteger wip = new AtomicInteger();
+    private final AtomicLong requested = new AtomicLong();
+    private volatile Subscriber<? super Message> subscriber;
+    private volatile boolean cancelled;
+    private volatile IllegalArgumentException invalidRequest;
+    private boolean done;
+    private Throwable error;
+
+    /**
+     * Creates a publisher.
+     *
+     * @param capacity maximum number of messages buffered while the subscriber has no demand
+     */
+    public MessagePublisher(final int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity must be positive");
+        }
+        this.capacity = capacity;
+    }
+
+    @Override
+    public void subscribe(final Subscriber<? super Message> subscriber) {
+        if (subscriber == null) {
+            throw new NullPointerException("Subscriber must not be null");
+        }
+
+        if (!subscribed.compareAndSet(false, true)) {
+            subscriber.onSubscribe(new Subscription() {
+                @Override
+                public void request(final long n) {
+                    // already failed
+                }
+
+                @Override
+                public void cancel() {
+                    // already failed
+                }
+            });
+            subscriber.onError(new IllegalStateException("MessagePublisher allows only one subscriber"));
+            return;
+        }
+
+        subscriber.onSubscribe(new MessageSubscription());
+        this.subscriber = subscriber;
+        drain();
+    }
+
+    /**
+     * Passes an emitted message to the subscriber or buffers it. Blocks while the buffer is full.
+     *
+     * @param message emitted message
+     * @throws RejectedEventException if interrupted while waiting for buffer space
+     */
+    @Override
+    public void receive(final Message message) {
+        if (message == null) {
+            throw new IllegalArgumentException("Message must not be null");
+        }
+
+        synchronized (lock) {
+            if (done) {
+                throw new IllegalStateException("MessagePublisher is already completed");
+            }
+
+            while (!cancelled && queue.size() >= capacity) {
+                try {
+                    lock.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new RejectedEventException("Interrupted while emitting data", e);
+                }
+            }
+
+            if (cancelled) {
+                return;
+            }
+
+            queue.add(message);
+        }
+
+        drain();
+    }
+
+    /**
+     * Signals the subscriber that no more messages will be emitted.
+     */
+    public void complete() {
+        terminate(null);
+    }
+
+    /**
+     * Signals the subscriber that emitting messages failed.
+     *
+     * @param error cause of the failure
+     */
+    public void fail(final Throwable error) {
+        if (error == null) {
+            throw new IllegalArgumentException("Error must not be null");
+        }
+
+        terminate(error);
+    }
+
+    private void terminate(final Throwable error) {
+        synchronized (lock) {
+            if (done) {
+                return;
+            }
+            this.done = true;
+            this.error = error;
+        }
+
+        drain();
+    }
+
+    private void drain() {
+        if (wip.getAndIncrement() != 0) {
+            return;
+        }
+
+        int missed = 1;
+        do {
+            final Subscriber<? super Message> current = subscriber;
+            if (current != null) {
+                drainTo(current);
+            }
+
+            missed = wip.addAndGet(-missed);
+        } while (missed != 0);
+    }
+
+    private void drainTo(final Subscriber<? super Message> current) {
+        while (!cancelled) {
+            if (invalidRequest != null) {
+                cancel();
+                current.onError(invalidRequest);
+                return;
+            }
+
+            Message next = null;
+            final boolean terminated;
+            final Throwable cause;
+
+            synchronized (lock) {
+                terminated = done && queue.isEmpty();
+                cause = error;
+                if (!terminated && requested.get() > 0) {
+                    next = queue.poll();
+                    if (next != null) {
+                        lock.notifyAll();
+                    }
+                }
+            }
+
+            if (terminated) {
+                cancel();
+                if (cause == null) {
+                    current.onComplete();
+                } else {
+                    current.onError(cause);
+                }
+                return;
+            }
+
+            if (next == null) {
+                return;
+            }
+
+            if (requested.get() != Long.MAX_VALUE) {
+                requested.decrementAndGet();
+            }
+            current.onNext(next);
+        }
+    }
+
+    private void cancel() {
+        cancelled = true;
+        subscriber = null;
+
+        synchronized (lock) {
+            queue.clear();
+            lock.notifyAll();
+        }
+    }
+
+    private final class MessageSubscription implements Subscription {
+
+        @Override
+        public void request(final long n) {
+            if (n <= 0) {
+                invalidRequest = new IllegalArgumentException("Requested number of messages must be positive, got " + n);
+            } else {
+                long current;
+                long updated;
+                do {
+                    current = requested.get();
+                    updated = current + n;
+                    if (updated < 0) {
+                        updated = Long.MAX_VALUE;
+                    }
+                } while (!requested.compareAndSet(current, updated));
+            }
+
+            drain();
+        }
+
+        @Override
+        public void cancel() {
+            MessagePublisher.this.cancel();
+        }
+    }
+}
@@ -1,7 +1,6 @@
 package io.elastic.api;
 
 
-import javax.json.Json;
 import javax.json.JsonObject;
 
 /**
@@ -100,7 +99,7 @@ public interface Module {
      * @return JSON object to be persisted or null
      */
     default JsonObject startup(final JsonObject configuration) {
-        return Json.createObjectBuilder().build();
+        return JSON.EMPTY_OBJECT;
     }
 
     /**
@@ -0,0 +1,400 @@
+package io.elastic.api;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.json.JsonObject;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link Module} keeping initialized instances of a component for reuse across executions.
+ *
+ * <p>
+ * Instances are pooled per configuration, keyed by the structural hash of the configuration
+ * as computed by {@link JsonValues}. An execution takes an idle instance created for its
+ * configuration, or creates a new one and initializes it using {@link Module#init(JsonObject)},
+ * and returns the instance to the pool once done. So the cost of <i>init</i>, such as opening
+ * connections or loading schemas, is paid once per instance instead of once per execution.
+ * Each instance is used by one execution at a time. An instance whose execution threw an
+ * exception is discarded, as its state is unknown.
+ * </p>
+ *
+ * <p>
+ * The result of {@link Module#startup(JsonObject)} is computed once per configuration and
+ * returned for subsequent invocations with an equal configuration. Following the lifecycle
+ * of {@link Module}, it is computed by a new instance which has not been initialized, and
+ * which is torn down afterwards instead of being pooled.
+ * </p>
+ *
+ * <p>
+ * The number of idle instances is bounded. Once it is exceeded, the instance which has been idle
+ * the longest is torn down. Instances idle for longer than the idle timeout are torn down on
+ * the next access to the pool or by {@link #evictIdle()}, which a host may invoke periodically.
+ * Instances implementing {@link AutoCloseable} are closed when torn down.
+ * </p>
+ *
+ * <pre>
+ * {@code
+ *    ModulePool pool = new ModulePool.Builder(new ModulePool.ModuleFactory() {
+ *                public Module create() {
+ *                    return new DatabaseQueryComponent();
+ *                }
+ *            })
+ *            .maximumIdle(32)
+ *            .idleTimeout(5, TimeUnit.MINUTES)
+ *            .build();
+ *
+ *    pool.execute(parameters);
+ *    ...
+ *    pool.close();
+ * }
+ * </pre>
+ *
+ * @since 2.1.1
+ */
+public final class ModulePool implements Module, AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(ModulePool.class);
+
+    private final ModuleFactory factory;
+    private final int maximumIdle;
+    private final long idleTimeoutNanos;
+    private final LoadingCache.Ticker ticker;
+    private final LoadingCache<ConfigurationKey, JsonObject> startupResults;
+    // ordered by the time the instances have been returned, the longest idle first
+    private final LinkedList<PooledModule> idle = new LinkedList<PooledModule>();
+    private boolean closed;
+
+    private ModulePool(final ModuleFactory factory,
+                       final int maximumIdle,
+                       final long idleTimeoutNanos,
+                       final int maximumStartupResults,
+                       final LoadingCache.Ticker ticker) {
+        this.factory = factory;
+        this.maximumIdle = maximumIdle;
+        this.idleTimeoutNanos = idleTimeoutNanos;
+        this.ticker = ticker;
+        this.startupResults = new LoadingCache<ConfigurationKey, JsonObject>(maximumStartupResults,
+                new LoadingCache.Expiry<JsonObject>() {
+                    @Override
+                    public long timeToLiveNanos(final JsonObject value) {
+                        return Long.MAX_VALUE;
+                    }
+                }, 0, null, ticker);
+    }
+
+    @Override
+    public void execute(final ExecutionParameters parameters) {
+        final PooledModule pooled = acquire(parameters.getConfiguration());
+
+        boolean succeeded = false;
+        try {
+            pooled.module.execute(parameters);
+            succeeded = true;
+        } finally {
+            if (succeeded) {
+                release(pooled);
+            } else {
+                tearDown(pooled.module);
+            }
+        }
+
+        parameters.getEventEmitter().flush();
+    }
+
+    /**
+     * Returns the startup result of the given configuration, invoking {@link Module#startup(JsonObject)}
+     * on a new instance only for the first invocation with an equal configuration.
+     *
+     * @param configuration component's configuration
+     * @return JSON object to be persisted or null
+     */
+    @Override
+    public JsonObject startup(final JsonObject configuration) {
+        return startupResults.get(new ConfigurationKey(configuration), new LoadingCache.Loader<JsonObject>() {
+            @Override
+            public JsonObject load() {
+                checkNotClosed();
+
+                final Module module = newModule();
+                try {
+                    return module.startup(configuration);
+                } finally {
+                    tearDown(module);
+                }
+            }
+        });
+    }
+
+    /**
+     * Creates and initializes an instance for the given configuration unless an idle one exists,
+     * so the first execution with the configuration does not wait for the initialization.
+     *
+     * @param configuration component's configuration
+     */
+    @Override
+    public void init(final JsonObject configuration) {
+        release(acquire(configuration));
+    }
+
+    /**
+     * Tears down the instances which have been idle for longer than the idle timeout.
+     */
+    public void evictIdle() {
+        final List<PooledModule> expired;
+        synchronized (idle) {
+            expired = removeExpired();
+        }
+
+        tearDown(expired);
+    }
+
+    /**
+     * Returns the number of idle instances.
+     *
+     * @return number of idle instances
+     */
+    public int getIdleCount() {
+        synchronized (idle) {
+            return idle.size();
+        }
+    }
+
+    /**
+     * Tears down all idle instances. Instances in use are torn down once their execution completed.
+     */
+    @Override
+    public void close() {
+        final List<PooledModule> all;
+        synchronized (idle) {
+            closed = true;
+            all = new ArrayList<PooledModule>(idle);
+            idle.clear();
+        }
+
+        tearDown(all);
+        startupResults.invalidateAll();
+    }
+
+    private PooledModule acquire(final JsonObject configuration) {
+        final ConfigurationKey key = new ConfigurationKey(configuration);
+        PooledModule found = null;
+        final List<PooledModule> expired;
+
+        synchronized (idle) {
+            checkNotClosed();
+            expired = removeExpired();
+
+            // prefer the most recently used instance, its connections are the most likely to be alive
+            final Iterator<PooledModule> candidates = idle.descendingIterator();
+            while (candidates.hasNext()) {
+                final PooledModule candidate = candidates.next();
+                if (candidate.key.equals(key)) {
+                    candidates.remove();
+                    found = candidate;
+                    break;
+                }
+            }
+        }
+
+        tearDown(expired);
+
+        if (found != null) {
+            return found;
+        }
+
+        return create(key, configuration);
+    }
+
+    private PooledModule create(final ConfigurationKey key, final JsonObject configuration) {
+        final Module module = newModule();
+
+        boolean initialized = false;
+        try {
+            module.init(configuration);
+            initialized = true;
+        } finally {
+            if (!initialized) {
+                tearDown(module);
+            }
+        }
+
+        return new PooledModule(key, module);
+    }
+
+    private Module newModule() {
+        final Module module = factory.create();
+        if (module == null) {
+            throw new IllegalStateException("Module factory returned null");
+        }
+
+        return module;
+    }
+
+    private void checkNotClosed() {
+        synchronized (idle) {
+            if (closed) {
+                throw new IllegalStateException("ModulePool is closed");
+            }
+        }
+    }
+
+    private void release(final PooledModule pooled) {
+        final List<PooledModule> evicted;
+        synchronized (idle) {
+            if (closed) {
+                evicted = new ArrayList<PooledModule>(1);
+                evicted.add(pooled);
+            } else {
+                pooled.releasedAt = ticker.read();
+                idle.addLast(pooled);
+                evicted = removeExpired();
+                while (idle.size() > maximumIdle) {
+                    evicted.add(idle.removeFirst());
+                }
+            }
+        }
+
+        tearDown(evicted);
+    }
+
+    private List<PooledModule> removeExpired() {
+        final List<PooledModule> expired = new ArrayList<PooledModule>(0);
+        final long now = ticker.read();
+        while (!idle.isEmpty() && now - idle.getFirst().releasedAt >= idleTimeoutNanos) {
+            expired.add(idle.removeFirst());
+        }
+
+        return expired;
+    }
+
+    private static void tearDown(final List<PooledModule> modules) {
+        for (PooledModule pooled : modules) {
+            tearDown(pooled.module);
+        }
+    }
+
+    private static void tearDown(final Module module) {
+        if (!(module instanceof AutoCloseable)) {
+            return;
+        }
+
+        try {
+            ((AutoCloseable) module).close();
+        } catch (Exception e) {
+            logger.warn("Failed to close pooled module", e);
+        }
+    }
+
+    /**
+     * Creates new instances of a component.
+     */
+    public interface ModuleFactory {
+
+        /**
+         * Creates a new, uninitialized instance.
+         *
+         * @return new instance
+         */
+        Module create();
+    }
+
+    private static final class PooledModule {
+        private final ConfigurationKey key;
+        private final Module module;
+        private long releasedAt;
+
+        private PooledModule(final ConfigurationKey key, final Module module) {
+            this.key = key;
+            this.module = module;
+        }
+    }
+
+    /**
+     * Used to build {@link ModulePool} instances.
+     */
+    public static final class Builder {
+        private final ModuleFactory factory;
+        private int maximumIdle = 16;
+        private long idleTimeoutNanos = TimeUnit.MINUTES.toNanos(10);
+        private int maximumStartupResults = 1000;
+        private LoadingCache.Ticker ticker = LoadingCache.Ticker.SYSTEM;
+
+        /**
+         * Creates a {@link Builder} instance.
+         *
+         * @param factory factory creating the pooled instances
+         */
+        public Builder(final ModuleFactory factory) {
+            if (factory == null) {
+                throw new IllegalArgumentException("Module factory must not be null");
+            }
+            this.factory = factory;
+        }
+
+        /**
+         * Sets the maximum number of idle instances kept across all configurations. Defaults to 16.
+         *
+         * @param maximumIdle maximum number of idle instances
+         * @return this instance
+         */
+        public Builder maximumIdle(final int maximumIdle) {
+            if (maximumIdle < 1) {
+                throw new IllegalArgumentException("Maximum number of idle modules must be positive");
+            }
+            this.maximumIdle = maximumIdle;
+
+            return this;
+        }
+
+        /**
+         * Sets the time after which an idle instance is torn down. Defaults to ten minutes.
+         *
+         * @param idleTimeout idle timeout
+         * @param unit        time unit of the idle timeout
+         * @return this instance
+         */
+        public Builder idleTimeout(final long idleTimeout, final TimeUnit unit) {
+            if (idleTimeout < 1) {
+                throw new IllegalArgumentException("Idle timeout must be positive");
+            }
+            this.idleTimeoutNanos = CacheSettings.toNanos(idleTimeout, unit);
+
+            return this;
+        }
+
+        /**
+         * Sets the maximum number of configurations whose startup results are kept. Defaults to 1000.
+         *
+         * @param maximumStartupResults maximum number of startup results
+         * @return this instance
+         */
+        public Builder maximumStartupResults(final int maximumStartupResults) {
+            if (maximumStartupResults < 1) {
+                throw new IllegalArgumentException("Maximum number of startup results must be positive");
+            }
+            this.maximumStartupResults = maximumStartupResults;
+
+            return this;
+        }
+
+        Builder ticker(final LoadingCache.Ticker ticker) {
+            this.ticker = ticker;
+
+            return this;
+        }
+
+        /**
+         * Builds a {@link ModulePool} instance and returns it.
+         *
+         * @return ModulePool
+         */
+        public ModulePool build() {
+            return new ModulePool(factory, maximumIdle, idleTimeoutNanos, maximumStartupResults, ticker);
+        }
+    }
+}
@@ -0,0 +1,365 @@
+package io.elastic.api;
+
+import javax.json.JsonObject;
+import javax.json.JsonObjectBuilder;
+import javax.json.JsonValue;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Executes a {@link Module} concurrently on an {@link Executor}.
+ *
+ * <p>
+ * Messages are executed in parallel unless they share an ordering key. The key of a message is
+ * the value of the header given to {@link Builder#keyHeader(String)}. Messages with equal keys are
+ * executed one after another in the order they have been submitted. Messages without the header
+ * are not ordered. Keys are assigned to a fixed number of lanes by their hash code, so messages
+ * with different keys may be serialized as well if their keys share a lane.
+ * </p>
+ *
+ * <p>
+ * The executor keeps the component's snapshot. Each execution is given the current snapshot
+ * instead of the one of the submitted {@link ExecutionParameters}. A snapshot emitted by an
+ * execution is merged into the current snapshot using the {@link SnapshotMerger}, and the
+ * merged snapshot is emitted to the runtime. Merging and emitting are serialized, so the runtime
+ * receives the snapshots in the order they have been merged. All other events are passed to
+ * the {@link EventEmitter} of the submitted parameters as they are.
+ * </p>
+ *
+ * <pre>
+ * {@code
+ *    ParallelModuleExecutor executor = new ParallelModuleExecutor.Builder(module, Executors.newFixedThreadPool(8))
+ *            .keyHeader("customerId")
+ *            .snapshot(snapshot)
+ *            .build();
+ *
+ *    executor.submit(parameters).join();
+ * }
+ * </pre>
+ *
+ * @since 2.1.1
+ */
+public final class ParallelModuleExecutor {
+
+    private final Module module;
+    private final Executor executor;
+    private final String keyHeader;
+    private final SnapshotMerger snapshotMerger;
+    private final Lane[] lanes;
+    private final Object snapshotLock = new Object();
+    private volatile JsonObject snapshot;
+
+    private ParallelModuleExecutor(final Module module,
+                                   final Executor executor,
+                                   final String keyHeader,
+                                   final SnapshotMerger snapshotMerger,
+                                   final int lanes,
+                                   final JsonObject snapshot) {
+        this.module = module;
+        this.executor = executor;
+        this.keyHeader = keyHeader;
+        this.snapshotMerger = snapshotMerger;
+        this.lanes = new Lane[lanes];
+        for (int i = 0; i < lanes; i++) {
+            this.lanes[i] = new Lane();
+        }
+        this.snapshot = snapshot;
+    }
+
+    /**
+     * Submits the given parameters for execution.
+     *
+     * @param parameters parameters to execute the module with
+     * @return future completed once the module has been executed, exceptionally if it failed
+     */
+    public CompletableFuture<Void> submit(final ExecutionParameters parameters) {
+        if (parameters == null) {
+            throw new IllegalArgumentException("Execution parameters must not be null");
+        }
+        if (parameters.getEventEmitter() == null) {
+            throw new IllegalArgumentException("EventEmitter is required");
+        }
+
+        final CompletableFuture<Void> future = new CompletableFuture<Void>();
+        final Runnable task = new Runnable() {
+            @Override
+            public void run() {
+                execute(parameters, future);
+            }
+        };
+
+        final JsonValue key = keyOf(parameters.getMessage());
+        if (key == null) {
+            executor.execute(task);
+        } else {
+            lanes[laneOf(key)].execute(task);
+        }
+
+        return future;
+    }
+
+    /**
+     * Returns the current snapshot.
+     *
+     * @return snapshot
+     */
+    public JsonObject getSnapshot() {
+        return snapshot;
+    }
+
+    private void execute(final ExecutionParameters parameters, final CompletableFuture<Void> future) {
+        try {
+            module.execute(withMergedSnapshots(parameters));
+            parameters.getEventEmitter().flush();
+            future.complete(null);
+        } catch (Throwable e) {
+            // includes checked exceptions the module throws without declaring them
+            future.completeExceptionally(e);
+            if (e instanceof Error) {
+                throw (Error) e;
+            }
+        }
+    }
+
+    private ExecutionParameters withMergedSnapshots(final ExecutionParameters parameters) {
+        final EventEmitter emitter = parameters.getEventEmitter();
+
+        final EventEmitter merging = EventEmitter.forwardingTo(emitter)
+                .snapshotCallback(new EventEmitter.SnapshotCallback() {
+                    @Override
+                    public void receive(final JsonObject emitted) {
+                        synchronized (snapshotLock) {
+                            snapshot = snapshotMerger.merge(snapshot, emitted);
+                            emitter.emitSnapshot(snapshot);
+                        }
+                    }
+                })
+                .build();
+
+        return new ExecutionParameters.Builder(parameters.getMessage(), merging)
+                .configuration(parameters.getConfiguration())
+                .snapshot(snapshot)
+                .build();
+    }
+
+    private JsonValue keyOf(final Message message) {
+        if (keyHeader == null) {
+            return null;
+        }
+
+        final JsonValue key = message.getHeaders().get(keyHeader);
+        if (key == null || key == JsonValue.NULL) {
+            return null;
+        }
+
+        return key;
+    }
+
+    private int laneOf(final JsonValue key) {
+        final int hash = key.hashCode();
+
+        return ((hash ^ (hash >>> 16)) & Integer.MAX_VALUE) % lanes.length;
+    }
+
+    /**
+     * Merges a snapshot emitted by an execution into the current snapshot.
+     */
+    public interface SnapshotMerger {
+
+        /**
+         * Merges the top-level properties of the emitted snapshot into the current one.
+         * Properties of the emitted snapshot replace those of the current one.
+         */
+        SnapshotMerger SHALLOW = new SnapshotMerger() {
+            @Override
+            public JsonObject merge(final JsonObject current, final JsonObject emitted) {
+                final JsonObjectBuilder builder = JsonFactories.getDefault().getBuilderFactory().createObjectBuilder();
+                for (Map.Entry<String, JsonValue> entry : current.entrySet()) {
+                    builder.add(entry.getKey(), entry.getValue());
+                }
+                for (Map.Entry<String, JsonValue> entry : emitted.entrySet()) {
+                    builder.add(entry.getKey(), entry.getValue());
+                }
+
+                return builder.build();
+            }
+        };
+
+        /**
+         * Returns the merged snapshot. Invoked by one thread at a time.
+         *
+         * @param current current snapshot
+         * @param emitted snapshot emitted by an execution
+         * @return merged snapshot
+         */
+        JsonObject merge(JsonObject current, JsonObject emitted);
+    }
+
+    /**
+     * Runs the submitted tasks one after another on the executor.
+     */
+    private final class Lane implements Runnable {
+        private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<Runnable>();
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+
+        private void execute(final Runnable task) {
+            tasks.add(task);
+
+            if (scheduled.compareAndSet(false, true)) {
+                try {
+                    executor.execute(this);
+                } catch (RuntimeException e) {
+                    tasks.remove(task);
+                    scheduled.set(false);
+                    throw e;
+                }
+            }
+        }
+
+        @Override
+        public void run() {
+            boolean drained = false;
+            try {
+                drain();
+                drained = true;
+            } finally {
+                if (!drained) {
+                    // an error ended this run, so the remaining tasks are run by a new one
+                    scheduled.set(false);
+                    reschedule();
+                }
+            }
+        }
+
+        private void drain() {
+            while (true) {
+                Runnable task;
+                while ((task = tasks.poll()) != null) {
+                    task.run();
+                }
+
+                scheduled.set(false);
+
+                // a task may have been added after the last poll but before the flag was reset
+                if (tasks.isEmpty() || !scheduled.compareAndSet(false, true)) {
+                    return;
+                }
+            }
+        }
+
+        private void reschedule() {
+            if (tasks.isEmpty() || !scheduled.compareAndSet(false, true)) {
+                return;
+            }
+
+            try {
+                executor.execute(this);
+            } catch (RuntimeException e) {
+                // the remaining tasks are run once the next task is added
+                scheduled.set(false);
+            }
+        }
+    }
+
+    /**
+     * Used to build {@link ParallelModuleExecutor} instances.
+     */
+    public static final class Builder {
+        private final Module module;
+        private final Executor executor;
+        private String keyHeader;
+        private SnapshotMerger snapshotMerger = SnapshotMerger.SHALLOW;
+        private int lanes = 4 * Runtime.getRuntime().availableProcessors();
+        private JsonObject snapshot = JSON.EMPTY_OBJECT;
+
+        /**
+         * Creates a {@link Builder} instance.
+         *
+         * @param module   module to execute
+         * @param executor executor to execute the module on, for example a fixed thread pool or,
+         *                 on Java 21 and later, an executor starting a virtual thread per task
+         */
+        public Builder(final Module module, final Executor executor) {
+            if (module == null) {
+                throw new IllegalArgumentException("Module must not be null");
+            }
+            if (executor == null) {
+                throw new IllegalArgumentException("Executor must not be null");
+            }
+            this.module = module;
+            this.executor = executor;
+        }
+
+        /**
+         * Sets the name of the header whose value orders the messages.
+         * If not set, messages are not ordered.
+         *
+         * @param keyHeader header name
+         * @return this instance
+         */
+        public Builder keyHeader(final String keyHeader) {
+            this.keyHeader = keyHeader;
+
+            return this;
+        }
+
+        /**
+         * Sets the number of lanes the ordering keys are assigned to.
+         * Defaults to four times the number of processors.
+         *
+         * @param lanes number of lanes
+         * @return this instance
+         */
+        public Builder lanes(final int lanes) {
+            if (lanes < 1) {
+                throw new IllegalArgumentException("Number of lanes must be positive");
+            }
+            this.lanes = lanes;
+
+            return this;
+        }
+
+        /**
+         * Sets the {@link SnapshotMerger}. Defaults to {@link SnapshotMerger#SHALLOW}.
+         *
+         * @param snapshotMerger merger to use
+         * @return this instance
+         */
+        public Builder snapshotMerger(final SnapshotMerger snapshotMerger) {
+            if (snapshotMerger == null) {
+                throw new IllegalArgumentException("Snapshot merger must not be null");
+            }
+            this.snapshotMerger = snapshotMerger;
+
+            return this;
+        }
+
+        /**
+         * Sets the initial snapshot. Defaults to an empty object.
+         *
+         * @param snapshot initial snapshot
+         * @return this instance
+         */
+        public Builder snapshot(final JsonObject snapshot) {
+            if (snapshot == null) {
+                throw new IllegalArgumentException("Snapshot must not be null");
+            }
+            this.snapshot = snapshot;
+
+            return this;
+        }
+
+        /**
+         * Builds a {@link ParallelModuleExecutor} instance and returns it.
+         *
+         * @return ParallelModuleExecutor
+         */
+        public ParallelModuleExecutor build() {
+            return new ParallelModuleExecutor(module, executor, keyHeader, snapshotMerger, lanes, snapshot);
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package io.elastic.api;
+
+/**
+ * Immutable statistics of one lifecycle phase of a {@link Module}, such as
+ * {@link Module#execute(ExecutionParameters)}, collected by an {@link InstrumentedModule}.
+ *
+ * <p>
+ * CPU time and allocated bytes are measured for the thread invoking the phase only.
+ * They are reported as 0 if the JVM does not support measuring them.
+ * </p>
+ *
+ * @since 2.1.1
+ */
+public final class PhaseStatistics {
+
+    private final long invocations;
+    private final long failures;
+    private final long wallTimeNanos;
+    private final long cpuTimeNanos;
+    private final long allocatedBytes;
+
+    PhaseStatistics(final long invocations,
+                    final long failures,
+                    final long wallTimeNanos,
+                    final long cpuTimeNanos,
+                    final long allocatedBytes) {
+        this.invocations = invocations;
+        this.failures = failures;
+        this.wallTimeNanos = wallTimeNanos;
+        this.cpuTimeNanos = cpuTimeNanos;
+        this.allocatedBytes = allocatedBytes;
+    }
+
+    /**
+     * Returns how often the phase has been invoked.
+     *
+     * @return number of invocations
+     */
+    public long getInvocations() {
+        return invocations;
+    }
+
+    /**
+     * Returns how often the phase has thrown an exception.
+     *
+     * @return number of failed invocations
+     */
+    public long getFailures() {
+        return failures;
+    }
+
+    /**
+     * Returns the total elapsed time of all invocations.
+     *
+     * @return wall time in nanoseconds
+     */
+    public long getWallTimeNanos() {
+        return wallTimeNanos;
+    }
+
+    /**
+     * Returns the total CPU time of all invocations.
+     *
+     * @return CPU time in nanoseconds
+     */
+    public long getCpuTimeNanos() {
+        return cpuTimeNanos;
+    }
+
+    /**
+     * Returns the total number of bytes allocated by all invocations.
+     *
+     * @return allocated bytes
+     */
+    public long getAllocatedBytes() {
+        return allocatedBytes;
+    }
+
+    @Override
+    public String toString() {
+        return "PhaseStatistics{" +
+                "invocations=" + invocations +
+                ", failures=" + failures +
+                ", wallTimeNanos=" + wallTimeNanos +
+                ", cpuTimeNanos=" + cpuTimeNanos +
+                ", allocatedBytes=" + allocatedBytes +
+                '}';
+    }
+}
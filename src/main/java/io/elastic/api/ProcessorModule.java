@@ -0,0 +1,212 @@
+package io.elastic.api;
+
+import org.reactivestreams.Processor;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * {@link Module} running a reactive-streams {@link Processor} for each execution.
+ *
+ * <p>
+ * The incoming message is published to a {@link Processor} created for the execution and each
+ * message the processor produces is emitted as data. Messages are requested from the processor
+ * in chunks of the given prefetch size, so a processor streaming many results is not asked for
+ * more than the runtime has taken. {@link #execute(ExecutionParameters)} returns once the
+ * processor completed. An error signalled by the processor is emitted using
+ * {@link EventEmitter#emitException(Exception)}.
+ * </p>
+ *
+ * <pre>
+ * {@code
+ *    public class SplitterComponent implements Module {
+ *        private final Module delegate = new ProcessorModule(new ProcessorModule.ProcessorFactory() {
+ *            public Processor<Message, Message> create(ExecutionParameters parameters) {
+ *                return new SplittingProcessor(parameters.getConfiguration());
+ *            }
+ *        });
+ *
+ *        public void execute(ExecutionParameters parameters) {
+ *            delegate.execute(parameters);
+ *        }
+ *    }
+ * }
+ * </pre>
+ *
+ * @since 2.1.1
+ */
+public final class ProcessorModule implements Module {
+
+    private static final int DEFAULT_PREFETCH = 32;
+
+    private final ProcessorFactory processorFactory;
+    private final int prefetch;
+
+    /**
+     * Creates a module requesting 32 messages at a time.
+     *
+     * @param processorFactory factory creating a processor per execution
+     */
+    public ProcessorModule(final ProcessorFactory processorFactory) {
+        this(processorFactory, DEFAULT_PREFETCH);
+    }
+
+    /**
+     * Creates a module.
+     *
+     * @param processorFactory factory creating a processor per execution
+     * @param prefetch         number of messages requested from the processor at a time
+     */
+    public ProcessorModule(final ProcessorFactory processorFactory, final int prefetch) {
+        if (processorFactory == null) {
+            throw new IllegalArgumentException("Processor factory must not be null");
+        }
+        if (prefetch < 1) {
+            throw new IllegalArgumentException("Prefetch must be positive");
+        }
+        this.processorFactory = processorFactory;
+        this.prefetch = prefetch;
+    }
+
+    @Override
+    public void execute(final ExecutionParameters parameters) {
+        final Processor<Message, Message> processor = processorFactory.create(parameters);
+        if (processor == null) {
+            throw new IllegalStateException("Processor factory returned null");
+        }
+
+        final EmittingSubscriber subscriber = new EmittingSubscriber(parameters.getEventEmitter(), prefetch);
+        processor.subscribe(subscriber);
+        processor.onSubscribe(new SingleMessageSubscription(parameters.getMessage(), processor));
+
+        subscriber.await();
+        parameters.getEventEmitter().flush();
+    }
+
+    /**
+     * Creates a {@link Processor} for an execution.
+     */
+    public interface ProcessorFactory {
+
+        /**
+         * Creates a processor transforming the message of the given parameters.
+         *
+         * @param parameters parameters of the execution
+         * @return new processor
+         */
+        Processor<Message, Message> create(ExecutionParameters parameters);
+    }
+
+    /**
+     * Publishes the incoming message to the processor once requested.
+     */
+    private static final class SingleMessageSubscription implements Subscription {
+        private final Message message;
+        private final Subscriber<? super Message> subscriber;
+        private final AtomicBoolean done = new AtomicBoolean();
+
+        private SingleMessageSubscription(final Message message, final Subscriber<? super Message> subscriber) {
+            this.message = message;
+            this.subscriber = subscriber;
+        }
+
+        @Override
+        public void request(final long n) {
+            if (!done.compareAndSet(false, true)) {
+                return;
+            }
+
+            if (n <= 0) {
+                subscriber.onError(new IllegalArgumentException("Requested number of messages must be positive, got " + n));
+                return;
+            }
+
+            subscriber.onNext(message);
+            subscriber.onComplete();
+        }
+
+        @Override
+        public void cancel() {
+            done.set(true);
+        }
+    }
+
+    /**
+     * Emits the messages produced by the processor and waits for its completion.
+     */
+    private static final class EmittingSubscriber implements Subscriber<Message> {
+        private final EventEmitter emitter;
+        private final int prefetch;
+        private final int replenishThreshold;
+        private final CountDownLatch terminated = new CountDownLatch(1);
+        private volatile Subscription subscription;
+        private int consumed;
+        private volatile Throwable error;
+
+        private EmittingSubscriber(final EventEmitter emitter, final int prefetch) {
+            this.emitter = emitter;
+            this.prefetch = prefetch;
+            this.replenishThreshold = Math.max(1, prefetch / 2);
+        }
+
+        @Override
+        public void onSubscribe(final Subscription subscription) {
+            if (this.subscription != null) {
+                subscription.cancel();
+                return;
+            }
+            this.subscription = subscription;
+            subscription.request(prefetch);
+        }
+
+        @Override
+        public void onNext(final Message message) {
+            try {
+                emitter.emitData(message);
+            } catch (RuntimeException e) {
+                subscription.cancel();
+                onError(e);
+                return;
+            }
+
+            if (++consumed == replenishThreshold) {
+                consumed = 0;
+                subscription.request(replenishThreshold);
+            }
+        }
+
+        @Override
+        public void onError(final Throwable error) {
+            this.error = error;
+            terminated.countDown();
+        }
+
+        @Override
+        public void onComplete() {
+            terminated.countDown();
+        }
+
+        private void await() {
+            try {
+                terminated.await();
+            } catch (InterruptedException e) {
+                if (subscription != null) {
+                    subscription.cancel();
+                }
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for the processor to complete", e);
+            }
+
+            final Throwable cause = error;
+            if (cause instanceof Exception) {
+                emitter.emitException((Exception) cause);
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            } else if (cause != null) {
+                emitter.emitException(new RuntimeException(cause));
+            }
+        }
+    }
+}
@@ -0,0 +1,372 @@
+package io.elastic.api;
+
+
+import javax.json.JsonException;
+import javax.json.JsonObject;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.DataOutput;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+
+/**
+ * UTF-8 encoded JSON representation of a {@link Message} whose sections are
+ * located but not parsed. Each section is parsed on request and can be
+ * written out again by copying its original bytes.
+ *
+ * <p>
+ * Locating the sections only validates the top-level structure of the message.
+ * Errors inside a section are reported when the section is parsed.
+ * </p>
+ */
+final class RawMessage {
+
+    static final int HEADERS = 0;
+    static final int BODY = 1;
+    static final int ATTACHMENTS = 2;
+    static final int PASSTHROUGH = 3;
+
+    private static final byte[][] SECTION_NAMES = {
+            ascii(Message.PROPERTY_HEADERS),
+            ascii(Message.PROPERTY_BODY),
+            ascii(Message.PROPERTY_ATTACHMENTS),
+            ascii(Message.PROPERTY_PASSTHROUGH)
+    };
+
+    private static final byte[] ID_NAME = ascii(Message.PROPERTY_ID);
+
+    private final byte[] buffer;
+    private final int[] starts = {-1, -1, -1, -1};
+    private final int[] ends = {-1, -1, -1, -1};
+    private int idStart = -1;
+    private int idEnd = -1;
+
+    private RawMessage(final byte[] buffer) {
+        this.buffer = buffer;
+    }
+
+    /**
+     * Locates the id and the sections of the message in the given bytes.
+     *
+     * @param buffer buffer containing the message
+     * @param offset offset of the message in the buffer
+     * @param length length of the message
+     * @return raw message
+     * @throws JsonException if the bytes do not represent a JSON object
+     *                       or a section is not a JSON object
+     */
+    static RawMessage scan(final byte[] buffer, final int offset, final int length) {
+        final RawMessage raw = new RawMessage(buffer);
+        new Scanner(buffer, offset, offset + length).scan(raw);
+
+        return raw;
+    }
+
+    /**
+     * Creates a raw message from sections stored one after another in the given buffer,
+     * in the order of the section constants. The sections are not validated.
+     *
+     * @param buffer  buffer containing the sections
+     * @param lengths lengths of the sections
+     * @return raw message without id
+     */
+    static RawMessage ofSections(final byte[] buffer, final int[] lengths) {
+        final RawMessage raw = new RawMessage(buffer);
+
+        int position = 0;
+        for (int section = 0; section < lengths.length; section++) {
+            raw.starts[section] = position;
+            position += lengths[section];
+            raw.ends[section] = position;
+        }
+
+        return raw;
+    }
+
+    /**
+     * Returns the message id.
+     *
+     * @return id
+     * @throws JsonException if the message has no id or the id is not a UUID
+     */
+    UUID getId() {
+        if (idStart < 0) {
+            throw new JsonException("Message id is missing");
+        }
+
+        final int start = idStart + 1;
+        final int end = idEnd - 1;
+        for (int i = start; i < end; i++) {
+            if (buffer[i] == '\\') {
+                final String json = new String(buffer, idStart, idEnd - idStart, StandardCharsets.UTF_8);
+
+                return toUUID(JSON.parseArray("[" + json + "]").getString(0));
+            }
+        }
+
+        return toUUID(new String(buffer, start, end - start, StandardCharsets.US_ASCII));
+    }
+
+    private static UUID toUUID(final String id) {
+        try {
+            return UUID.fromString(id);
+        } catch (IllegalArgumentException e) {
+            throw new JsonException("Message id is not a UUID: " + id, e);
+        }
+    }
+
+    /**
+     * Parses the given section.
+     *
+     * @param section one of the section constants
+     * @return section or an empty JSON object if the message does not contain the section
+     */
+    JsonObject parse(final int section) {
+        if (starts[section] < 0) {
+            return JSON.EMPTY_OBJECT;
+        }
+
+        return JSON.readObject(ByteBuffer.wrap(buffer, starts[section], ends[section] - starts[section]));
+    }
+
+    /**
+     * Appends the original JSON of the given section to a {@link StringBuilder}.
+     *
+     * @param section one of the section constants
+     * @param builder builder to append to
+     */
+    void appendTo(final int section, final StringBuilder builder) {
+        if (starts[section] < 0) {
+            builder.append("{}");
+        } else {
+            builder.append(new String(buffer, starts[section], ends[section] - starts[section], StandardCharsets.UTF_8));
+        }
+    }
+
+    /**
+     * Writes the original JSON of the given section to an {@link OutputStream}.
+     *
+     * @param section one of the section constants
+     * @param out     stream to write to
+     * @throws IOException if writing fails
+     */
+    void writeTo(final int section, final OutputStream out) throws IOException {
+        if (starts[section] < 0) {
+            out.write('{');
+            out.write('}');
+        } else {
+            out.write(buffer, starts[section], ends[section] - starts[section]);
+        }
+    }
+
+    /**
+     * Returns the length of the original JSON of the given section.
+     *
+     * @param section one of the section constants
+     * @return length in bytes
+     */
+    int length(final int section) {
+        return starts[section] < 0 ? 2 : ends[section] - starts[section];
+    }
+
+    /**
+     * Writes the original JSON of the given section to a {@link DataOutput}.
+     *
+     * @param section one of the section constants
+     * @param out     output to write to
+     * @throws IOException if writing fails
+     */
+    void writeTo(final int section, final DataOutput out) throws IOException {
+        if (starts[section] < 0) {
+            out.write('{');
+            out.write('}');
+        } else {
+            out.write(buffer, starts[section], ends[section] - starts[section]);
+        }
+    }
+
+    private static byte[] ascii(final String value) {
+        return value.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * Scans the top-level object of a message without materializing any values.
+     */
+    private static final class Scanner {
+        private final byte[] buffer;
+        private final int limit;
+        private int position;
+
+        private Scanner(final byte[] buffer, final int offset, final int limit) {
+            this.buffer = buffer;
+            this.position = offset;
+            this.limit = limit;
+        }
+
+        private void scan(final RawMessage raw) {
+            skipWhitespace();
+            expect('{');
+            skipWhitespace();
+
+            if (peek() == '}') {
+                position++;
+            } else {
+                while (true) {
+                    skipWhitespace();
+                    final int keyStart = position;
+                    skipString();
+                    final int keyEnd = position;
+                    skipWhitespace();
+                    expect(':');
+                    skipWhitespace();
+                    final int valueStart = position;
+                    skipValue();
+                    record(raw, keyStart, keyEnd, valueStart, position);
+                    skipWhitespace();
+
+                    if (peek() == ',') {
+                        position++;
+                    } else {
+                        expect('}');
+                        break;
+                    }
+                }
+            }
+
+            skipWhitespace();
+            if (position != limit) {
+                throw error("Unexpected content after message");
+            }
+        }
+
+        private void record(final RawMessage raw,
+                            final int keyStart, final int keyEnd,
+                            final int valueStart, final int valueEnd) {
+
+            if (isKey(ID_NAME, keyStart, keyEnd)) {
+                if (buffer[valueStart] != '"') {
+                    throw new JsonException("Message id must be a string");
+                }
+                raw.idStart = valueStart;
+                raw.idEnd = valueEnd;
+                return;
+            }
+
+            for (int section = 0; section < SECTION_NAMES.length; section++) {
+                if (isKey(SECTION_NAMES[section], keyStart, keyEnd)) {
+                    if (buffer[valueStart] != '{') {
+                        throw new JsonException("Message " + new String(SECTION_NAMES[section], StandardCharsets.US_ASCII)
+                                + " must be a JSON object");
+                    }
+                    raw.starts[section] = valueStart;
+                    raw.ends[section] = valueEnd;
+                    return;
+                }
+            }
+        }
+
+        private boolean isKey(final byte[] name, final int keyStart, final int keyEnd) {
+            if (keyEnd - keyStart != name.length + 2) {
+                return false;
+            }
+
+            for (int i = 0; i < name.length; i++) {
+                if (buffer[keyStart + 1 + i] != name[i]) {
+                    return false;
+                }
+            }
+
+            return true;
+        }
+
+        private void skipValue() {
+            final byte b = peek();
+
+            if (b == '"') {
+                skipString();
+            } else if (b == '{' || b == '[') {
+                skipStructure();
+            } else {
+                final int start = position;
+                while (position < limit && !isDelimiter(buffer[position])) {
+                    position++;
+                }
+                if (position == start) {
+                    throw error("Value expected");
+                }
+            }
+        }
+
+        private void skipStructure() {
+            int depth = 0;
+
+            do {
+                final byte b = peek();
+
+                if (b == '"') {
+                    skipString();
+                    continue;
+                }
+
+                if (b == '{' || b == '[') {
+                    depth++;
+                } else if (b == '}' || b == ']') {
+                    depth--;
+                }
+                position++;
+            } while (depth > 0);
+        }
+
+        private void skipString() {
+            expect('"');
+
+            while (true) {
+                final byte b = peek();
+                position++;
+
+                if (b == '"') {
+                    return;
+                }
+
+                if (b == '\\') {
+                    peek();
+                    position++;
+                }
+            }
+        }
+
+        private void skipWhitespace() {
+            while (position < limit && isWhitespace(buffer[position])) {
+                position++;
+            }
+        }
+
+        private void expect(final char expected) {
+            if (peek() != expected) {
+                throw error("'" + expected + "' expected");
+            }
+            position++;
+        }
+
+        private byte peek() {
+            if (position >= limit) {
+                throw error("Unexpected end of message");
+            }
+
+            return buffer[position];
+        }
+
+        private JsonException error(final String reason) {
+            return new JsonException("Invalid message JSON at offset " + position + ": " + reason);
+        }
+
+        private static boolean isWhitespace(final byte b) {
+            return b == ' ' || b == '\t' || b == '\n' || b == '\r';
+        }
+
+        private static boolean isDelimiter(final byte b) {
+            return b == ',' || b == '}' || b == ']' || isWhitespace(b);
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package io.elastic.api;
+
+/**
+ * Thrown by an asynchronous {@link EventEmitter} when an event cannot be enqueued
+ * for delivery to its callback.
+ *
+ * @since 2.1.1
+ *
+ * @see EventEmitter.OverflowPolicy
+ */
+public class RejectedEventException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Creates a new RejectedEventException with the specified message.
+     *
+     * @param message message the exception detail message
+     */
+    public RejectedEventException(String message) {
+        super(message);
+    }
+
+    /**
+     * Creates a new RejectedEventException with the specified
+     * detail message and cause.
+     *
+     * @param message   the exception detail message
+     * @param throwable the Throwable that caused this exception
+     */
+    public RejectedEventException(String message, Throwable throwable) {
+        super(message, throwable);
+    }
+}
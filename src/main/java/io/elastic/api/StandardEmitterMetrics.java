@@ -0,0 +1,121 @@
+package io.elastic.api;
+
+import javax.json.JsonObject;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free {@link EmitterMetrics} implementation collecting per event type the number
+ * of events, the callback latency distribution and optionally the payload sizes.
+ *
+ * <p>
+ * The payload size of a {@link Message}, a batch of messages and a {@link JsonObject} is
+ * the length of its UTF-8 encoded JSON. Measuring it requires serializing the payload,
+ * so it is disabled by default. Other payloads are not measured.
+ * </p>
+ *
+ * <pre>
+ * {@code
+ *    StandardEmitterMetrics metrics = new StandardEmitterMetrics();
+ *    EventEmitter emitter = new EventEmitter.Builder()
+ *            ...
+ *            .metrics(metrics)
+ *            .build();
+ *    ...
+ *    long p99 = metrics.getLatencyPercentile(EmitterMetrics.EventType.DATA, 99, TimeUnit.MICROSECONDS);
+ * }
+ * </pre>
+ *
+ * @since 2.1.1
+ */
+public final class StandardEmitterMetrics implements EmitterMetrics {
+
+    private static final int TYPES = EventType.values().length;
+
+    private final boolean recordPayloadSizes;
+    private final LongAdder[] payloadBytes = new LongAdder[TYPES];
+    private final LatencyHistogram[] latencies = new LatencyHistogram[TYPES];
+
+    /**
+     * Creates metrics not recording payload sizes.
+     */
+    public StandardEmitterMetrics() {
+        this(false);
+    }
+
+    /**
+     * Creates metrics.
+     *
+     * @param recordPayloadSizes true to record payload sizes
+     */
+    public StandardEmitterMetrics(final boolean recordPayloadSizes) {
+        this.recordPayloadSizes = recordPayloadSizes;
+
+        for (int i = 0; i < TYPES; i++) {
+            payloadBytes[i] = new LongAdder();
+            latencies[i] = new LatencyHistogram();
+        }
+    }
+
+    @Override
+    public void eventReceived(final EventType type, final Object payload, final long latencyNanos) {
+        final int index = type.ordinal();
+        latencies[index].record(latencyNanos);
+
+        if (recordPayloadSizes) {
+            payloadBytes[index].add(sizeOf(payload));
+        }
+    }
+
+    /**
+     * Returns the number of events of the given type received by a callback.
+     *
+     * @param type event type
+     * @return number of events
+     */
+    public long getCount(final EventType type) {
+        return latencies[type.ordinal()].getCount();
+    }
+
+    /**
+     * Returns the total size of the payloads of the given event type.
+     *
+     * @param type event type
+     * @return size in bytes or 0 if payload sizes are not recorded
+     */
+    public long getPayloadBytes(final EventType type) {
+        return payloadBytes[type.ordinal()].sum();
+    }
+
+    /**
+     * Returns the callback latency below or at which the given percentage of the events of
+     * the given type have been received. The result is accurate to 12.5%.
+     *
+     * @param type       event type
+     * @param percentile percentile between 0 and 100, such as 50 or 99.9
+     * @param unit       unit of the result
+     * @return latency or 0 if no event has been received
+     */
+    public long getLatencyPercentile(final EventType type, final double percentile, final TimeUnit unit) {
+        return unit.convert(latencies[type.ordinal()].getPercentile(percentile), TimeUnit.NANOSECONDS);
+    }
+
+    private static long sizeOf(final Object payload) {
+        final Streams.CountingOutputStream out = new Streams.CountingOutputStream();
+
+        if (payload instanceof Message) {
+            ((Message) payload).writeTo(out);
+        } else if (payload instanceof JsonObject) {
+            JSON.writeObject((JsonObject) payload, out);
+        } else if (payload instanceof List) {
+            for (Object element : (List<?>) payload) {
+                if (element instanceof Message) {
+                    ((Message) element).writeTo(out);
+                }
+            }
+        }
+
+        return out.getCount();
+    }
+}
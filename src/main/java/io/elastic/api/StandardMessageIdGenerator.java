@@ -0,0 +1,49 @@
+package io.elastic.api;
+
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * {@link MessageIdGenerator}s provided by this library.
+ *
+ * @since 2.1.1
+ */
+public enum StandardMessageIdGenerator implements MessageIdGenerator {
+
+    /**
+     * Generates random (version 4) UUIDs using {@link UUID#randomUUID()}. The ids are
+     * cryptographically strong but all threads share a single {@link java.security.SecureRandom},
+     * which becomes a point of contention if many threads build messages concurrently.
+     * This is the default generator.
+     */
+    RANDOM {
+        @Override
+        public UUID nextId() {
+            return UUID.randomUUID();
+        }
+    },
+
+    /**
+     * Generates time-ordered UUIDs following the version 7 layout: a 48 bit Unix timestamp
+     * in milliseconds followed by 74 random bits taken from {@link ThreadLocalRandom}.
+     * Generation never contends between threads. Ids are ordered to the millisecond: an id
+     * generated in a later millisecond sorts after one generated in an earlier millisecond,
+     * while ids generated within the same millisecond are in random order. The ids must not
+     * be relied upon to be unguessable.
+     */
+    TIME_ORDERED {
+        @Override
+        public UUID nextId() {
+            final ThreadLocalRandom random = ThreadLocalRandom.current();
+            final long timestamp = System.currentTimeMillis();
+
+            final long mostSigBits = (timestamp << 16)
+                    | 0x7000L
+                    | (random.nextInt() & 0x0FFFL);
+            final long leastSigBits = (random.nextLong() & 0x3FFFFFFFFFFFFFFFL)
+                    | 0x8000000000000000L;
+
+            return new UUID(mostSigBits, leastSigBits);
+        }
+    }
+}
@@ -0,0 +1,299 @@
+package io.elastic.api;
+
+import java.io.DataInput;
+import java.io.FilterInputStream;
+import java.io.FilterOutputStream;
+import java.io.FilterReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.Arrays;
+
+/**
+ * Stream adapters used internally to read and write JSON without
+ * intermediate copies.
+ */
+final class Streams {
+
+    private static final int READ_CHUNK_SIZE = 64 * 1024;
+
+    private Streams() {
+
+    }
+
+    /**
+     * Returns an {@link InputStream} which does not close the given stream on {@link InputStream#close()}.
+     *
+     * @param in stream to wrap
+     * @return non-closing stream
+     */
+    static InputStream nonClosing(final InputStream in) {
+        return new FilterInputStream(in) {
+            @Override
+            public void close() {
+                // the caller owns the stream
+            }
+        };
+    }
+
+    /**
+     * Returns a {@link Reader} which does not close the given reader on {@link Reader#close()}.
+     *
+     * @param reader reader to wrap
+     * @return non-closing reader
+     */
+    static Reader nonClosing(final Reader reader) {
+        return new FilterReader(reader) {
+            @Override
+            public void close() {
+                // the caller owns the reader
+            }
+        };
+    }
+
+    /**
+     * Returns an {@link OutputStream} which only flushes the given stream on {@link OutputStream#close()}.
+     *
+     * @param out stream to wrap
+     * @return non-closing stream
+     */
+    static OutputStream nonClosing(final OutputStream out) {
+        return new FilterOutputStream(out) {
+            @Override
+            public void write(final byte[] b, final int off, final int len) throws IOException {
+                out.write(b, off, len);
+            }
+
+            @Override
+            public void close() throws IOException {
+                out.flush();
+            }
+        };
+    }
+
+    /**
+     * Returns a {@link WritableByteChannel} which does not close the given channel on
+     * {@link WritableByteChannel#close()}.
+     *
+     * @param channel channel to wrap
+     * @return non-closing channel
+     */
+    static WritableByteChannel nonClosing(final WritableByteChannel channel) {
+        return new WritableByteChannel() {
+            @Override
+            public int write(final ByteBuffer source) throws IOException {
+                return channel.write(source);
+            }
+
+            @Override
+            public boolean isOpen() {
+                return channel.isOpen();
+            }
+
+            @Override
+            public void close() {
+                // the caller owns the channel
+            }
+        };
+    }
+
+    /**
+     * Returns an {@link InputStream} reading the remaining bytes of the given buffer.
+     * The buffer's position is not changed.
+     *
+     * @param buffer buffer to read from
+     * @return stream backed by the buffer
+     */
+    static InputStream asInputStream(final ByteBuffer buffer) {
+        return new ByteBufferInputStream(buffer.duplicate());
+    }
+
+    /**
+     * Returns an {@link InputStream} reading the given region of a file channel. The stream uses
+     * positional reads, so the channel's position is not changed. The stream ends early if the
+     * file is truncated.
+     *
+     * @param channel  channel to read from
+     * @param position position of the first byte to read
+     * @param count    number of bytes to read
+     * @return stream reading the region
+     */
+    static InputStream asInputStream(final FileChannel channel, final long position, final long count) {
+        return new FileChannelInputStream(channel, position, position + count);
+    }
+
+    /**
+     * Reads the given number of bytes into a buffer growing with the bytes read, so that a
+     * corrupt length read from the input fails with an {@link java.io.EOFException} once the
+     * input ends instead of allocating the whole buffer up front.
+     *
+     * @param in     input to read from
+     * @param length number of bytes to read
+     * @return bytes read
+     * @throws IOException if the input ends before the given number of bytes has been read
+     */
+    static byte[] readFully(final DataInput in, final int length) throws IOException {
+        byte[] buffer = new byte[Math.min(length, READ_CHUNK_SIZE)];
+        int read = 0;
+        while (true) {
+            in.readFully(buffer, read, buffer.length - read);
+            read = buffer.length;
+            if (read == length) {
+                return buffer;
+            }
+            buffer = Arrays.copyOf(buffer, (int) Math.min(length, read * 2L));
+        }
+    }
+
+    /**
+     * Returns an {@link OutputStream} writing into the given buffer starting at its position.
+     * Writing more bytes than remaining in the buffer fails with a
+     * {@link java.nio.BufferOverflowException}.
+     *
+     * @param buffer buffer to write to
+     * @return stream backed by the buffer
+     */
+    static OutputStream asOutputStream(final ByteBuffer buffer) {
+        return new OutputStream() {
+            @Override
+            public void write(final int b) {
+                buffer.put((byte) b);
+            }
+
+            @Override
+            public void write(final byte[] b, final int off, final int len) {
+                buffer.put(b, off, len);
+            }
+        };
+    }
+
+    /**
+     * {@link OutputStream} discarding all bytes written to it and counting them.
+     */
+    static final class CountingOutputStream extends OutputStream {
+
+        private long count;
+
+        @Override
+        public void write(final int b) {
+            count++;
+        }
+
+        @Override
+        public void write(final byte[] b, final int off, final int len) {
+            count += len;
+        }
+
+        /**
+         * Returns the number of bytes written so far.
+         *
+         * @return number of bytes
+         */
+        long getCount() {
+            return count;
+        }
+    }
+
+    private static final class ByteBufferInputStream extends InputStream {
+
+        private final ByteBuffer buffer;
+
+        private ByteBufferInputStream(final ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+
+            return buffer.get() & 0xFF;
+        }
+
+        @Override
+        public int read(final byte[] b, final int off, final int len) {
+            if (len == 0) {
+                return 0;
+            }
+
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+
+            final int count = Math.min(len, buffer.remaining());
+            buffer.get(b, off, count);
+
+            return count;
+        }
+
+        @Override
+        public long skip(final long n) {
+            final int count = (int) Math.max(0, Math.min(n, buffer.remaining()));
+            buffer.position(buffer.position() + count);
+
+            return count;
+        }
+
+        @Override
+        public int available() {
+            return buffer.remaining();
+        }
+    }
+
+    private static final class FileChannelInputStream extends InputStream {
+
+        private final FileChannel channel;
+        private final long end;
+        private long position;
+
+        private FileChannelInputStream(final FileChannel channel, final long position, final long end) {
+            this.channel = channel;
+            this.position = position;
+            this.end = end;
+        }
+
+        @Override
+        public int read() throws IOException {
+            final byte[] single = new byte[1];
+
+            return read(single, 0, 1) < 0 ? -1 : single[0] & 0xFF;
+        }
+
+        @Override
+        public int read(final byte[] b, final int off, final int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+
+            if (position >= end) {
+                return -1;
+            }
+
+            final int count = (int) Math.min(len, end - position);
+            final int read = channel.read(ByteBuffer.wrap(b, off, count), position);
+            if (read > 0) {
+                position += read;
+            }
+
+            return read;
+        }
+
+        @Override
+        public long skip(final long n) {
+            final long count = Math.max(0, Math.min(n, end - position));
+            position += count;
+
+            return count;
+        }
+
+        @Override
+        public int available() {
+            return (int) Math.min(Integer.MAX_VALUE, end - position);
+        }
+    }
+}
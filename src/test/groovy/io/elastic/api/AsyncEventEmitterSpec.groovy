@@ -0,0 +1,197 @@
+package io.elastic.api
+
+import spock.lang.Specification
+
+import java.util.concurrent.CopyOnWriteArrayList
+import java.util.concurrent.Executor
+import java.util.concurrent.Executors
+import java.util.concurrent.TimeUnit
+
+class AsyncEventEmitterSpec extends Specification {
+
+    def tasks = []
+    def manualExecutor = { Runnable task -> tasks << task } as Executor
+    def received = new CopyOnWriteArrayList()
+    def callback = { data -> received << data } as EventEmitter.Callback
+
+    def builder() {
+        new EventEmitter.Builder()
+                .onError(callback)
+                .onData(callback)
+                .onSnapshot(callback)
+                .onRebound(callback)
+                .onHttpReplyCallback(callback)
+    }
+
+    def "deliver events in order on executor"() {
+        setup:
+        def executor = Executors.newFixedThreadPool(4)
+        def emitter = builder()
+                .executor(executor)
+                .queueCapacity(8)
+                .build()
+
+        when:
+        (0..<1000).each { emitter.emitRebound(it) }
+        def delivered = emitter.awaitDelivery(10, TimeUnit.SECONDS)
+
+        then:
+        delivered
+        received == (0..<1000).toList()
+
+        cleanup:
+        executor.shutdown()
+    }
+
+    def "deliver messages and batches to batch callback in order"() {
+        setup:
+        def executor = Executors.newFixedThreadPool(4)
+        def delivered = new CopyOnWriteArrayList()
+        def emitter = new EventEmitter.Builder()
+                .onError(callback)
+                .dataBatchCallback({ batch -> delivered.addAll(batch) } as EventEmitter.BatchCallback)
+                .onSnapshot(callback)
+                .onRebound(callback)
+                .onHttpReplyCallback(callback)
+                .executor(executor)
+                .queueCapacity(8)
+                .build()
+        def messages = (0..<2000).collect { new Message.Builder().build() }
+
+        when:
+        messages.collate(4).eachWithIndex { chunk, index ->
+            if (index % 2 == 0) {
+                emitter.emitDataBatch(chunk)
+            } else {
+                chunk.each { emitter.emitData(it) }
+            }
+        }
+
+        then:
+        emitter.awaitDelivery(10, TimeUnit.SECONDS)
+        delivered == messages
+
+        cleanup:
+        executor.shutdown()
+    }
+
+    def "events are not delivered before executor runs"() {
+        setup:
+        def emitter = builder().executor(manualExecutor).build()
+
+        when:
+        emitter.emitRebound("first").emitRebound("second")
+
+        then:
+        received.isEmpty()
+        tasks.size() == 1
+        !emitter.awaitDelivery(1, TimeUnit.MILLISECONDS)
+
+        when:
+        tasks[0].run()
+
+        then:
+        received == ["first", "second"]
+        emitter.awaitDelivery(1, TimeUnit.MILLISECONDS)
+    }
+
+    def "drop events if queue is full"() {
+        setup:
+        def emitter = builder()
+                .executor(manualExecutor)
+                .queueCapacity(1)
+                .overflowPolicy(EventEmitter.OverflowPolicy.DROP)
+                .build()
+
+        when:
+        emitter.emitRebound("first").emitRebound("second")
+        tasks[0].run()
+
+        then:
+        received == ["first"]
+        emitter.awaitDelivery(1, TimeUnit.MILLISECONDS)
+    }
+
+    def "fail if queue is full"() {
+        setup:
+        def emitter = builder()
+                .executor(manualExecutor)
+                .queueCapacity(1)
+                .overflowPolicy(EventEmitter.OverflowPolicy.FAIL)
+                .build()
+
+        when:
+        emitter.emitRebound("first").emitRebound("second")
+
+        then:
+        def e = thrown(RejectedEventException)
+        e.message == "Event rebound rejected as the queue is full"
+
+        when:
+        tasks[0].run()
+
+        then:
+        emitter.awaitDelivery(1, TimeUnit.MILLISECONDS)
+    }
+
+    def "failing callback does not stop delivery"() {
+        setup:
+        def emitter = new EventEmitter.Builder()
+                .onError(callback)
+                .onData(callback)
+                .onSnapshot(callback)
+                .onRebound({ data -> if (data == "fail") { throw new RuntimeException("Ouch!") }; received << data } as EventEmitter.Callback)
+                .onHttpReplyCallback(callback)
+                .executor(manualExecutor)
+                .build()
+
+        when:
+        emitter.emitRebound("fail").emitRebound("next")
+        tasks[0].run()
+
+        then:
+        received == ["next"]
+    }
+
+    def "callback failing with error does not stop delivery"() {
+        setup:
+        def emitter = new EventEmitter.Builder()
+                .onError(callback)
+                .onData(callback)
+                .onSnapshot(callback)
+                .onRebound({ data -> if (data == "fail") { throw new AssertionError("Ouch!") }; received << data } as EventEmitter.Callback)
+                .onHttpReplyCallback(callback)
+                .executor(manualExecutor)
+                .build()
+
+        when:
+        emitter.emitRebound("fail").emitRebound("next")
+        tasks[0].run()
+
+        then:
+        def e = thrown(AssertionError)
+        e.message == "Ouch!"
+        tasks.size() == 2
+
+        when:
+        tasks[1].run()
+
+        then:
+        received == ["next"]
+        emitter.awaitDelivery(1, TimeUnit.MILLISECONDS)
+    }
+
+    def "synchronous emitter is always delivered"() {
+        expect:
+        builder().build().awaitDelivery(0, TimeUnit.SECONDS)
+    }
+
+    def "throw exception if queue capacity not positive"() {
+        when:
+        builder().queueCapacity(0)
+
+        then:
+        def e = thrown(IllegalArgumentException)
+        e.message == "Queue capacity must be positive"
+    }
+}
@@ -0,0 +1,192 @@
+package io.elastic.api
+
+import spock.lang.Specification
+
+import javax.json.Json
+import java.util.concurrent.CancellationException
+import java.util.concurrent.CompletableFuture
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.ExecutionException
+import java.util.concurrent.Executor
+import java.util.concurrent.ExecutorService
+import java.util.concurrent.Executors
+import java.util.concurrent.RejectedExecutionException
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.TimeoutException
+
+class AsyncProvidersSpec extends Specification {
+
+    ExecutorService executor = Executors.newFixedThreadPool(4)
+    def configuration = Json.createObjectBuilder().add('apiKey', 'secret').build()
+    def model = Json.createObjectBuilder().add('de', 'Germany').build()
+
+    def cleanup() {
+        executor.shutdownNow()
+    }
+
+    def "retrieve select model on executor"() {
+        setup:
+        def threads = []
+        def provider = { config -> threads << Thread.currentThread(); model } as SelectModelProvider
+
+        when:
+        def result = AsyncProviders.asyncSelectModelProvider(provider, executor)
+                .getSelectModelAsync(configuration)
+                .get(5, TimeUnit.SECONDS)
+
+        then:
+        result == model
+        threads.size() == 1
+        !threads[0].is(Thread.currentThread())
+    }
+
+    def "retrieve meta models in parallel"() {
+        setup:
+        def started = new CountDownLatch(2)
+        def provider = { config ->
+            started.countDown()
+            // completes only if both lookups run at the same time
+            assert started.await(5, TimeUnit.SECONDS)
+            model
+        } as DynamicMetadataProvider
+        def async = AsyncProviders.asyncMetadataProvider(provider, executor)
+
+        when:
+        def first = async.getMetaModelAsync(configuration)
+        def second = async.getMetaModelAsync(configuration)
+        CompletableFuture.allOf(first, second).get(5, TimeUnit.SECONDS)
+
+        then:
+        first.get() == model
+        second.get() == model
+    }
+
+    def "complete verification exceptionally if credentials invalid"() {
+        setup:
+        def failure = new InvalidCredentialsException("Invalid API key")
+        def verifier = Mock(CredentialsVerifier) {
+            verify(configuration) >> { throw failure }
+        }
+
+        when:
+        AsyncProviders.asyncCredentialsVerifier(verifier, executor)
+                .verifyAsync(configuration)
+                .get(5, TimeUnit.SECONDS)
+
+        then:
+        def e = thrown(ExecutionException)
+        e.cause.is(failure)
+    }
+
+    def "complete verification if credentials valid"() {
+        setup:
+        def verifier = Mock(CredentialsVerifier)
+
+        when:
+        def result = AsyncProviders.asyncCredentialsVerifier(verifier, executor)
+                .verifyAsync(configuration)
+                .get(5, TimeUnit.SECONDS)
+
+        then:
+        result == null
+    }
+
+    def "interrupt hung provider on timeout"() {
+        setup:
+        def interrupted = new CountDownLatch(1)
+        def provider = { config ->
+            try {
+                Thread.sleep(60000)
+            } catch (InterruptedException e) {
+                interrupted.countDown()
+                throw new IllegalStateException("Interrupted", e)
+            }
+            model
+        } as SelectModelProvider
+
+        when:
+        def future = AsyncProviders.withTimeout(
+                AsyncProviders.asyncSelectModelProvider(provider, executor).getSelectModelAsync(configuration),
+                100, TimeUnit.MILLISECONDS)
+        future.get(5, TimeUnit.SECONDS)
+
+        then:
+        def e = thrown(ExecutionException)
+        e.cause instanceof TimeoutException
+        e.cause.message == "Timed out after 100 milliseconds"
+        interrupted.await(5, TimeUnit.SECONDS)
+    }
+
+    def "interrupt provider on cancellation"() {
+        setup:
+        def running = new CountDownLatch(1)
+        def interrupted = new CountDownLatch(1)
+        def provider = { config ->
+            running.countDown()
+            try {
+                Thread.sleep(60000)
+            } catch (InterruptedException e) {
+                interrupted.countDown()
+            }
+            model
+        } as SelectModelProvider
+
+        when:
+        def future = AsyncProviders.asyncSelectModelProvider(provider, executor).getSelectModelAsync(configuration)
+        running.await(5, TimeUnit.SECONDS)
+        future.cancel(true)
+        future.get()
+
+        then:
+        thrown(CancellationException)
+        interrupted.await(5, TimeUnit.SECONDS)
+    }
+
+    def "do not time out completed future"() {
+        setup:
+        def provider = { config -> model } as SelectModelProvider
+
+        when:
+        def future = AsyncProviders.withTimeout(
+                AsyncProviders.asyncSelectModelProvider(provider, executor).getSelectModelAsync(configuration),
+                50, TimeUnit.MILLISECONDS)
+        def result = future.get(5, TimeUnit.SECONDS)
+        Thread.sleep(100)
+
+        then:
+        result == model
+        !future.completedExceptionally
+    }
+
+    def "complete exceptionally if executor rejects"() {
+        setup:
+        def rejecting = { Runnable task -> throw new RejectedExecutionException("Queue full") } as Executor
+
+        when:
+        AsyncProviders.asyncSelectModelProvider(Mock(SelectModelProvider), rejecting)
+                .getSelectModelAsync(configuration)
+                .get()
+
+        then:
+        def e = thrown(ExecutionException)
+        e.cause instanceof RejectedExecutionException
+    }
+
+    def "throw exception if timeout not positive"() {
+        when:
+        AsyncProviders.withTimeout(new CompletableFuture(), 0, TimeUnit.SECONDS)
+
+        then:
+        def e = thrown(IllegalArgumentException)
+        e.message == "Timeout must be positive"
+    }
+
+    def "throw exception if executor null"() {
+        when:
+        AsyncProviders.asyncCredentialsVerifier(Mock(CredentialsVerifier), null)
+
+        then:
+        def e = thrown(IllegalArgumentException)
+        e.message == "Executor must not be null"
+    }
+}
@@ -0,0 +1,237 @@
+package io.elastic.api
+
+import spock.lang.Specification
+
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.TimeUnit
+
+class BatchEventEmitterSpec extends Specification {
+
+    def received = []
+    def batches = []
+    def callback = { data -> received << data } as EventEmitter.Callback
+    def batchCallback = { messages -> batches << messages } as EventEmitter.BatchCallback
+
+    def messages(int count) {
+        (0..<count).collect { new Message.Builder().build() }
+    }
+
+    def "pass each message of a batch to data callback"() {
+        setup:
+        def emitter = new EventEmitter.Builder()
+                .onError(callback)
+                .onData(callback)
+                .onSnapshot(callback)
+                .onRebound(callback)
+                .onHttpReplyCallback(callback)
+                .build()
+        def batch = messages(3)
+
+        when:
+        emitter.emitDataBatch(batch)
+
+        then:
+        received == batch
+    }
+
+    def "pass batches and single messages to batch callback"() {
+        setup:
+        def emitter = new EventEmitter.Builder()
+                .onError(callback)
+                .dataBatchCallback(batchCallback)
+                .onSnapshot(callback)
+                .onRebound(callback)
+                .onHttpReplyCallback(callback)
+                .build()
+        def batch = messages(3)
+        def single = new Message.Builder().build()
+
+        when:
+        emitter.emitDataBatch(batch).emitData(single).emitDataBatch([])
+
+        then:
+        batches == [batch, [single]]
+        received.isEmpty()
+    }
+
+    def "fail if neither data nor batch callback is set"() {
+        when:
+        new EventEmitter.Builder()
+                .onError(callback)
+                .onSnapshot(callback)
+                .onRebound(callback)
+                .onHttpReplyCallback(callback)
+                .build()
+
+        then:
+        def e = thrown(IllegalStateException)
+        e.message == "'onData' callback is required"
+    }
+
+    def "buffer messages until batch is full"() {
+        setup:
+        def emitter = new EventEmitter.Builder()
+                .onError(callback)
+                .dataBatchCallback(batchCallback)
+                .onSnapshot(callback)
+                .onRebound(callback)
+                .onHttpReplyCallback(callback)
+                .batchData(2, 1, TimeUnit.HOURS)
+                .build()
+        def batch = messages(5)
+
+        when:
+        batch.each { emitter.emitData(it) }
+
+        then:
+        batches == [batch[0..1], batch[2..3]]
+
+        when:
+        emitter.flush()
+
+        then:
+        batches == [batch[0..1], batch[2..3], [batch[4]]]
+
+        when:
+        emitter.flush()
+
+        then:
+        batches.size() == 3
+    }
+
+    def "split emitted batch into buffered batches"() {
+        setup:
+        def emitter = new EventEmitter.Builder()
+                .onError(callback)
+                .dataBatchCallback(batchCallback)
+                .onSnapshot(callback)
+                .onRebound(callback)
+                .onHttpReplyCallback(callback)
+                .batchData(2, 1, TimeUnit.HOURS)
+                .build()
+        def batch = messages(5)
+
+        when:
+        emitter.emitDataBatch(batch)
+        emitter.awaitDelivery(1, TimeUnit.SECONDS)
+
+        then:
+        batches == [batch[0..1], batch[2..3], [batch[4]]]
+    }
+
+    def "pass buffered messages once delay elapsed"() {
+        setup:
+        def emitter = new EventEmitter.Builder()
+                .onError(callback)
+                .dataBatchCallback(batchCallback)
+                .onSnapshot(callback)
+                .onRebound(callback)
+                .onHttpReplyCallback(callback)
+                .batchData(100, 0, TimeUnit.MILLISECONDS)
+                .build()
+        def message = new Message.Builder().build()
+
+        when:
+        emitter.emitData(message)
+
+        then:
+        batches == [[message]]
+    }
+
+    def "pass buffered messages once delay elapsed without further messages"() {
+        setup:
+        def passed = new CountDownLatch(1)
+        def emitter = new EventEmitter.Builder()
+                .onError(callback)
+                .dataBatchCallback({ batch -> batches << batch; passed.countDown() } as EventEmitter.BatchCallback)
+                .onSnapshot(callback)
+                .onRebound(callback)
+                .onHttpReplyCallback(callback)
+                .batchData(100, 50, TimeUnit.MILLISECONDS)
+                .build()
+        def message = new Message.Builder().build()
+
+        when:
+        emitter.emitData(message)
+
+        then:
+        passed.await(5, TimeUnit.SECONDS)
+        batches == [[message]]
+    }
+
+    def "pass batch to callback without holding the batcher"() {
+        setup:
+        def emitter
+        emitter = new EventEmitter.Builder()
+                .onError(callback)
+                .dataBatchCallback({ batch ->
+                    batches << batch
+                    if (batches.size() == 1) {
+                        Thread.start { emitter.emitData(new Message.Builder().build()) }.join(5000)
+                    }
+                } as EventEmitter.BatchCallback)
+                .onSnapshot(callback)
+                .onRebound(callback)
+                .onHttpReplyCallback(callback)
+                .batchData(1, 1, TimeUnit.HOURS)
+                .build()
+
+        when:
+        emitter.emitData(new Message.Builder().build())
+
+        then:
+        batches.size() == 2
+    }
+
+    def "pass buffered batches to single message callback"() {
+        setup:
+        def emitter = new EventEmitter.Builder()
+                .onError(callback)
+                .onData(callback)
+                .onSnapshot(callback)
+                .onRebound(callback)
+                .onHttpReplyCallback(callback)
+                .batchData(10, 1, TimeUnit.HOURS)
+                .build()
+        def batch = messages(3)
+
+        when:
+        batch.each { emitter.emitData(it) }
+
+        then:
+        received.isEmpty()
+
+        when:
+        emitter.flush()
+
+        then:
+        received == batch
+    }
+
+    def "batches are unmodifiable"() {
+        setup:
+        def emitter = new EventEmitter.Builder()
+                .onError(callback)
+                .dataBatchCallback(batchCallback)
+                .onSnapshot(callback)
+                .onRebound(callback)
+                .onHttpReplyCallback(callback)
+                .build()
+
+        when:
+        emitter.emitDataBatch(messages(2))
+        batches[0].clear()
+
+        then:
+        thrown(UnsupportedOperationException)
+    }
+
+    def "fail on invalid batch size"() {
+        when:
+        new EventEmitter.Builder().batchData(0, 1, TimeUnit.SECONDS)
+
+        then:
+        def e = thrown(IllegalArgumentException)
+        e.message == 'Batch size must be positive'
+    }
+}
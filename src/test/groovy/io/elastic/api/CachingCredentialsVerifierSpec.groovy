@@ -0,0 +1,158 @@
+package io.elastic.api
+
+import spock.lang.Specification
+
+import javax.json.Json
+import java.util.concurrent.TimeUnit
+
+class CachingCredentialsVerifierSpec extends Specification {
+
+    long now = 0
+    LoadingCache.Ticker ticker = { -> now } as LoadingCache.Ticker
+    CredentialsVerifier delegate = Mock(CredentialsVerifier)
+    CachingCredentialsVerifier verifier = new CachingCredentialsVerifier.Builder(delegate)
+            .timeToLive(5, TimeUnit.MINUTES)
+            .failureTimeToLive(10, TimeUnit.SECONDS)
+            .ticker(ticker)
+            .build()
+
+    def "cache successful verification"() {
+        setup:
+        def configuration = Json.createObjectBuilder().add('user', 'admin').add('password', 'secret').build()
+        def reordered = Json.createObjectBuilder().add('password', 'secret').add('user', 'admin').build()
+
+        when:
+        verifier.verify(configuration)
+        now = TimeUnit.MINUTES.toNanos(4)
+        verifier.verify(reordered)
+
+        then:
+        1 * delegate.verify(configuration)
+        0 * delegate.verify(_)
+    }
+
+    def "verify again after time to live"() {
+        setup:
+        def configuration = Json.createObjectBuilder().add('apiKey', 'secret').build()
+
+        when:
+        verifier.verify(configuration)
+        now = TimeUnit.MINUTES.toNanos(5)
+        verifier.verify(configuration)
+
+        then:
+        2 * delegate.verify(configuration)
+    }
+
+    def "cache failed verification briefly"() {
+        setup:
+        def configuration = Json.createObjectBuilder().add('apiKey', 'wrong').build()
+        def failure = new InvalidCredentialsException("Invalid API key")
+
+        when:
+        verifier.verify(configuration)
+
+        then:
+        1 * delegate.verify(configuration) >> { throw failure }
+        def first = thrown(InvalidCredentialsException)
+        first.message == "Invalid API key"
+        first.cause.is(failure)
+
+        when:
+        now = TimeUnit.SECONDS.toNanos(9)
+        verifier.verify(configuration)
+
+        then:
+        0 * delegate.verify(_)
+        def second = thrown(InvalidCredentialsException)
+        second.cause.is(failure)
+
+        when:
+        now = TimeUnit.SECONDS.toNanos(10)
+        verifier.verify(configuration)
+
+        then:
+        1 * delegate.verify(configuration)
+        notThrown(InvalidCredentialsException)
+    }
+
+    def "do not cache failures if failure time to live is zero"() {
+        setup:
+        def uncached = new CachingCredentialsVerifier.Builder(delegate)
+                .failureTimeToLive(0, TimeUnit.SECONDS)
+                .ticker(ticker)
+                .build()
+        def configuration = Json.createObjectBuilder().add('apiKey', 'wrong').build()
+
+        when:
+        try {
+            uncached.verify(configuration)
+        } catch (InvalidCredentialsException ignored) {
+        }
+        uncached.verify(configuration)
+
+        then:
+        2 * delegate.verify(configuration) >> { throw new InvalidCredentialsException() } >> {}
+    }
+
+    def "do not cache unexpected exceptions"() {
+        setup:
+        def configuration = Json.createObjectBuilder().add('apiKey', 'secret').build()
+
+        when:
+        verifier.verify(configuration)
+
+        then:
+        1 * delegate.verify(configuration) >> { throw new IllegalStateException("Connection refused") }
+        thrown(IllegalStateException)
+
+        when:
+        verifier.verify(configuration)
+
+        then:
+        1 * delegate.verify(configuration)
+    }
+
+    def "distinguish configurations by their values and structure"() {
+        setup:
+        def configurations = [
+                Json.createObjectBuilder().add('a', 'bc').build(),
+                Json.createObjectBuilder().add('ab', 'c').build(),
+                Json.createObjectBuilder().add('a', Json.createArrayBuilder().add('bc')).build(),
+                Json.createObjectBuilder().add('a', 1).build(),
+                Json.createObjectBuilder().add('a', '1').build(),
+                Json.createObjectBuilder().add('a', true).build(),
+                Json.createObjectBuilder().addNull('a').build()
+        ]
+
+        when:
+        configurations.each { verifier.verify(it) }
+
+        then:
+        configurations.size() * delegate.verify(_)
+    }
+
+    def "invalidate cached result"() {
+        setup:
+        def configuration = Json.createObjectBuilder().add('apiKey', 'secret').build()
+
+        when:
+        verifier.verify(configuration)
+        verifier.invalidate(configuration)
+        verifier.verify(configuration)
+        verifier.invalidateAll()
+        verifier.verify(configuration)
+
+        then:
+        3 * delegate.verify(configuration)
+    }
+
+    def "throw exception if failure time to live negative"() {
+        when:
+        new CachingCredentialsVerifier.Builder(delegate).failureTimeToLive(-1, TimeUnit.SECONDS)
+
+        then:
+        def e = thrown(IllegalArgumentException)
+        e.message == "Failure time to live must not be negative"
+    }
+}
@@ -0,0 +1,265 @@
+package io.elastic.api
+
+import spock.lang.Specification
+
+import javax.json.Json
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.Executor
+import java.util.concurrent.Executors
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicInteger
+
+class CachingProviderSpec extends Specification {
+
+    long now = 0
+    LoadingCache.Ticker ticker = { -> now } as LoadingCache.Ticker
+
+    def "cache select model per configuration"() {
+        setup:
+        def provider = Mock(SelectModelProvider)
+        def cached = new CachingSelectModelProvider.Builder(provider).ticker(ticker).build()
+        def first = Json.createObjectBuilder().add('apiKey', 'secret').add('region', 'eu').build()
+        def reordered = Json.createObjectBuilder().add('region', 'eu').add('apiKey', 'secret').build()
+        def other = Json.createObjectBuilder().add('apiKey', 'other').build()
+        def model = Json.createObjectBuilder().add('de', 'Germany').build()
+
+        when:
+        def results = [cached.getSelectModel(first), cached.getSelectModel(reordered), cached.getSelectModel(other)]
+
+        then:
+        1 * provider.getSelectModel(first) >> model
+        1 * provider.getSelectModel(other) >> model
+        results == [model, model, model]
+    }
+
+    def "reload meta model after time to live"() {
+        setup:
+        def provider = Mock(DynamicMetadataProvider)
+        def cached = new CachingDynamicMetadataProvider.Builder(provider)
+                .timeToLive(10, TimeUnit.SECONDS)
+                .ticker(ticker)
+                .build()
+        def configuration = Json.createObjectBuilder().add('apiKey', 'secret').build()
+        def first = Json.createObjectBuilder().add('version', 1).build()
+        def second = Json.createObjectBuilder().add('version', 2).build()
+
+        when:
+        def beforeExpiry = cached.getMetaModel(configuration)
+        now = TimeUnit.SECONDS.toNanos(9)
+        def stillCached = cached.getMetaModel(configuration)
+        now = TimeUnit.SECONDS.toNanos(10)
+        def reloaded = cached.getMetaModel(configuration)
+
+        then:
+        2 * provider.getMetaModel(configuration) >>> [first, second]
+        beforeExpiry == first
+        stillCached == first
+        reloaded == second
+    }
+
+    def "evict least recently used select model"() {
+        setup:
+        def loads = new AtomicInteger()
+        def provider = { configuration -> loads.incrementAndGet(); configuration } as SelectModelProvider
+        def cached = new CachingSelectModelProvider.Builder(provider).maximumSize(2).build()
+        def a = Json.createObjectBuilder().add('id', 'a').build()
+        def b = Json.createObjectBuilder().add('id', 'b').build()
+        def c = Json.createObjectBuilder().add('id', 'c').build()
+
+        when:
+        cached.getSelectModel(a)
+        cached.getSelectModel(b)
+        cached.getSelectModel(a)
+        cached.getSelectModel(c)
+        cached.getSelectModel(a)
+        cached.getSelectModel(b)
+
+        then:
+        loads.get() == 4
+    }
+
+    def "load select model once for concurrent requests"() {
+        setup:
+        def loads = new AtomicInteger()
+        def loading = new CountDownLatch(1)
+        def release = new CountDownLatch(1)
+        def model = Json.createObjectBuilder().add('de', 'Germany').build()
+        def provider = { config ->
+            loads.incrementAndGet()
+            loading.countDown()
+            release.await()
+            model
+        } as SelectModelProvider
+        def cached = new CachingSelectModelProvider.Builder(provider).build()
+        def configuration = Json.createObjectBuilder().add('apiKey', 'secret').build()
+        def pool = Executors.newFixedThreadPool(8)
+
+        when:
+        def futures = (1..8).collect { pool.submit({ cached.getSelectModel(configuration) } as java.util.concurrent.Callable) }
+        loading.await()
+        Thread.sleep(100)
+        release.countDown()
+
+        then:
+        futures.collect { it.get(5, TimeUnit.SECONDS) }.every { it == model }
+        loads.get() == 1
+
+        cleanup:
+        pool.shutdown()
+    }
+
+    def "do not cache failed load"() {
+        setup:
+        def provider = Mock(SelectModelProvider)
+        def cached = new CachingSelectModelProvider.Builder(provider).build()
+        def configuration = Json.createObjectBuilder().add('apiKey', 'secret').build()
+        def model = Json.createObjectBuilder().add('de', 'Germany').build()
+
+        when:
+        cached.getSelectModel(configuration)
+
+        then:
+        1 * provider.getSelectModel(configuration) >> { throw new IllegalStateException("Service unavailable") }
+        def e = thrown(IllegalStateException)
+        e.message == "Service unavailable"
+
+        when:
+        def result = cached.getSelectModel(configuration)
+
+        then:
+        1 * provider.getSelectModel(configuration) >> model
+        result == model
+    }
+
+    def "return stale select model while revalidating"() {
+        setup:
+        def refreshes = []
+        def executor = { Runnable task -> refreshes << task } as Executor
+        def provider = Mock(SelectModelProvider)
+        def cached = new CachingSelectModelProvider.Builder(provider)
+                .timeToLive(10, TimeUnit.SECONDS)
+                .staleWhileRevalidate(1, TimeUnit.MINUTES, executor)
+                .ticker(ticker)
+                .build()
+        def configuration = Json.createObjectBuilder().add('apiKey', 'secret').build()
+        def first = Json.createObjectBuilder().add('version', 1).build()
+        def second = Json.createObjectBuilder().add('version', 2).build()
+
+        when:
+        cached.getSelectModel(configuration)
+        now = TimeUnit.SECONDS.toNanos(15)
+        def stale = cached.getSelectModel(configuration)
+        def staleAgain = cached.getSelectModel(configuration)
+
+        then:
+        1 * provider.getSelectModel(configuration) >> first
+        stale == first
+        staleAgain == first
+        refreshes.size() == 1
+
+        when:
+        refreshes[0].run()
+        def refreshed = cached.getSelectModel(configuration)
+
+        then:
+        1 * provider.getSelectModel(configuration) >> second
+        refreshed == second
+    }
+
+    def "refresh again after refresh failed with error"() {
+        setup:
+        def refreshes = []
+        def executor = { Runnable task -> refreshes << task } as Executor
+        def provider = Mock(SelectModelProvider)
+        def cached = new CachingSelectModelProvider.Builder(provider)
+                .timeToLive(10, TimeUnit.SECONDS)
+                .staleWhileRevalidate(1, TimeUnit.MINUTES, executor)
+                .ticker(ticker)
+                .build()
+        def configuration = Json.createObjectBuilder().add('apiKey', 'secret').build()
+        def first = Json.createObjectBuilder().add('version', 1).build()
+
+        when:
+        cached.getSelectModel(configuration)
+        now = TimeUnit.SECONDS.toNanos(15)
+        cached.getSelectModel(configuration)
+        refreshes[0].run()
+
+        then:
+        1 * provider.getSelectModel(configuration) >> first
+        1 * provider.getSelectModel(configuration) >> { throw new AssertionError("Ouch!") }
+        thrown(AssertionError)
+
+        when:
+        def stale = cached.getSelectModel(configuration)
+
+        then:
+        stale == first
+        refreshes.size() == 2
+    }
+
+    def "load synchronously once stale period ended"() {
+        setup:
+        def provider = Mock(SelectModelProvider)
+        def cached = new CachingSelectModelProvider.Builder(provider)
+                .timeToLive(10, TimeUnit.SECONDS)
+                .staleWhileRevalidate(5, TimeUnit.SECONDS, { Runnable task -> } as Executor)
+                .ticker(ticker)
+                .build()
+        def configuration = Json.createObjectBuilder().add('apiKey', 'secret').build()
+        def first = Json.createObjectBuilder().add('version', 1).build()
+        def second = Json.createObjectBuilder().add('version', 2).build()
+
+        when:
+        cached.getSelectModel(configuration)
+        now = TimeUnit.SECONDS.toNanos(15)
+        def result = cached.getSelectModel(configuration)
+
+        then:
+        2 * provider.getSelectModel(configuration) >>> [first, second]
+        result == second
+    }
+
+    def "invalidate cached select model"() {
+        setup:
+        def provider = Mock(SelectModelProvider)
+        def cached = new CachingSelectModelProvider.Builder(provider).build()
+        def configuration = Json.createObjectBuilder().add('apiKey', 'secret').build()
+
+        when:
+        cached.getSelectModel(configuration)
+        cached.invalidate(configuration)
+        cached.getSelectModel(configuration)
+        cached.invalidateAll()
+        cached.getSelectModel(configuration)
+
+        then:
+        3 * provider.getSelectModel(configuration) >> JSON.EMPTY_OBJECT
+    }
+
+    def "throw exception if #setting invalid"() {
+        when:
+        configure(new CachingSelectModelProvider.Builder(Mock(SelectModelProvider)))
+
+        then:
+        def e = thrown(IllegalArgumentException)
+        e.message == message
+
+        where:
+        setting           | configure                                                         | message
+        'maximum size'    | { it.maximumSize(0) }                                             | 'Maximum size must be positive'
+        'time to live'    | { it.timeToLive(0, TimeUnit.SECONDS) }                            | 'Time to live must be positive'
+        'time unit'       | { it.timeToLive(1, null) }                                        | 'Time unit must not be null'
+        'stale period'    | { it.staleWhileRevalidate(-1, TimeUnit.SECONDS, Mock(Executor)) } | 'Stale period must not be negative'
+        'stale executor'  | { it.staleWhileRevalidate(1, TimeUnit.SECONDS, null) }            | 'Executor must not be null'
+    }
+
+    def "throw exception if delegate null"() {
+        when:
+        new CachingDynamicMetadataProvider.Builder(null)
+
+        then:
+        def e = thrown(IllegalArgumentException)
+        e.message == 'Dynamic metadata provider must not be null'
+    }
+}
@@ -0,0 +1,112 @@
+package io.elastic.api
+
+import spock.lang.Specification
+
+import javax.json.Json
+import java.util.concurrent.TimeUnit
+
+import static io.elastic.api.EmitterMetrics.EventType.*
+
+class EmitterMetricsSpec extends Specification {
+
+    def callback = { data -> } as EventEmitter.Callback
+
+    def builder() {
+        new EventEmitter.Builder()
+                .onError(callback)
+                .onData(callback)
+                .onSnapshot(callback)
+                .onRebound(callback)
+                .onUpdateKeys(callback)
+                .onHttpReplyCallback(callback)
+    }
+
+    def "count events per type"() {
+        setup:
+        def metrics = new StandardEmitterMetrics()
+        def emitter = builder().metrics(metrics).build()
+        def snapshot = Json.createObjectBuilder().build()
+
+        when:
+        emitter.emitData(new Message.Builder().build())
+                .emitData(new Message.Builder().build())
+                .emitSnapshot(snapshot)
+                .emitRebound("later")
+                .emitException(new RuntimeException())
+
+        then:
+        metrics.getCount(DATA) == 2
+        metrics.getCount(SNAPSHOT) == 1
+        metrics.getCount(REBOUND) == 1
+        metrics.getCount(ERROR) == 1
+        metrics.getCount(UPDATE_KEYS) == 0
+        metrics.getPayloadBytes(DATA) == 0
+    }
+
+    def "record payload sizes"() {
+        setup:
+        def metrics = new StandardEmitterMetrics(true)
+        def emitter = builder().metrics(metrics).build()
+        def message = new Message.Builder()
+                .body(Json.createObjectBuilder().add("hello", "world").build())
+                .build()
+        def keys = Json.createObjectBuilder().add("token", "secret").build()
+
+        when:
+        emitter.emitData(message).emitUpdateKeys(keys).emitRebound("later")
+
+        then:
+        metrics.getPayloadBytes(DATA) == message.toString().getBytes("UTF-8").length
+        metrics.getPayloadBytes(UPDATE_KEYS) == '{"token":"secret"}'.length()
+        metrics.getPayloadBytes(REBOUND) == 0
+    }
+
+    def "record latency of failing callback"() {
+        setup:
+        def metrics = new StandardEmitterMetrics()
+        def emitter = builder()
+                .onData({ data -> throw new IllegalStateException("Ouch!") } as EventEmitter.Callback)
+                .metrics(metrics)
+                .build()
+
+        when:
+        emitter.emitData(new Message.Builder().build())
+
+        then:
+        thrown(IllegalStateException)
+        metrics.getCount(DATA) == 1
+    }
+
+    def "report latency percentiles"() {
+        setup:
+        def metrics = new StandardEmitterMetrics()
+
+        when:
+        (1..100).each { metrics.eventReceived(DATA, null, TimeUnit.MICROSECONDS.toNanos(it)) }
+
+        then:
+        (50..56).contains(metrics.getLatencyPercentile(DATA, 50, TimeUnit.MICROSECONDS) as int)
+        (99..112).contains(metrics.getLatencyPercentile(DATA, 99, TimeUnit.MICROSECONDS) as int)
+        (100..112).contains(metrics.getLatencyPercentile(DATA, 100, TimeUnit.MICROSECONDS) as int)
+        metrics.getLatencyPercentile(SNAPSHOT, 99, TimeUnit.MICROSECONDS) == 0
+    }
+
+    def "histogram bucket contains its values"() {
+        expect:
+        def index = LatencyHistogram.indexOf(value)
+        LatencyHistogram.upperBoundOf(index) >= value
+        index == 0 || LatencyHistogram.upperBoundOf(index - 1) < value
+
+        where:
+        value << [0L, 1L, 15L, 16L, 17L, 100L, 1000L, 123456789L, Long.MAX_VALUE]
+    }
+
+    def "fail on invalid percentile"() {
+        when:
+        new StandardEmitterMetrics().getLatencyPercentile(DATA, 101, TimeUnit.NANOSECONDS)
+
+        then:
+        def e = thrown(IllegalArgumentException)
+        e.message == 'Percentile must be between 0 and 100'
+    }
+}
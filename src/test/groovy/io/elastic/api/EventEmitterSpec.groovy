@@ -126,4 +126,66 @@ class EventEmitterSpec extends Specification {
         0 * updateKeysCallback.receive(_)
         1 * httpReplyCallback.receive(reply)
     }
-}
\ No newline at end of file
+
+    def "should emit events to typed callbacks" () {
+        setup:
+        def dataCallback = Mock(EventEmitter.DataCallback)
+        def errorCallback = Mock(EventEmitter.ErrorCallback)
+        def snapshotCallback = Mock(EventEmitter.SnapshotCallback)
+        def reboundCallback = Mock(EventEmitter.ReboundCallback)
+        def updateKeysCallback = Mock(EventEmitter.UpdateKeysCallback)
+        def httpReplyCallback = Mock(EventEmitter.HttpReplyCallback)
+        def emitter = new EventEmitter.Builder()
+                .errorCallback(errorCallback)
+                .dataCallback(dataCallback)
+                .snapshotCallback(snapshotCallback)
+                .reboundCallback(reboundCallback)
+                .updateKeysCallback(updateKeysCallback)
+                .httpReplyCallback(httpReplyCallback)
+                .build()
+        def msg = new Message.Builder().build()
+        def e = new RuntimeException("Ouch!")
+        def obj = Json.createObjectBuilder().add("value", "I am snapshot").build()
+        def reply = new HttpReply.Builder()
+                .content(new ByteArrayInputStream("hello".getBytes()))
+                .status(HttpReply.Status.OK)
+                .build()
+
+        when:
+        emitter.emitData(msg)
+                .emitException(e)
+                .emitSnapshot(obj)
+                .emitRebound("Rebound me!")
+                .emitUpdateKeys(obj)
+                .emitHttpReply(reply)
+
+        then:
+        1 * dataCallback.receive(msg)
+        1 * errorCallback.receive(e)
+        1 * snapshotCallback.receive(obj)
+        1 * reboundCallback.receive("Rebound me!")
+        1 * updateKeysCallback.receive(obj)
+        1 * httpReplyCallback.receive(reply)
+    }
+
+    def "typed callback replaces untyped callback" () {
+        setup:
+        def typedCallback = Mock(EventEmitter.DataCallback)
+        def emitter = new EventEmitter.Builder()
+                .onError(errorCallback)
+                .onData(dataCallback)
+                .dataCallback(typedCallback)
+                .onSnapshot(snapshotCallback)
+                .onRebound(reboundCallback)
+                .onHttpReplyCallback(httpReplyCallback)
+                .build()
+        def msg = new Message.Builder().build()
+
+        when:
+        emitter.emitData(msg)
+
+        then:
+        0 * dataCallback.receive(_)
+        1 * typedCallback.receive(msg)
+    }
+}
@@ -2,6 +2,14 @@ package io.elastic.api
 
 import spock.lang.Specification
 
+import java.nio.ByteBuffer
+import java.nio.channels.Channels
+import java.nio.channels.FileChannel
+import java.nio.channels.WritableByteChannel
+import java.nio.file.StandardOpenOption
+import java.util.zip.GZIPInputStream
+import java.util.zip.InflaterInputStream
+
 class HttpReplySpec extends Specification {
 
     def "throw exception if conent null"() {
@@ -28,4 +36,316 @@ class HttpReplySpec extends Specification {
         reply.content == stream
         reply.headers == ['X-Powered-By': 'elastic.io']
     }
+
+    def "stream content of file channel"() {
+        setup:
+        def file = File.createTempFile("reply", ".txt")
+        file.text = "hello world"
+        def channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)
+        channel.position(6)
+        def out = new ByteArrayOutputStream()
+
+        when:
+        def reply = new HttpReply.Builder()
+                .content(channel)
+                .status(HttpReply.Status.OK)
+                .build()
+        reply.writeContentTo(Channels.newChannel(out))
+
+        then:
+        reply.contentLength == 5
+        out.toString() == "world"
+
+        cleanup:
+        channel.close()
+        file.delete()
+    }
+
+    def "read content of file channel from its position"() {
+        setup:
+        def file = File.createTempFile("reply", ".txt")
+        file.text = "hello world"
+        def channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)
+        channel.position(6)
+        def reply = new HttpReply.Builder()
+                .content(channel)
+                .build()
+        file.text = "hello world and more"
+
+        when:
+        def first = reply.content.text
+        def second = reply.content.text
+
+        then:
+        first == "world"
+        second == "world"
+        channel.position() == 6
+
+        cleanup:
+        channel.close()
+        file.delete()
+    }
+
+    def "fail if target channel does not accept content of file channel"() {
+        setup:
+        def file = File.createTempFile("reply", ".txt")
+        file.text = "hello world"
+        def channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)
+        def full = [write: { ByteBuffer source -> 0 }, isOpen: { true }, close: { }] as WritableByteChannel
+        def reply = new HttpReply.Builder()
+                .content(channel)
+                .build()
+
+        when:
+        reply.writeContentTo(full)
+
+        then:
+        def e = thrown(IOException)
+        e.message == "Target channel did not accept more bytes after 0 of 11 bytes"
+
+        cleanup:
+        channel.close()
+        file.delete()
+    }
+
+    def "stream content of byte buffer"() {
+        setup:
+        def buffer = ByteBuffer.wrap("hello".getBytes())
+        def out = new ByteArrayOutputStream()
+
+        when:
+        def reply = new HttpReply.Builder()
+                .content(buffer)
+                .build()
+        reply.writeContentTo(Channels.newChannel(out))
+
+        then:
+        reply.contentLength == 5
+        out.toString() == "hello"
+        buffer.position() == 0
+        reply.content.text == "hello"
+    }
+
+    def "stream produced content"() {
+        setup:
+        def producer = { WritableByteChannel channel ->
+            ["hello", " ", "world"].each { channel.write(ByteBuffer.wrap(it.getBytes())) }
+        } as HttpReply.ContentProducer
+        def out = new ByteArrayOutputStream()
+
+        when:
+        def reply = new HttpReply.Builder()
+                .content(producer)
+                .contentLength(11)
+                .build()
+        reply.writeContentTo(Channels.newChannel(out))
+
+        then:
+        reply.contentLength == 11
+        out.toString() == "hello world"
+        reply.content.text == "hello world"
+    }
+
+    def "write stream content to channel"() {
+        setup:
+        def out = new ByteArrayOutputStream()
+
+        when:
+        def reply = new HttpReply.Builder()
+                .content(new ByteArrayInputStream("hello".getBytes()))
+                .build()
+        reply.writeContentTo(Channels.newChannel(out))
+
+        then:
+        reply.contentLength == HttpReply.UNKNOWN_CONTENT_LENGTH
+        out.toString() == "hello"
+    }
+
+    def "throw exception if content length negative"() {
+        when:
+        new HttpReply.Builder().contentLength(-2)
+
+        then:
+        def e = thrown(IllegalArgumentException)
+        e.message == "Content length must not be negative"
+    }
+
+    def "compress content with #encoding"() {
+        setup:
+        def text = '{"hello":"world"}' * 1000
+        def out = new ByteArrayOutputStream()
+
+        when:
+        def reply = new HttpReply.Builder()
+                .content(ByteBuffer.wrap(text.getBytes("UTF-8")))
+                .header('X-Powered-By', 'elastic.io')
+                .encoding(encoding)
+                .build()
+        reply.writeContentTo(Channels.newChannel(out))
+
+        then:
+        reply.headers == ['X-Powered-By': 'elastic.io', 'Content-Encoding': encoding.token]
+        reply.contentLength == HttpReply.UNKNOWN_CONTENT_LENGTH
+        out.size() < text.length() / 10
+        decompress(out.toByteArray()) == text
+        decompress(reply.content.bytes) == text
+
+        where:
+        encoding                         | decompress
+        HttpReply.ContentEncoding.GZIP    | { bytes -> new GZIPInputStream(new ByteArrayInputStream(bytes)).getText("UTF-8") }
+        HttpReply.ContentEncoding.DEFLATE | { bytes -> new InflaterInputStream(new ByteArrayInputStream(bytes)).getText("UTF-8") }
+    }
+
+    def "compress empty content"() {
+        when:
+        def reply = new HttpReply.Builder()
+                .content(new ByteArrayInputStream(new byte[0]))
+                .encoding(HttpReply.ContentEncoding.GZIP)
+                .build()
+
+        then:
+        new GZIPInputStream(reply.content).bytes.length == 0
+    }
+
+    def "negotiate encoding from '#acceptEncoding'"() {
+        expect:
+        HttpReply.ContentEncoding.negotiate(acceptEncoding) == expected
+
+        where:
+        acceptEncoding              | expected
+        null                        | HttpReply.ContentEncoding.IDENTITY
+        ''                          | HttpReply.ContentEncoding.IDENTITY
+        'br'                        | HttpReply.ContentEncoding.IDENTITY
+        'gzip, deflate, br'         | HttpReply.ContentEncoding.GZIP
+        'deflate'                   | HttpReply.ContentEncoding.DEFLATE
+        'gzip;q=0.5, deflate;q=0.8' | HttpReply.ContentEncoding.DEFLATE
+        'gzip;q=0, deflate;q=0'     | HttpReply.ContentEncoding.IDENTITY
+        '*'                         | HttpReply.ContentEncoding.GZIP
+        '*;q=0.1, gzip;q=0'         | HttpReply.ContentEncoding.DEFLATE
+    }
+
+    def "look up headers case-insensitively"() {
+        when:
+        def reply = new HttpReply.Builder()
+                .content(new ByteArrayInputStream(new byte[0]))
+                .header('Content-Type', 'text/plain')
+                .header('content-type', 'application/json')
+                .build()
+
+        then:
+        reply.headers == ['content-type': 'application/json']
+        reply.headers['CONTENT-TYPE'] == 'application/json'
+        reply.headers.containsKey('Content-Type')
+        reply.getHeader('Content-Type') == 'application/json'
+        reply.getHeader('Accept') == null
+    }
+
+    def "keep multiple values of a header"() {
+        when:
+        def reply = new HttpReply.Builder()
+                .content(new ByteArrayInputStream(new byte[0]))
+                .addHeader('Vary', 'Accept')
+                .addHeader('X-Powered-By', 'elastic.io')
+                .addHeader('vary', 'Origin')
+                .build()
+
+        then:
+        reply.headers == ['Vary': 'Accept, Origin', 'X-Powered-By': 'elastic.io']
+        reply.headers.keySet() as List == ['Vary', 'X-Powered-By']
+        reply.getHeaderValues('VARY') == ['Accept', 'Origin']
+        reply.getHeaderValues('Accept') == []
+    }
+
+    def "do not join values of Set-Cookie"() {
+        when:
+        def reply = new HttpReply.Builder()
+                .content(new ByteArrayInputStream(new byte[0]))
+                .addHeader('Set-Cookie', 'a=1; Expires=Wed, 21 Oct 2026 07:28:00 GMT')
+                .addHeader('set-cookie', 'b=2')
+                .build()
+
+        then:
+        reply.headers == ['Set-Cookie': 'a=1; Expires=Wed, 21 Oct 2026 07:28:00 GMT']
+        reply.getHeaderValues('Set-Cookie') == ['a=1; Expires=Wed, 21 Oct 2026 07:28:00 GMT', 'b=2']
+    }
+
+    def "look up many headers"() {
+        setup:
+        def builder = new HttpReply.Builder().content(new ByteArrayInputStream(new byte[0]))
+        (0..<40).each { builder.addHeader("X-Header-${it % 20}", "${it}") }
+
+        when:
+        def reply = builder.build()
+
+        then:
+        reply.headers.size() == 20
+        reply.getHeader('x-header-7') == '7'
+        reply.getHeaderValues('X-HEADER-19') == ['19', '39']
+        reply.headers['x-header-0'] == '0, 20'
+    }
+
+    def "return unmodifiable headers"() {
+        setup:
+        def reply = new HttpReply.Builder()
+                .content(new ByteArrayInputStream(new byte[0]))
+                .header('X-Powered-By', 'elastic.io')
+                .build()
+
+        when:
+        reply.headers.put('Accept', '*/*')
+
+        then:
+        thrown(UnsupportedOperationException)
+    }
+
+    def "do not change built reply when builder is reused"() {
+        setup:
+        def builder = new HttpReply.Builder()
+                .content(new ByteArrayInputStream(new byte[0]))
+                .header('X-Powered-By', 'elastic.io')
+
+        when:
+        def first = builder.build()
+        def second = builder.header('X-Powered-By', 'other').addHeader('Accept', '*/*').build()
+
+        then:
+        first.headers == ['X-Powered-By': 'elastic.io']
+        second.headers == ['X-Powered-By': 'other', 'Accept': '*/*']
+    }
+
+    def "remove header if value null"() {
+        when:
+        def reply = new HttpReply.Builder()
+                .content(new ByteArrayInputStream(new byte[0]))
+                .header('X-Powered-By', 'elastic.io')
+                .addHeader('Accept', '*/*')
+                .header('x-powered-by', null)
+                .addHeader('Accept', null)
+                .build()
+
+        then:
+        reply.headers == ['Accept': '*/*']
+    }
+
+    def "look up status #code"() {
+        expect:
+        HttpReply.Status.fromStatusCode(code) == expected
+
+        where:
+        code | expected
+        200  | HttpReply.Status.OK
+        308  | HttpReply.Status.PERMANENT_REDIRECT
+        422  | HttpReply.Status.UNPROCESSABLE_CONTENT
+        429  | HttpReply.Status.TOO_MANY_REQUESTS
+        451  | HttpReply.Status.UNAVAILABLE_FOR_LEGAL_REASONS
+        511  | HttpReply.Status.NETWORK_AUTHENTICATION_REQUIRED
+        306  | null
+        999  | null
+        -1   | null
+    }
+
+    def "look up every status by its code"() {
+        expect:
+        HttpReply.Status.values().every { HttpReply.Status.fromStatusCode(it.statusCode) == it }
+    }
 }
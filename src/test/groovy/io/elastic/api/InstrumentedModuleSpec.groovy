@@ -0,0 +1,118 @@
+package io.elastic.api
+
+import spock.lang.Specification
+
+import javax.json.Json
+import javax.json.JsonObject
+import java.lang.management.ManagementFactory
+
+class InstrumentedModuleSpec extends Specification {
+
+    def received = []
+    def callback = { data -> received << data } as EventEmitter.Callback
+    def emitter = new EventEmitter.Builder()
+            .onError(callback)
+            .onData(callback)
+            .onSnapshot(callback)
+            .onRebound(callback)
+            .onHttpReplyCallback(callback)
+            .build()
+
+    def parameters() {
+        new ExecutionParameters.Builder(new Message.Builder().build(), emitter).build()
+    }
+
+    def "count messages in and out"() {
+        setup:
+        def module = new InstrumentedModule("splitter", { ExecutionParameters parameters ->
+            parameters.eventEmitter
+                    .emitData(new Message.Builder().build())
+                    .emitDataBatch([new Message.Builder().build(), new Message.Builder().build()])
+                    .emitSnapshot(Json.createObjectBuilder().build())
+        } as Module)
+
+        when:
+        module.execute(parameters())
+        module.execute(parameters())
+
+        then:
+        module.messagesIn == 2
+        module.messagesOut == 6
+        received.size() == 8
+        module.execute.invocations == 2
+        module.execute.failures == 0
+        module.execute.wallTimeNanos > 0
+        module.init.invocations == 0
+    }
+
+    def "record failed invocations"() {
+        setup:
+        def module = new InstrumentedModule("failing", new Module() {
+            @Override
+            void execute(ExecutionParameters parameters) {
+                throw new IllegalStateException("Ouch!")
+            }
+
+            @Override
+            void init(JsonObject configuration) {
+            }
+        })
+
+        when:
+        module.execute(parameters())
+
+        then:
+        thrown(IllegalStateException)
+        module.execute.invocations == 1
+        module.execute.failures == 1
+
+        when:
+        module.init(Json.createObjectBuilder().build())
+
+        then:
+        module.init.invocations == 1
+        module.init.failures == 0
+    }
+
+    def "return startup result"() {
+        setup:
+        def module = new InstrumentedModule("startup", { ExecutionParameters parameters -> } as Module)
+
+        when:
+        def result = module.startup(Json.createObjectBuilder().build())
+
+        then:
+        result == Json.createObjectBuilder().build()
+        module.startup.invocations == 1
+    }
+
+    def "register and unregister MBean"() {
+        setup:
+        def module = new InstrumentedModule("mbean-test", { ExecutionParameters parameters -> } as Module)
+        def server = ManagementFactory.platformMBeanServer
+
+        when:
+        def name = module.registerMBean()
+        module.execute(parameters())
+
+        then:
+        name.toString() == 'io.elastic.api:type=Module,name="mbean-test"'
+        server.getAttribute(name, "MessagesIn") == 1L
+        server.getAttribute(name, "Execute").get("invocations") == 1L
+
+        when:
+        module.unregisterMBean()
+
+        then:
+        !server.isRegistered(name)
+    }
+
+    def "fail without module"() {
+        when:
+        new InstrumentedModule("missing", null)
+
+        then:
+        def e = thrown(IllegalArgumentException)
+        e.message == 'Module must not be null'
+    }
+}
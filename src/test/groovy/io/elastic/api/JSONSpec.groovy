@@ -42,4 +42,67 @@ class JSONSpec extends Specification {
         expect:
         JSON.stringify(json) == '{"hello":"world"}'
     }
+
+    def "read JSON object from stream, reader and buffer"() {
+        setup:
+        def bytes = '{"name":"J\u00fcrgen"}'.getBytes("UTF-8")
+        def expected = Json.createObjectBuilder().add('name', 'J\u00fcrgen').build()
+        def buffer = java.nio.ByteBuffer.wrap(bytes)
+
+        expect:
+        JSON.readObject(new ByteArrayInputStream(bytes)) == expected
+        JSON.readObject(new StringReader('{"name":"J\u00fcrgen"}')) == expected
+        JSON.readObject(buffer) == expected
+        buffer.remaining() == bytes.length
+    }
+
+    def "read JSON array from stream, reader and buffer"() {
+        setup:
+        def expected = Json.createArrayBuilder().add(1).add('two').build()
+
+        expect:
+        JSON.readArray(new ByteArrayInputStream('[1,"two"]'.getBytes("UTF-8"))) == expected
+        JSON.readArray(new StringReader('[1,"two"]')) == expected
+        JSON.readArray(java.nio.ByteBuffer.wrap('[1,"two"]'.getBytes("UTF-8"))) == expected
+    }
+
+    def "write JSON object to stream and channel as UTF-8"() {
+        setup:
+        def json = Json.createObjectBuilder()
+                .add('hello', 'w\u00f6rld')
+                .build()
+        def out = new ByteArrayOutputStream()
+        def channelOut = new ByteArrayOutputStream()
+
+        when:
+        JSON.writeObject(json, out)
+        JSON.writeObject(json, java.nio.channels.Channels.newChannel(channelOut))
+
+        then:
+        new String(out.toByteArray(), "UTF-8") == '{"hello":"w\u00f6rld"}'
+        new String(channelOut.toByteArray(), "UTF-8") == '{"hello":"w\u00f6rld"}'
+    }
+
+    def "streams are not closed"() {
+        setup:
+        def input = new ByteArrayInputStream('{}'.getBytes("UTF-8")) {
+            boolean closed
+
+            void close() { closed = true }
+        }
+        def output = new ByteArrayOutputStream() {
+            boolean closed
+
+            void close() { closed = true }
+        }
+
+        when:
+        JSON.readObject(input)
+        JSON.writeObject(Json.createObjectBuilder().build(), output)
+
+        then:
+        !input.closed
+        !output.closed
+        output.toString() == '{}'
+    }
 }
\ No newline at end of file
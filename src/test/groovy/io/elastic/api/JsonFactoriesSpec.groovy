@@ -0,0 +1,45 @@
+package io.elastic.api
+
+import spock.lang.Specification
+
+import javax.json.Json
+import javax.json.stream.JsonGenerator
+
+class JsonFactoriesSpec extends Specification {
+
+    def defaultFactories = JsonFactories.getDefault()
+
+    def cleanup() {
+        JsonFactories.setDefault(defaultFactories)
+    }
+
+    def "default factories are shared"() {
+        expect:
+        JsonFactories.getDefault().is(JsonFactories.getDefault())
+        JsonFactories.getDefault().readerFactory.is(JsonFactories.getDefault().readerFactory)
+        JsonFactories.getDefault().config.isEmpty()
+    }
+
+    def "throw exception if default factories null"() {
+        when:
+        JsonFactories.setDefault(null)
+
+        then:
+        def e = thrown(IllegalArgumentException)
+        e.message == "JsonFactories must not be null"
+    }
+
+    def "configured factories are used by the library"() {
+        setup:
+        JsonFactories.setDefault(new JsonFactories.Builder()
+                .config(JsonGenerator.PRETTY_PRINTING, true)
+                .build())
+        def json = Json.createObjectBuilder()
+                .add('hello', 'world')
+                .build()
+
+        expect:
+        JsonFactories.getDefault().config == [(JsonGenerator.PRETTY_PRINTING): true]
+        JSON.stringify(json).contains('\n')
+    }
+}
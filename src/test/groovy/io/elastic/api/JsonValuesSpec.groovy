@@ -0,0 +1,83 @@
+package io.elastic.api
+
+import spock.lang.Specification
+
+import javax.json.Json
+import javax.json.JsonValue
+
+class JsonValuesSpec extends Specification {
+
+    def "treat #first and #second as equal"() {
+        setup:
+        def a = JSON.parseObject(first)
+        def b = JSON.parseObject(second)
+
+        expect:
+        JsonValues.deepEquals(a, b)
+        JsonValues.hash64(a) == JsonValues.hash64(b)
+        JsonValues.hash128(a) == JsonValues.hash128(b)
+
+        where:
+        first                                   | second
+        '{"a":1,"b":"x"}'                       | '{"b":"x","a":1}'
+        '{"a":{"c":[1,2],"d":null},"b":true}'   | '{"b":true,"a":{"d":null,"c":[1,2]}}'
+        '{"n":1}'                               | '{"n":1.0}'
+        '{"n":10}'                              | '{"n":1E1}'
+        '{"n":0.5}'                             | '{"n":0.50}'
+        '{"n":123456789012345678901234567890}'  | '{"n":1.23456789012345678901234567890E29}'
+        '{"n":9223372036854775807}'             | '{"n":9.223372036854775807E18}'
+        '{}'                                    | '{}'
+    }
+
+    def "treat #first and #second as different"() {
+        setup:
+        def a = JSON.parseObject(first)
+        def b = JSON.parseObject(second)
+
+        expect:
+        !JsonValues.deepEquals(a, b)
+        JsonValues.hash64(a) != JsonValues.hash64(b)
+
+        where:
+        first                | second
+        '{"a":1}'            | '{"a":2}'
+        '{"a":1}'            | '{"a":"1"}'
+        '{"a":[1,2]}'        | '{"a":[2,1]}'
+        '{"a":true}'         | '{"a":false}'
+        '{"a":null}'         | '{"b":null}'
+        '{"a":{}}'           | '{"a":[]}'
+        '{"a":1,"b":2}'      | '{"a":2,"b":1}'
+        '{"a":1}'            | '{"a":1,"b":1}'
+        '{"ab":"c"}'         | '{"a":"bc"}'
+        '{"a":[[]]}'         | '{"a":[[],[]]}'
+    }
+
+    def "compare null values"() {
+        expect:
+        JsonValues.deepEquals(null, null)
+        !JsonValues.deepEquals(JsonValue.NULL, null)
+        !JsonValues.deepEquals(null, JSON.EMPTY_OBJECT)
+    }
+
+    def "compute independent 128-bit hash"() {
+        setup:
+        def value = Json.createObjectBuilder().add('apiKey', 'secret').build()
+
+        when:
+        def hash = JsonValues.hash128(value)
+
+        then:
+        hash.length == 2
+        hash[0] == JsonValues.hash64(value)
+        hash[0] != hash[1]
+    }
+
+    def "throw exception if hashed value null"() {
+        when:
+        JsonValues.hash64(null)
+
+        then:
+        def e = thrown(IllegalArgumentException)
+        e.message == "JSON value must not be null"
+    }
+}
@@ -0,0 +1,194 @@
+package io.elastic.api
+
+import spock.lang.Specification
+import spock.lang.Unroll
+
+import javax.json.Json
+
+@Unroll
+class MessageCodecSpec extends Specification {
+
+    def body = Json.createObjectBuilder()
+            .add("string", "hello wörld!")
+            .add("int", 42)
+            .add("negative", -42)
+            .add("long", Long.MIN_VALUE)
+            .add("big", new BigInteger("123456789012345678901234567890"))
+            .add("negativeBig", new BigInteger("-123456789012345678901234567890"))
+            .add("decimal", new BigDecimal("1.50"))
+            .add("exponent", new BigDecimal("1E+3"))
+            .add("double", 0.1d)
+            .add("true", true)
+            .add("false", false)
+            .addNull("null")
+            .add("array", Json.createArrayBuilder()
+                    .add(1)
+                    .add("two")
+                    .add(new BigDecimal("-3.25"))
+                    .addNull()
+                    .add(Json.createArrayBuilder().add(true))
+                    .add(Json.createObjectBuilder().add("nested", "object")))
+            .add("empty", Json.createObjectBuilder())
+            .build()
+
+    def message = new Message.Builder()
+            .headers(Json.createObjectBuilder().add("x-io-rate-limit", 60).build())
+            .body(body)
+            .attachments(Json.createObjectBuilder().add("logo.png", "http://acme.org/img/logo.png").build())
+            .passthrough(Json.createObjectBuilder().add("step_1", Json.createObjectBuilder().add("msg", "Lorem")).build())
+            .build()
+
+    def "#codec.class.simpleName round trips message"() {
+        setup:
+        def out = new ByteArrayOutputStream()
+
+        when:
+        codec.encode(message, out)
+        def decoded = codec.decode(new ByteArrayInputStream(out.toByteArray()))
+
+        then:
+        decoded.id == message.id
+        decoded.headers == message.headers
+        decoded.body == message.body
+        decoded.attachments == message.attachments
+        decoded.passthrough == message.passthrough
+
+        where:
+        codec << [new JsonMessageCodec(), new CborMessageCodec()]
+    }
+
+    def "cbor message is smaller than json message"() {
+        setup:
+        def json = new ByteArrayOutputStream()
+        def cbor = new ByteArrayOutputStream()
+
+        when:
+        new JsonMessageCodec().encode(message, json)
+        new CborMessageCodec().encode(message, cbor)
+
+        then:
+        cbor.size() < json.size()
+    }
+
+    def "cbor encodes message as map with binary id"() {
+        setup:
+        def out = new ByteArrayOutputStream()
+        def id = UUID.fromString("00000000-0000-0001-0000-000000000002")
+
+        when:
+        new CborMessageCodec().encode(new Message.Builder().id(id).build(), out)
+        def bytes = out.toByteArray()
+
+        then:
+        (bytes[0] & 0xFF) == 0xA5
+        (bytes[1] & 0xFF) == 0x62
+        new String(bytes, 2, 2, "UTF-8") == "id"
+        (bytes[4] & 0xFF) == 0xD8
+        bytes[5] == 37
+        (bytes[6] & 0xFF) == 0x50
+        bytes[6 + 8] == 1
+        bytes[6 + 16] == 2
+    }
+
+    def "cbor decodes multiple messages from one stream"() {
+        setup:
+        def codec = new CborMessageCodec()
+        def out = new ByteArrayOutputStream()
+        def first = new Message.Builder().build()
+        def second = new Message.Builder().build()
+        codec.encode(first, out)
+        codec.encode(second, out)
+        def input = new ByteArrayInputStream(out.toByteArray())
+
+        expect:
+        codec.decode(input).id == first.id
+        codec.decode(input).id == second.id
+        input.read() == -1
+    }
+
+    def "cbor decodes floating point numbers"() {
+        setup:
+        def out = new ByteArrayOutputStream()
+        def data = new DataOutputStream(out)
+        data.writeByte(0xA2)
+        data.writeByte(0x62)
+        data.write("id".getBytes("UTF-8"))
+        data.writeByte(0xD8)
+        data.writeByte(37)
+        data.writeByte(0x50)
+        data.writeLong(1)
+        data.writeLong(2)
+        data.writeByte(0x64)
+        data.write("body".getBytes("UTF-8"))
+        data.writeByte(0xA1)
+        data.writeByte(0x61)
+        data.write("f".getBytes("UTF-8"))
+        data.writeByte(0xFB)
+        data.writeLong(Double.doubleToLongBits(1.5d))
+
+        when:
+        def msg = new CborMessageCodec().decode(new ByteArrayInputStream(out.toByteArray()))
+
+        then:
+        msg.id == new UUID(1, 2)
+        msg.body.getJsonNumber("f").doubleValue() == 1.5d
+    }
+
+    def "cbor decoding fails with #reason"() {
+        when:
+        new CborMessageCodec().decode(new ByteArrayInputStream(input as byte[]))
+
+        then:
+        def e = thrown(IOException)
+        e.message == reason
+
+        where:
+        input                     | reason
+        [0x80]                    | "Expected CBOR major type 5 but found 4"
+        [0xA0]                    | "Message id is missing"
+        [0xBF]                    | "Indefinite-length CBOR items are not supported"
+        [0xA1, 0x62, 0x69, 0x64, 0x01] | "Expected CBOR major type 6 but found 0"
+    }
+
+    def "cbor decoding fails on #item"() {
+        when:
+        new CborMessageCodec().decode(new ByteArrayInputStream(withBodyValue(value)))
+
+        then:
+        def e = thrown(IOException)
+        e.class == type
+        e.message == reason
+
+        where:
+        item                       | value                                                  | type         | reason
+        'out of range exponent'    | [0xC4, 0x82, 0x1B, 0x7F] + [0xFF] * 7 + [0x01]          | IOException  | "Decimal fraction exponent 9223372036854775807 is out of range"
+        'NaN'                      | [0xFB, 0x7F, 0xF8] + [0x00] * 6                         | IOException  | "CBOR floating point value NaN cannot be represented in JSON"
+        'infinity'                 | [0xFA, 0x7F, 0x80, 0x00, 0x00]                          | IOException  | "CBOR floating point value Infinity cannot be represented in JSON"
+        'deep nesting'             | [0x81] * 300 + [0x01]                                   | IOException  | "CBOR items nested deeper than 256 levels are not supported"
+        'length beyond input'      | [0x7A, 0x7F, 0xFF, 0xFF, 0xFF, 0x61]                    | EOFException | null
+    }
+
+    /**
+     * Returns a CBOR message whose body has a single property with the given encoded value.
+     */
+    byte[] withBodyValue(List<Integer> value) {
+        def out = new ByteArrayOutputStream()
+        def data = new DataOutputStream(out)
+        data.writeByte(0xA2)
+        data.writeByte(0x62)
+        data.write("id".getBytes("UTF-8"))
+        data.writeByte(0xD8)
+        data.writeByte(37)
+        data.writeByte(0x50)
+        data.writeLong(1)
+        data.writeLong(2)
+        data.writeByte(0x64)
+        data.write("body".getBytes("UTF-8"))
+        data.writeByte(0xA1)
+        data.writeByte(0x61)
+        data.write("f".getBytes("UTF-8"))
+        value.each { data.writeByte(it) }
+
+        out.toByteArray()
+    }
+}
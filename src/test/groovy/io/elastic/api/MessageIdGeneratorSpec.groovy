@@ -0,0 +1,76 @@
+package io.elastic.api
+
+import spock.lang.Specification
+
+class MessageIdGeneratorSpec extends Specification {
+
+    def cleanup() {
+        Message.setDefaultIdGenerator(StandardMessageIdGenerator.RANDOM)
+    }
+
+    def "generate random id"() {
+        when:
+        def id = StandardMessageIdGenerator.RANDOM.nextId()
+
+        then:
+        id.version() == 4
+        id.variant() == 2
+    }
+
+    def "generate time ordered id"() {
+        setup:
+        def before = System.currentTimeMillis()
+
+        when:
+        def id = StandardMessageIdGenerator.TIME_ORDERED.nextId()
+
+        then:
+        id.version() == 7
+        id.variant() == 2
+        (id.mostSignificantBits >>> 16) >= before
+        (id.mostSignificantBits >>> 16) <= System.currentTimeMillis()
+    }
+
+    def "time ordered ids of different milliseconds sort by creation time"() {
+        when:
+        def first = StandardMessageIdGenerator.TIME_ORDERED.nextId()
+        Thread.sleep(2)
+        def second = StandardMessageIdGenerator.TIME_ORDERED.nextId()
+
+        then:
+        first.toString() < second.toString()
+    }
+
+    def "build message with id generator"() {
+        setup:
+        def id = UUID.randomUUID()
+        def generator = Mock(MessageIdGenerator)
+
+        when:
+        def msg = new Message.Builder().idGenerator(generator).build()
+
+        then:
+        1 * generator.nextId() >> id
+        msg.getId() == id
+    }
+
+    def "build message with default id generator"() {
+        setup:
+        Message.setDefaultIdGenerator(StandardMessageIdGenerator.TIME_ORDERED)
+
+        when:
+        def msg = new Message.Builder().build()
+
+        then:
+        msg.getId().version() == 7
+    }
+
+    def "throw exception if id generator null"() {
+        when:
+        new Message.Builder().idGenerator(null)
+
+        then:
+        def e = thrown(IllegalArgumentException)
+        e.message == "Message id generator must not be null"
+    }
+}
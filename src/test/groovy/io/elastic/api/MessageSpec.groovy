@@ -80,4 +80,132 @@ class MessageSpec extends Specification {
         msg.getAttachments().toString() == '{"logo.png":"http://acmer.org/img/logo.png"}'
         msg.getPassthrough().toString() == '{"step_1":{"msg":"Lorem ipsum"}}'
     }
+
+    def "build message with defaults"() {
+        setup:
+        def builder = new Message.Builder()
+
+        when:
+        def first = builder.build()
+        def second = builder.build()
+
+        then:
+        first.getId() != null
+        first.getId() != second.getId()
+        first.getHeaders().isEmpty()
+        first.getBody().isEmpty()
+        first.getAttachments().isEmpty()
+        first.getPassthrough().isEmpty()
+        first.getBody().is(second.getBody())
+    }
+
+    def "build message with given id"() {
+        setup:
+        def id = UUID.randomUUID()
+
+        when:
+        def msg = new Message.Builder().id(id).build()
+
+        then:
+        msg.getId() == id
+    }
+
+    def "wrap message without parsing its sections"() {
+        setup:
+        def id = UUID.randomUUID()
+        def json = """{ "id" : "${id}", "headers":{"x-io-rate-limit":60},
+            "body":{"message":"hello w\u00f6rld!", "list":[1, {"a":"}"}]},
+            "passthrough":{"step_1":{"msg":"Lorem ipsum"}}, "unknown":[true, null] }"""
+
+        when:
+        def msg = Message.wrap(json.getBytes("UTF-8"))
+
+        then:
+        msg.getId() == id
+        msg.toString() == '{"id":"' + id + '","headers":{"x-io-rate-limit":60},' +
+                '"body":{"message":"hello w\u00f6rld!", "list":[1, {"a":"}"}]},' +
+                '"attachments":{},"passthrough":{"step_1":{"msg":"Lorem ipsum"}}}'
+        msg.getBody().getString("message") == "hello w\u00f6rld!"
+        msg.getBody().is(msg.getBody())
+        msg.getHeaders().getInt("x-io-rate-limit") == 60
+        msg.getAttachments().isEmpty()
+        JSON.parseObject(msg.toString()) == msg.toJsonObject()
+    }
+
+    def "wrap message from buffer"() {
+        setup:
+        def id = UUID.randomUUID()
+        def bytes = ('xx{"id":"' + id + '","body":{"message":"hello"}}').getBytes("UTF-8")
+        def buffer = java.nio.ByteBuffer.wrap(bytes)
+        buffer.position(2)
+
+        when:
+        def msg = Message.wrap(buffer)
+
+        then:
+        msg.getId() == id
+        msg.getBody().getString("message") == "hello"
+        buffer.position() == 2
+    }
+
+    def "wrapping invalid message fails with #message"() {
+        when:
+        Message.wrap(input.getBytes("UTF-8"))
+
+        then:
+        def e = thrown(javax.json.JsonException)
+        e.message == message
+
+        where:
+        input                                | message
+        '[]'                                 | "Invalid message JSON at offset 0: '{' expected"
+        '{"body":{}'                         | "Invalid message JSON at offset 10: Unexpected end of message"
+        '{"body":[]}'                        | "Message body must be a JSON object"
+        '{"id":1}'                           | "Message id must be a string"
+        '{"body":{}}'                        | "Message id is missing"
+        '{"id":"abc"}'                       | "Message id is not a UUID: abc"
+        '{"body":{}} {}'                     | "Invalid message JSON at offset 12: Unexpected content after message"
+    }
+
+    def "write message to stream and buffer"() {
+        setup:
+        def msg = new Message.Builder()
+                .body(Json.createObjectBuilder().add("message", "hello w\u00f6rld!").build())
+                .build()
+        def expected = '{"id":"' + msg.id + '","headers":{},"body":{"message":"hello w\u00f6rld!"},' +
+                '"attachments":{},"passthrough":{}}'
+        def out = new ByteArrayOutputStream()
+        def buffer = java.nio.ByteBuffer.allocate(1024)
+
+        when:
+        msg.writeTo(out)
+        msg.writeTo(buffer)
+
+        then:
+        msg.toString() == expected
+        new String(out.toByteArray(), "UTF-8") == expected
+        new String(buffer.array(), 0, buffer.position(), "UTF-8") == expected
+    }
+
+    def "write wrapped message to stream"() {
+        setup:
+        def id = UUID.randomUUID()
+        def json = '{"id":"' + id + '","body":{ "message" : "hello" },"headers":{"a":1}}'
+        def out = new ByteArrayOutputStream()
+
+        when:
+        Message.wrap(json.getBytes("UTF-8")).writeTo(out)
+
+        then:
+        new String(out.toByteArray(), "UTF-8") == '{"id":"' + id + '","headers":{"a":1},' +
+                '"body":{ "message" : "hello" },"attachments":{},"passthrough":{}}'
+    }
+
+    def "writing message to small buffer fails"() {
+        when:
+        new Message.Builder().build().writeTo(java.nio.ByteBuffer.allocate(10))
+
+        then:
+        thrown(java.nio.BufferOverflowException)
+    }
 }
@@ -0,0 +1,301 @@
+package io.elastic.api
+
+import spock.lang.Specification
+
+import javax.json.Json
+import javax.json.JsonObject
+import java.util.concurrent.TimeUnit
+
+class ModulePoolSpec extends Specification {
+
+    long now = 0
+    LoadingCache.Ticker ticker = { -> now } as LoadingCache.Ticker
+    List<CountingModule> created = []
+    ModulePool.ModuleFactory factory = { ->
+        def module = new CountingModule()
+        created << module
+        module
+    } as ModulePool.ModuleFactory
+
+    ModulePool reentrantPool
+    boolean reenter = true
+
+    def callback = { data -> } as EventEmitter.Callback
+    def emitter = new EventEmitter.Builder()
+            .onError(callback)
+            .onData(callback)
+            .onSnapshot(callback)
+            .onRebound(callback)
+            .onHttpReplyCallback(callback)
+            .build()
+
+    def first = Json.createObjectBuilder().add('apiKey', 'first').add('region', 'eu').build()
+    def reordered = Json.createObjectBuilder().add('region', 'eu').add('apiKey', 'first').build()
+    def second = Json.createObjectBuilder().add('apiKey', 'second').build()
+
+    def "reuse initialized module for equal configuration"() {
+        setup:
+        def pool = new ModulePool.Builder(factory).ticker(ticker).build()
+
+        when:
+        pool.execute(parameters(first))
+        pool.execute(parameters(reordered))
+        pool.execute(parameters(second))
+
+        then:
+        created.size() == 2
+        created[0].inits == [first]
+        created[0].executions == 2
+        created[1].inits == [second]
+        created[1].executions == 1
+        pool.idleCount == 2
+    }
+
+    def "create another module while the pooled one is in use"() {
+        setup:
+        reentrantPool = new ModulePool.Builder({ ->
+            def module = new CountingModule() {
+                @Override
+                void execute(ExecutionParameters parameters) {
+                    super.execute(parameters)
+                    if (reenter) {
+                        reenter = false
+                        reentrantPool.execute(parameters)
+                    }
+                }
+            }
+            created << module
+            module
+        } as ModulePool.ModuleFactory).ticker(ticker).build()
+
+        when:
+        reentrantPool.execute(parameters(first))
+
+        then:
+        created.size() == 2
+        created.every { it.executions == 1 }
+        reentrantPool.idleCount == 2
+    }
+
+    def "evict longest idle module above maximum"() {
+        setup:
+        def pool = new ModulePool.Builder(factory).maximumIdle(1).ticker(ticker).build()
+
+        when:
+        pool.execute(parameters(first))
+        pool.execute(parameters(second))
+
+        then:
+        created.size() == 2
+        created[0].closed
+        !created[1].closed
+        pool.idleCount == 1
+    }
+
+    def "tear down idle modules after idle timeout"() {
+        setup:
+        def pool = new ModulePool.Builder(factory)
+                .idleTimeout(1, TimeUnit.MINUTES)
+                .ticker(ticker)
+                .build()
+
+        when:
+        pool.execute(parameters(first))
+        now = TimeUnit.SECONDS.toNanos(30)
+        pool.execute(parameters(second))
+        now = TimeUnit.SECONDS.toNanos(60)
+        pool.evictIdle()
+
+        then:
+        created[0].closed
+        !created[1].closed
+        pool.idleCount == 1
+
+        when:
+        pool.execute(parameters(first))
+
+        then:
+        created.size() == 3
+    }
+
+    def "discard module whose execution failed"() {
+        setup:
+        def failing = new CountingModule() {
+            @Override
+            void execute(ExecutionParameters parameters) {
+                throw new IllegalStateException("Connection lost")
+            }
+        }
+        def pool = new ModulePool.Builder({ -> failing } as ModulePool.ModuleFactory).ticker(ticker).build()
+
+        when:
+        pool.execute(parameters(first))
+
+        then:
+        thrown(IllegalStateException)
+        failing.closed
+        pool.idleCount == 0
+    }
+
+    def "reuse startup result for equal configuration"() {
+        setup:
+        def pool = new ModulePool.Builder(factory).ticker(ticker).build()
+
+        when:
+        def results = [pool.startup(first), pool.startup(reordered), pool.startup(second)]
+
+        then:
+        created.size() == 2
+        created.sum { it.startups } == 2
+        results[0].is(results[1])
+        results[0].getString('apiKey') == 'first'
+        results[2].getString('apiKey') == 'second'
+
+        and: "startup runs on modules which are not initialized and not pooled"
+        created.every { it.inits.isEmpty() && it.closed }
+        pool.idleCount == 0
+    }
+
+    def "tear down module whose startup failed"() {
+        setup:
+        def pool = new ModulePool.Builder({ ->
+            def module = new CountingModule(startupFailure: new AssertionError("Ouch!"))
+            created << module
+            module
+        } as ModulePool.ModuleFactory).ticker(ticker).build()
+
+        when:
+        pool.startup(first)
+
+        then:
+        def e = thrown(AssertionError)
+        e.message == "Ouch!"
+        created.size() == 1
+        created[0].closed
+        pool.idleCount == 0
+    }
+
+    def "initialize module ahead of first execution"() {
+        setup:
+        def pool = new ModulePool.Builder(factory).ticker(ticker).build()
+
+        when:
+        pool.init(first)
+        pool.execute(parameters(first))
+
+        then:
+        created.size() == 1
+        created[0].inits == [first]
+        created[0].executions == 1
+    }
+
+    def "close idle modules on close"() {
+        setup:
+        def pool = new ModulePool.Builder(factory).ticker(ticker).build()
+        pool.execute(parameters(first))
+        pool.execute(parameters(second))
+
+        when:
+        pool.close()
+
+        then:
+        created.every { it.closed }
+        pool.idleCount == 0
+
+        when:
+        pool.execute(parameters(first))
+
+        then:
+        def e = thrown(IllegalStateException)
+        e.message == "ModulePool is closed"
+    }
+
+    def "flush batched data once module returns"() {
+        setup:
+        def batches = []
+        def batching = new EventEmitter.Builder()
+                .onError(callback)
+                .dataBatchCallback({ batch -> batches << batch } as EventEmitter.BatchCallback)
+                .onSnapshot(callback)
+                .onRebound(callback)
+                .onHttpReplyCallback(callback)
+                .batchData(10, 1, TimeUnit.HOURS)
+                .build()
+        def message = new Message.Builder().build()
+        def pool = new ModulePool.Builder({ ->
+            { ExecutionParameters p -> p.eventEmitter.emitData(message) } as Module
+        } as ModulePool.ModuleFactory).build()
+
+        when:
+        pool.execute(new ExecutionParameters.Builder(new Message.Builder().build(), batching).build())
+
+        then:
+        batches == [[message]]
+    }
+
+    def "throw exception if factory returns null"() {
+        setup:
+        def pool = new ModulePool.Builder({ -> null } as ModulePool.ModuleFactory).build()
+
+        when:
+        pool.execute(parameters(first))
+
+        then:
+        def e = thrown(IllegalStateException)
+        e.message == "Module factory returned null"
+    }
+
+    def "throw exception if #setting invalid"() {
+        when:
+        configure(new ModulePool.Builder(factory))
+
+        then:
+        def e = thrown(IllegalArgumentException)
+        e.message == message
+
+        where:
+        setting           | configure                                     | message
+        'maximum idle'    | { it.maximumIdle(0) }                         | 'Maximum number of idle modules must be positive'
+        'idle timeout'    | { it.idleTimeout(0, TimeUnit.SECONDS) }       | 'Idle timeout must be positive'
+        'time unit'       | { it.idleTimeout(1, null) }                   | 'Time unit must not be null'
+        'startup results' | { it.maximumStartupResults(0) }               | 'Maximum number of startup results must be positive'
+    }
+
+    def parameters(JsonObject configuration) {
+        new ExecutionParameters.Builder(new Message.Builder().build(), emitter)
+                .configuration(configuration)
+                .build()
+    }
+
+    static class CountingModule implements Module, AutoCloseable {
+        List<JsonObject> inits = []
+        int executions
+        int startups
+        Throwable startupFailure
+        boolean closed
+
+        @Override
+        void execute(ExecutionParameters parameters) {
+            executions++
+        }
+
+        @Override
+        JsonObject startup(JsonObject configuration) {
+            startups++
+            if (startupFailure != null) {
+                throw startupFailure
+            }
+            configuration
+        }
+
+        @Override
+        void init(JsonObject configuration) {
+            inits << configuration
+        }
+
+        @Override
+        void close() {
+            closed = true
+        }
+    }
+}
@@ -0,0 +1,192 @@
+package io.elastic.api
+
+import spock.lang.Specification
+
+import javax.json.Json
+import java.util.concurrent.CompletableFuture
+import java.util.concurrent.CopyOnWriteArrayList
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.ExecutionException
+import java.util.concurrent.Executors
+import java.util.concurrent.TimeUnit
+
+class ParallelModuleExecutorSpec extends Specification {
+
+    def pool = Executors.newFixedThreadPool(4)
+    def snapshots = new CopyOnWriteArrayList()
+    def data = new CopyOnWriteArrayList()
+    def emitter = new EventEmitter.Builder()
+            .onError({ e -> } as EventEmitter.Callback)
+            .onData({ m -> data << m } as EventEmitter.Callback)
+            .onSnapshot({ s -> snapshots << s } as EventEmitter.Callback)
+            .onRebound({ r -> } as EventEmitter.Callback)
+            .onHttpReplyCallback({ r -> } as EventEmitter.Callback)
+            .build()
+
+    def cleanup() {
+        pool.shutdownNow()
+    }
+
+    def parameters(String key, int sequence) {
+        def headers = Json.createObjectBuilder()
+        if (key != null) {
+            headers.add("key", key)
+        }
+        def message = new Message.Builder()
+                .headers(headers.build())
+                .body(Json.createObjectBuilder().add("sequence", sequence).build())
+                .build()
+
+        new ExecutionParameters.Builder(message, emitter).build()
+    }
+
+    def "preserve order of messages sharing a key"() {
+        setup:
+        def executed = [a: new CopyOnWriteArrayList(), b: new CopyOnWriteArrayList()]
+        def module = { ExecutionParameters p ->
+            Thread.sleep(1)
+            executed[p.message.headers.getString("key")] << p.message.body.getInt("sequence")
+        } as Module
+        def executor = new ParallelModuleExecutor.Builder(module, pool)
+                .keyHeader("key")
+                .build()
+
+        when:
+        def futures = (0..<50).collectMany { [executor.submit(parameters("a", it)), executor.submit(parameters("b", it))] }
+        CompletableFuture.allOf(futures as CompletableFuture[]).get(10, TimeUnit.SECONDS)
+
+        then:
+        executed.a == (0..<50).toList()
+        executed.b == (0..<50).toList()
+    }
+
+    def "execute messages without key concurrently"() {
+        setup:
+        def latch = new CountDownLatch(2)
+        def module = { ExecutionParameters p ->
+            latch.countDown()
+            latch.await(5, TimeUnit.SECONDS)
+            p.eventEmitter.emitData(p.message)
+        } as Module
+        def executor = new ParallelModuleExecutor.Builder(module, pool)
+                .keyHeader("key")
+                .build()
+
+        when:
+        def first = executor.submit(parameters(null, 1))
+        def second = executor.submit(parameters(null, 2))
+        CompletableFuture.allOf(first, second).get(10, TimeUnit.SECONDS)
+
+        then:
+        latch.count == 0
+        data.size() == 2
+    }
+
+    def "merge emitted snapshots"() {
+        setup:
+        def module = { ExecutionParameters p ->
+            def sequence = p.message.body.getInt("sequence")
+            p.eventEmitter.emitSnapshot(Json.createObjectBuilder().add("s" + sequence, sequence).build())
+        } as Module
+        def executor = new ParallelModuleExecutor.Builder(module, pool)
+                .snapshot(Json.createObjectBuilder().add("initial", true).build())
+                .build()
+
+        when:
+        def futures = (0..<20).collect { executor.submit(parameters(null, it)) }
+        CompletableFuture.allOf(futures as CompletableFuture[]).get(10, TimeUnit.SECONDS)
+
+        then:
+        executor.snapshot.size() == 21
+        executor.snapshot.getBoolean("initial")
+        (0..<20).every { executor.snapshot.getInt("s" + it) == it }
+        snapshots.size() == 20
+        snapshots.last() == executor.snapshot
+        snapshots*.size() == (2..21).toList()
+    }
+
+    def "pass current snapshot to execution"() {
+        setup:
+        def received = new CopyOnWriteArrayList()
+        def module = { ExecutionParameters p -> received << p.snapshot } as Module
+        def snapshot = Json.createObjectBuilder().add("since", 42).build()
+        def executor = new ParallelModuleExecutor.Builder(module, pool)
+                .snapshot(snapshot)
+                .build()
+
+        when:
+        executor.submit(parameters(null, 1)).get(10, TimeUnit.SECONDS)
+
+        then:
+        received == [snapshot]
+    }
+
+    def "complete future exceptionally if module fails"() {
+        setup:
+        def module = { ExecutionParameters p -> throw new IllegalStateException("Ouch!") } as Module
+        def executor = new ParallelModuleExecutor.Builder(module, pool)
+                .keyHeader("key")
+                .build()
+
+        when:
+        executor.submit(parameters("a", 1)).get(10, TimeUnit.SECONDS)
+
+        then:
+        def e = thrown(ExecutionException)
+        e.cause instanceof IllegalStateException
+
+        when: "the lane keeps executing"
+        def next = executor.submit(parameters("a", 2))
+        next.get(10, TimeUnit.SECONDS)
+
+        then:
+        thrown(ExecutionException)
+    }
+
+    def "complete future exceptionally if module fails with #failure"() {
+        setup:
+        def executor = new ParallelModuleExecutor.Builder(new FailingFirstModule(failure: failure), pool)
+                .keyHeader("key")
+                .build()
+
+        when:
+        def first = executor.submit(parameters("a", 1))
+        def second = executor.submit(parameters("a", 2))
+        first.get(10, TimeUnit.SECONDS)
+
+        then:
+        def e = thrown(ExecutionException)
+        e.cause.is(failure)
+
+        when: "the lane keeps executing"
+        second.get(10, TimeUnit.SECONDS)
+
+        then:
+        noExceptionThrown()
+
+        where:
+        failure << [new AssertionError("Ouch!"), new IOException("Ouch!")]
+    }
+
+    def "fail on invalid lanes"() {
+        when:
+        new ParallelModuleExecutor.Builder({ p -> } as Module, pool).lanes(0)
+
+        then:
+        def e = thrown(IllegalArgumentException)
+        e.message == 'Number of lanes must be positive'
+    }
+
+    /**
+     * Throws the given failure, which may be an undeclared checked exception, from the first execution.
+     */
+    static class FailingFirstModule implements Module {
+        Throwable failure
+
+        void execute(ExecutionParameters parameters) {
+            if (parameters.message.body.getInt("sequence") == 1) {
+                throw failure
+            }
+        }
+    }
+}
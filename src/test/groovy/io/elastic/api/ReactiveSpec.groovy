@@ -0,0 +1,274 @@
+package io.elastic.api
+
+import org.reactivestreams.Processor
+import org.reactivestreams.Subscriber
+import org.reactivestreams.Subscription
+import spock.lang.Specification
+
+import javax.json.Json
+import java.util.concurrent.CopyOnWriteArrayList
+import java.util.concurrent.TimeUnit
+
+class ReactiveSpec extends Specification {
+
+    def received = new CopyOnWriteArrayList()
+    def errors = []
+    def callback = { data -> } as EventEmitter.Callback
+
+    def message(int i) {
+        new Message.Builder().body(Json.createObjectBuilder().add("i", i).build()).build()
+    }
+
+    def recordingSubscriber() {
+        new RecordingSubscriber()
+    }
+
+    def "pass emitted data to subscriber on demand"() {
+        setup:
+        def publisher = new MessagePublisher(4)
+        def subscriber = recordingSubscriber()
+        publisher.subscribe(subscriber)
+        def emitter = new EventEmitter.Builder()
+                .onError(callback)
+                .dataCallback(publisher)
+                .onSnapshot(callback)
+                .onRebound(callback)
+                .onHttpReplyCallback(callback)
+                .build()
+
+        when:
+        (0..<3).each { emitter.emitData(message(it)) }
+
+        then:
+        subscriber.messages.isEmpty()
+
+        when:
+        subscriber.subscription.request(2)
+
+        then:
+        subscriber.messages*.body*.getInt("i") == [0, 1]
+
+        when:
+        publisher.complete()
+
+        then:
+        !subscriber.completed
+
+        when:
+        subscriber.subscription.request(Long.MAX_VALUE)
+
+        then:
+        subscriber.messages.size() == 3
+        subscriber.completed
+    }
+
+    def "block emitting thread while buffer is full"() {
+        setup:
+        def publisher = new MessagePublisher(2)
+        def subscriber = recordingSubscriber()
+        publisher.subscribe(subscriber)
+
+        when:
+        def producer = Thread.start {
+            (0..<10).each { publisher.receive(message(it)) }
+            publisher.complete()
+        }
+        Thread.sleep(200)
+
+        then:
+        producer.alive
+        subscriber.messages.isEmpty()
+
+        when:
+        (0..<10).each { subscriber.subscription.request(1) }
+        producer.join(5000)
+        subscriber.subscription.request(1)
+
+        then:
+        !producer.alive
+        subscriber.messages*.body*.getInt("i") == (0..<10).toList()
+        subscriber.completed
+    }
+
+    def "signal failure after buffered messages"() {
+        setup:
+        def publisher = new MessagePublisher(4)
+        def subscriber = recordingSubscriber()
+        publisher.subscribe(subscriber)
+        def error = new IllegalStateException("Ouch!")
+
+        when:
+        publisher.receive(message(1))
+        publisher.fail(error)
+        subscriber.subscription.request(10)
+
+        then:
+        subscriber.messages.size() == 1
+        subscriber.error == error
+    }
+
+    def "discard messages after cancel"() {
+        setup:
+        def publisher = new MessagePublisher(1)
+        def subscriber = recordingSubscriber()
+        publisher.subscribe(subscriber)
+
+        when:
+        publisher.receive(message(1))
+        subscriber.subscription.cancel()
+        publisher.receive(message(2))
+        publisher.receive(message(3))
+        subscriber.subscription.request(10)
+
+        then:
+        subscriber.messages.isEmpty()
+        !subscriber.completed
+    }
+
+    def "reject invalid request"() {
+        setup:
+        def publisher = new MessagePublisher(1)
+        def subscriber = recordingSubscriber()
+        publisher.subscribe(subscriber)
+
+        when:
+        subscriber.subscription.request(0)
+
+        then:
+        subscriber.error instanceof IllegalArgumentException
+    }
+
+    def "reject second subscriber"() {
+        setup:
+        def publisher = new MessagePublisher(1)
+        def second = recordingSubscriber()
+        publisher.subscribe(recordingSubscriber())
+
+        when:
+        publisher.subscribe(second)
+
+        then:
+        second.error.message == 'MessagePublisher allows only one subscriber'
+    }
+
+    def "run processor as module"() {
+        setup:
+        def processor = new SplittingProcessor()
+        def module = new ProcessorModule({ ExecutionParameters p -> processor } as ProcessorModule.ProcessorFactory, 4)
+        def emitter = new EventEmitter.Builder()
+                .onError({ e -> errors << e } as EventEmitter.Callback)
+                .onData({ m -> received << m } as EventEmitter.Callback)
+                .onSnapshot(callback)
+                .onRebound(callback)
+                .onHttpReplyCallback(callback)
+                .build()
+        def items = Json.createArrayBuilder()
+        (0..<10).each { items.add(Json.createObjectBuilder().add("i", it)) }
+        def input = new Message.Builder().body(Json.createObjectBuilder().add("items", items).build()).build()
+
+        when:
+        module.execute(new ExecutionParameters.Builder(input, emitter).build())
+
+        then:
+        received*.body*.getInt("i") == (0..<10).toList()
+        errors.isEmpty()
+        processor.requests == [4L, 2L, 2L, 2L, 2L, 2L]
+    }
+
+    def "emit processor error"() {
+        setup:
+        def error = new IllegalStateException("Ouch!")
+        def processor = new SplittingProcessor(error: error)
+        def module = new ProcessorModule({ ExecutionParameters p -> processor } as ProcessorModule.ProcessorFactory)
+        def emitter = new EventEmitter.Builder()
+                .onError({ e -> errors << e } as EventEmitter.Callback)
+                .onData({ m -> received << m } as EventEmitter.Callback)
+                .onSnapshot(callback)
+                .onRebound(callback)
+                .onHttpReplyCallback(callback)
+                .build()
+
+        when:
+        module.execute(new ExecutionParameters.Builder(new Message.Builder().build(), emitter).build())
+
+        then:
+        errors == [error]
+        received.isEmpty()
+    }
+
+    static class RecordingSubscriber implements Subscriber<Message> {
+        Subscription subscription
+        List<Message> messages = new CopyOnWriteArrayList<>()
+        volatile boolean completed
+        volatile Throwable error
+
+        void onSubscribe(Subscription subscription) { this.subscription = subscription }
+
+        void onNext(Message message) { messages << message }
+
+        void onError(Throwable error) { this.error = error }
+
+        void onComplete() { completed = true }
+    }
+
+    /**
+     * Splits the items of the incoming message into messages, honouring downstream demand.
+     */
+    static class SplittingProcessor implements Processor<Message, Message> {
+        Subscriber<? super Message> downstream
+        List<Message> pending = []
+        List<Long> requests = []
+        long demand
+        boolean upstreamDone
+        boolean completed
+        boolean draining
+        Throwable error
+
+        void subscribe(Subscriber<? super Message> subscriber) {
+            downstream = subscriber
+            subscriber.onSubscribe([
+                    request: { long n -> requests << n; demand += n; drain() },
+                    cancel : { -> }
+            ] as Subscription)
+        }
+
+        void onSubscribe(Subscription subscription) { subscription.request(1) }
+
+        void onNext(Message message) {
+            if (error) {
+                return
+            }
+            message.body.getJsonArray("items").each {
+                pending << new Message.Builder().body(it).build()
+            }
+            drain()
+        }
+
+        void onError(Throwable t) { downstream.onError(t) }
+
+        void onComplete() {
+            upstreamDone = true
+            if (error) {
+                downstream.onError(error)
+                return
+            }
+            drain()
+        }
+
+        private void drain() {
+            if (draining) {
+                return
+            }
+            draining = true
+            while (demand > 0 && pending) {
+                demand--
+                downstream.onNext(pending.remove(0))
+            }
+            draining = false
+            if (upstreamDone && !pending && !completed) {
+                completed = true
+                downstream.onComplete()
+            }
+        }
+    }
+}
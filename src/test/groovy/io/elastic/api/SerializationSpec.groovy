@@ -0,0 +1,136 @@
+package io.elastic.api
+
+import spock.lang.Specification
+
+import javax.json.Json
+
+class SerializationSpec extends Specification {
+
+    def message = new Message.Builder()
+            .headers(Json.createObjectBuilder().add("x-io-rate-limit", 60).build())
+            .body(Json.createObjectBuilder().add("message", "hello wörld!").build())
+            .passthrough(Json.createObjectBuilder().add("step_1", Json.createObjectBuilder().add("msg", "Lorem")).build())
+            .build()
+
+    def "serialize message"() {
+        when:
+        def copy = roundTrip(message)
+
+        then:
+        copy instanceof Message
+        copy.id == message.id
+        copy.headers == message.headers
+        copy.body == message.body
+        copy.attachments == message.attachments
+        copy.passthrough == message.passthrough
+        copy.toString() == message.toString()
+    }
+
+    def "serialize wrapped message"() {
+        setup:
+        def wrapped = Message.wrap(message.toString().getBytes("UTF-8"))
+
+        when:
+        def copy = roundTrip(wrapped)
+
+        then:
+        copy.id == message.id
+        copy.body == message.body
+        copy.toString() == message.toString()
+    }
+
+    def "reject serialized message with corrupt section length #length"() {
+        setup:
+        def bytes = serialize(message)
+        def lengths = java.nio.ByteBuffer.allocate(16)
+        [message.headers, message.body, message.attachments, message.passthrough].each {
+            lengths.putInt(it.toString().getBytes("UTF-8").length)
+        }
+        def position = Collections.indexOfSubList(bytes.toList(), lengths.array().toList())
+        java.nio.ByteBuffer.wrap(bytes).putInt(position + 4, length)
+
+        when:
+        new ObjectInputStream(new ByteArrayInputStream(bytes)).readObject()
+
+        then:
+        position > 0
+        thrown(expected)
+
+        where:
+        length            | expected
+        -1                | InvalidObjectException
+        Integer.MAX_VALUE | InvalidObjectException
+        100_000_000       | EOFException
+    }
+
+    def "serialize execution parameters without event emitter"() {
+        setup:
+        def emitter = new EventEmitter.Builder()
+                .onError(Mock(EventEmitter.Callback))
+                .onData(Mock(EventEmitter.Callback))
+                .onSnapshot(Mock(EventEmitter.Callback))
+                .onRebound(Mock(EventEmitter.Callback))
+                .onHttpReplyCallback(Mock(EventEmitter.Callback))
+                .build()
+        def parameters = new ExecutionParameters.Builder(message, emitter)
+                .configuration(Json.createObjectBuilder().add("apiKey", "secret").build())
+                .snapshot(Json.createObjectBuilder().add("lastId", 42).build())
+                .build()
+
+        when:
+        def copy = roundTrip(parameters)
+
+        then:
+        copy.message.id == message.id
+        copy.message.body == message.body
+        copy.configuration == parameters.configuration
+        copy.snapshot == parameters.snapshot
+        copy.eventEmitter == null
+    }
+
+    def "reject serialized execution parameters with corrupt configuration length #length"() {
+        setup:
+        def configuration = Json.createObjectBuilder().add("apiKey", "secret").build()
+        def emitter = new EventEmitter.Builder()
+                .onError(Mock(EventEmitter.Callback))
+                .onData(Mock(EventEmitter.Callback))
+                .onSnapshot(Mock(EventEmitter.Callback))
+                .onRebound(Mock(EventEmitter.Callback))
+                .onHttpReplyCallback(Mock(EventEmitter.Callback))
+                .build()
+        def parameters = new ExecutionParameters.Builder(message, emitter)
+                .configuration(configuration)
+                .build()
+        def bytes = serialize(parameters)
+        def json = configuration.toString().getBytes("UTF-8")
+        def prefix = java.nio.ByteBuffer.allocate(4 + json.length).putInt(json.length).put(json)
+        def position = Collections.indexOfSubList(bytes.toList(), prefix.array().toList())
+        java.nio.ByteBuffer.wrap(bytes).putInt(position, length)
+
+        when:
+        new ObjectInputStream(new ByteArrayInputStream(bytes)).readObject()
+
+        then:
+        position > 0
+        thrown(expected)
+
+        where:
+        length            | expected
+        -1                | InvalidObjectException
+        Integer.MAX_VALUE | InvalidObjectException
+        100_000_000       | EOFException
+    }
+
+    def roundTrip(object) {
+        return new ObjectInputStream(new ByteArrayInputStream(serialize(object))).readObject()
+    }
+
+    def serialize(object) {
+        def bytes = new ByteArrayOutputStream()
+        def out = new ObjectOutputStream(bytes)
+        out.writeObject(object)
+        out.close()
+
+        return bytes.toByteArray()
+    }
+}